@@ -0,0 +1,81 @@
+package com.blackboard.benchmarks;
+
+import com.blackboard.models.*;
+import com.blackboard.services.*;
+import com.blackboard.utils.PasswordHasher;
+import java.util.ArrayList;
+import java.util.Random;
+
+// Builds a populated set of services in memory for the benchmarks.
+// Everything scales with the number of students: one course per 25 students, each student
+// in COURSES_PER_STUDENT courses, and a grade for every assignment of every enrolled course.
+public class BenchmarkData {
+    public static final int COURSES_PER_STUDENT = 4;
+    public static final int ASSIGNMENTS_PER_COURSE = 5;
+    public static final int STUDENTS_PER_COURSE = 25;
+
+    public IdAllocator idAllocator;
+    public AuthenticationService authService;
+    public CourseService courseService;
+    public AssignmentService assignmentService;
+    public GradeService gradeService;
+
+    public Student[] students;
+    public Course[] courses;
+    public ArrayList<ArrayList<Assignment>> assignmentsByCourse; // same order as courses
+    public Grade[] grades;
+
+    // Same seed, same data, so runs can be compared
+    public static BenchmarkData build(int studentCount, long seed) {
+        BenchmarkData data = new BenchmarkData();
+        data.idAllocator = new IdAllocator();
+        data.authService = new AuthenticationService(data.idAllocator);
+        data.courseService = new CourseService();
+        data.assignmentService = new AssignmentService();
+        data.gradeService = new GradeService(data.idAllocator);
+        data.gradeService.setPolicyEngine(new GradingPolicyEngine(data.courseService));
+        Random random = new Random(seed);
+
+        // One hash shared by every user, so building the data doesn't spend minutes in PBKDF2
+        String passwordHash = PasswordHasher.hash("password", PasswordHasher.MIN_ITERATIONS);
+
+        data.authService.addUser(new Teacher("T1", passwordHash, "Bench Teacher", "CS"));
+        data.students = new Student[studentCount];
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student(String.format("S%07d", i), passwordHash, "Student " + i, "CS");
+            data.authService.addUser(student);
+            data.students[i] = student;
+        }
+
+        int courseCount = Math.max(COURSES_PER_STUDENT, studentCount / STUDENTS_PER_COURSE);
+        data.courses = new Course[courseCount];
+        data.assignmentsByCourse = new ArrayList<>();
+        for (int c = 0; c < courseCount; c++) {
+            String courseId = String.format("C%05d", c);
+            data.courses[c] = data.courseService.createCourse(courseId, "Course " + c, "Benchmark course",
+                                                              "T1", Integer.MAX_VALUE);
+            ArrayList<Assignment> courseAssignments = new ArrayList<>();
+            for (int a = 0; a < ASSIGNMENTS_PER_COURSE; a++) {
+                courseAssignments.add(data.assignmentService.createAssignment(courseId + "-A" + a, courseId,
+                        "Assignment " + a, "Benchmark assignment", "2030-01-" + (10 + a), 100.0));
+            }
+            data.assignmentsByCourse.add(courseAssignments);
+        }
+
+        ArrayList<Grade> grades = new ArrayList<>();
+        for (Student student : data.students) {
+            for (int k = 0; k < COURSES_PER_STUDENT; k++) {
+                int c = random.nextInt(courseCount);
+                if (!data.courseService.enrollStudentInCourse(data.courses[c].getCourseId(), student)) {
+                    continue; // Picked the same course twice
+                }
+                for (Assignment assignment : data.assignmentsByCourse.get(c)) {
+                    grades.add(data.gradeService.createGrade(data.gradeService.generateGradeId(),
+                            student.getUserId(), assignment.getAssignmentId(), random.nextInt(101)));
+                }
+            }
+        }
+        data.grades = grades.toArray(new Grade[0]);
+        return data;
+    }
+}
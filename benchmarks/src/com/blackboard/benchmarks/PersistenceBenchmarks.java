@@ -0,0 +1,64 @@
+package com.blackboard.benchmarks;
+
+import com.blackboard.services.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Saving and loading every data file, for growing numbers of students.
+// Each call does a whole file round trip, so these are measured per call in milliseconds.
+// Run with: mvn -P benchmarks package && java -jar target/benchmarks.jar PersistenceBenchmarks
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dblackboard.pbkdf2.iterations=50000"})
+public class PersistenceBenchmarks {
+    @Param({"1000", "10000", "50000"})
+    public int students;
+
+    private File dataDir;
+    private DataPersistenceService populated; // Saves the benchmark data
+    private DataPersistenceService empty;     // Fresh services for each load
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("blackboard-bench").toFile();
+        BenchmarkData data = BenchmarkData.build(students, 42L);
+        populated = new DataPersistenceService(data.authService, data.courseService, data.assignmentService,
+                                               data.gradeService, data.idAllocator, dataDir.getPath());
+        populated.saveAllData(); // Files for loadAllData to read
+    }
+
+    @Setup(Level.Invocation)
+    public void freshServices() {
+        IdAllocator idAllocator = new IdAllocator();
+        empty = new DataPersistenceService(new AuthenticationService(idAllocator), new CourseService(),
+                                           new AssignmentService(), new GradeService(idAllocator),
+                                           idAllocator, dataDir.getPath());
+    }
+
+    @Benchmark
+    public void saveAllData() {
+        populated.saveAllData();
+    }
+
+    @Benchmark
+    public void loadAllData() {
+        empty.loadAllData();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        File[] files = dataDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dataDir.delete();
+    }
+}
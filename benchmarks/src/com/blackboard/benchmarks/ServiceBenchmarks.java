@@ -0,0 +1,81 @@
+package com.blackboard.benchmarks;
+
+import com.blackboard.models.*;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Lookups and updates on the in-memory services, for growing numbers of students.
+// Run with: mvn -P benchmarks package && java -jar target/benchmarks.jar ServiceBenchmarks
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ServiceBenchmarks {
+    @Param({"1000", "10000", "50000"})
+    public int students;
+
+    private BenchmarkData data;
+    private Course enrollmentCourse;
+    private int nextStudentToEnroll;
+    private int enrollmentCourseNumber;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = BenchmarkData.build(students, 42L);
+    }
+
+    // Every iteration enrolls into an empty course, so the first pass measures real enrollments
+    @Setup(Level.Iteration)
+    public void newEnrollmentCourse() {
+        openEnrollmentCourse();
+    }
+
+    @Benchmark
+    public User findUserById() {
+        Student student = data.students[ThreadLocalRandom.current().nextInt(data.students.length)];
+        return data.authService.findUserById(student.getUserId());
+    }
+
+    @Benchmark
+    public boolean enrollStudentInCourse() {
+        if (nextStudentToEnroll == data.students.length) {
+            openEnrollmentCourse(); // Everyone is in this one; start another so every call is a real enrollment
+        }
+        Student student = data.students[nextStudentToEnroll++];
+        return data.courseService.enrollStudentInCourse(enrollmentCourse.getCourseId(), student);
+    }
+
+    @Benchmark
+    public Grade getGradeForStudentAndAssignment() {
+        Grade grade = data.grades[ThreadLocalRandom.current().nextInt(data.grades.length)];
+        return data.gradeService.getGradeForStudentAndAssignment(grade.getStudentId(), grade.getAssignmentId());
+    }
+
+    @Benchmark
+    public double calculateFinalGradeForCourse() {
+        int c = ThreadLocalRandom.current().nextInt(data.courses.length);
+        Course course = data.courses[c];
+        ArrayList<String> roster = data.courseService.getStudentIdsInCourse(course.getCourseId());
+        String studentId = roster.isEmpty() ? data.students[0].getUserId()
+                : roster.get(ThreadLocalRandom.current().nextInt(roster.size()));
+        return data.gradeService.calculateFinalGradeForCourse(studentId, course.getCourseId(),
+                                                              data.assignmentsByCourse.get(c));
+    }
+
+    @Benchmark
+    public ArrayList<Assignment> getAssignmentsForStudent() {
+        Student student = data.students[ThreadLocalRandom.current().nextInt(data.students.length)];
+        return data.assignmentService.getAssignmentsForStudent(student);
+    }
+
+    private void openEnrollmentCourse() {
+        enrollmentCourseNumber++;
+        enrollmentCourse = data.courseService.createCourse("BENCH" + enrollmentCourseNumber, "Bench",
+                                                           "Enrollment benchmark", "T1", Integer.MAX_VALUE);
+        nextStudentToEnroll = 0;
+    }
+}
@@ -1,29 +1,102 @@
 package com.blackboard;
 
+import com.blackboard.events.EventBus;
 import com.blackboard.models.*;
+import com.blackboard.monitoring.OperationMetrics;
 import com.blackboard.services.*;
+import com.blackboard.utils.SystemClock;
 import com.blackboard.views.AdminMenu;
 import com.blackboard.views.StudentMenu;
 import com.blackboard.views.TeacherMenu;
+import java.util.ArrayList;
+import java.util.Map;
 import java.util.Scanner;
 
 public class Main {
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
         
+        // Publish operation latencies over JMX (see jconsole, com.blackboard:type=Operation)
+        OperationMetrics.registerMBeans();
+        
         // Initialize all services
-        AuthenticationService authService = new AuthenticationService();
+        IdAllocator idAllocator = new IdAllocator();
+        AuthenticationService authService = new AuthenticationService(idAllocator);
         CourseService courseService = new CourseService();
         AssignmentService assignmentService = new AssignmentService();
-        GradeService gradeService = new GradeService();
+        GradeService gradeService = new GradeService(idAllocator);
+        SessionManager sessionManager = new SessionManager(authService);
+        
+        // Services publish their changes so derived data can stay up to date
+        EventBus eventBus = new EventBus();
+        courseService.setEventBus(eventBus);
+        assignmentService.setEventBus(eventBus);
+        gradeService.setEventBus(eventBus);
+        
+        // Synchronous listeners run before the write returns, so only those that must agree with it
+        // are subscribed that way: the compiled grading policies (grade calculations on any thread
+        // would otherwise use a stale one; subscribed first so the cache below never does) and the
+        // transcript cache (a student must never be shown a transcript from before a grade change)
+        GradingPolicyEngine policyEngine = new GradingPolicyEngine(courseService);
+        gradeService.setPolicyEngine(policyEngine);
+        eventBus.subscribe(policyEngine);
+        
+        TranscriptCache transcriptCache = new TranscriptCache(assignmentService, gradeService);
+        eventBus.subscribe(transcriptCache);
+        
+        // Derived indexes catch up in batches on their own threads, off the write path;
+        // they may lag a write by a moment and rebuild themselves if their buffer overflows
+        ReminderOutbox reminderOutbox = new ReminderOutbox();
+        ReminderScheduler reminderScheduler = new ReminderScheduler(assignmentService, courseService,
+                                                                    reminderOutbox, new SystemClock());
+        eventBus.subscribeAsync("reminders", reminderScheduler);
+        
+        SearchService searchService = new SearchService(courseService, assignmentService);
+        eventBus.subscribeAsync("search", searchService);
+        
+        CourseRankIndex rankIndex = new CourseRankIndex(courseService, assignmentService, gradeService);
+        eventBus.subscribeAsync("ranks", rankIndex);
         DataPersistenceService persistenceService = new DataPersistenceService(
+            authService, courseService, assignmentService, gradeService, idAllocator);
+        SnapshotService snapshotService = new SnapshotService(
             authService, courseService, assignmentService, gradeService);
+        CascadeDeleteService cascadeDeleteService = new CascadeDeleteService(
+            authService, courseService, assignmentService, gradeService, persistenceService);
+        cascadeDeleteService.setEventBus(eventBus);
         
         // Load data from files
         System.out.println("Loading data from files...");
         persistenceService.loadAllData();
         System.out.println("Data loaded successfully!");
         
+        // Look for records that point at nothing, e.g. grades for assignments deleted by hand;
+        // start with -Dblackboard.integrity.repair=true to fix them right away
+        IntegrityChecker integrityChecker = new IntegrityChecker(
+            authService, courseService, assignmentService, gradeService, persistenceService);
+        integrityChecker.setEventBus(eventBus);
+        IntegrityReport integrityReport = integrityChecker.check();
+        if (!integrityReport.isClean()) {
+            System.out.println("Integrity check found " + integrityReport.getViolations().size() + " problem(s) in "
+                               + integrityReport.getElapsedMillis() + " ms:");
+            for (Map.Entry<String, ArrayList<IntegrityViolation>> entry
+                     : integrityReport.getViolationsByKind().entrySet()) {
+                System.out.println("  " + entry.getValue().size() + " x " + entry.getKey());
+            }
+            if (Boolean.getBoolean("blackboard.integrity.repair")) {
+                integrityChecker.repair(integrityReport);
+                System.out.println("Problems repaired.");
+            } else {
+                System.out.println("Use Check Data Integrity in the admin menu to repair them.");
+            }
+        }
+        
+        // Set up deadline reminders for the loaded assignments
+        reminderScheduler.scheduleAll();
+        reminderScheduler.start();
+        
+        // Build the search index once; events keep it up to date after this
+        searchService.rebuild();
+        
         // Create default admin if no users exist
         if (authService.getAllUsers().isEmpty()) {
             System.out.println("No users found. Creating default admin account...");
@@ -54,8 +127,9 @@ public class Main {
             
             switch (choice) {
                 case "1":
-                    login(scanner, authService, courseService, assignmentService, 
-                          gradeService, persistenceService);
+                    login(scanner, authService, sessionManager, courseService, assignmentService, 
+                          gradeService, persistenceService, snapshotService, transcriptCache,
+                          reminderOutbox, searchService, rankIndex, cascadeDeleteService, integrityChecker);
                     break;
                 case "2":
                     System.out.println("Saving data...");
@@ -72,8 +146,12 @@ public class Main {
     }
     
     private static void login(Scanner scanner, AuthenticationService authService,
-                              CourseService courseService, AssignmentService assignmentService,
-                              GradeService gradeService, DataPersistenceService persistenceService) {
+                              SessionManager sessionManager, CourseService courseService, AssignmentService assignmentService,
+                              GradeService gradeService, DataPersistenceService persistenceService,
+                              SnapshotService snapshotService, TranscriptCache transcriptCache,
+                              ReminderOutbox reminderOutbox, SearchService searchService,
+                              CourseRankIndex rankIndex, CascadeDeleteService cascadeDeleteService,
+                              IntegrityChecker integrityChecker) {
         System.out.println("\n=== LOGIN ===");
         System.out.print("Enter User ID: ");
         String userId = scanner.nextLine().trim();
@@ -81,38 +159,46 @@ public class Main {
         System.out.print("Enter Password: ");
         String password = scanner.nextLine().trim();
         
-        User user = authService.login(userId, password);
+        String token = sessionManager.login(userId, password);
         
-        if (user == null) {
+        if (token == null) {
             System.out.println("Invalid credentials. Please try again.");
             return;
         }
         
+        User user = sessionManager.validateToken(token);
+        
         System.out.println("\nLogin successful! Welcome, " + user.getName() + "!");
         
         // Route to appropriate menu based on role
         String role = user.getRole();
         
         if (role.equals("ADMIN")) {
-            AdminMenu adminMenu = new AdminMenu(scanner, authService, courseService);
+            AdminMenu adminMenu = new AdminMenu(scanner, authService, courseService, sessionManager,
+                                            snapshotService, searchService, cascadeDeleteService,
+                                            integrityChecker);
             adminMenu.displayMenu();
             // Save data after admin logs out
             persistenceService.saveAllData();
         } else if (role.equals("TEACHER")) {
             Teacher teacher = (Teacher) user;
             TeacherMenu teacherMenu = new TeacherMenu(scanner, teacher, authService, 
-                                                      courseService, assignmentService, gradeService);
+                                                      courseService, assignmentService, gradeService,
+                                                      rankIndex);
             teacherMenu.displayMenu();
             // Save data after teacher logs out
             persistenceService.saveAllData();
         } else if (role.equals("STUDENT")) {
             Student student = (Student) user;
             StudentMenu studentMenu = new StudentMenu(scanner, student, courseService,
-                                                     assignmentService, gradeService);
+                                                     assignmentService, gradeService, transcriptCache,
+                                                     reminderOutbox, searchService, rankIndex);
             studentMenu.displayMenu();
             // Save data after student logs out
             persistenceService.saveAllData();
         }
+        
+        sessionManager.logout(token);
     }
 }
 
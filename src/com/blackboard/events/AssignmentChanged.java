@@ -0,0 +1,47 @@
+package com.blackboard.events;
+
+import com.blackboard.models.Assignment;
+
+public class AssignmentChanged extends DomainEvent {
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private Assignment assignment;
+    private String changeType;
+    private String previousCourseId;
+    private double previousMaxPoints;
+
+    public AssignmentChanged(Assignment assignment, String changeType,
+                             String previousCourseId, double previousMaxPoints) {
+        this.assignment = assignment;
+        this.changeType = changeType;
+        this.previousCourseId = previousCourseId;
+        this.previousMaxPoints = previousMaxPoints;
+    }
+
+    public Assignment getAssignment() {
+        return assignment;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    // Course the assignment belonged to before the change (same as the current one unless it moved)
+    public String getPreviousCourseId() {
+        return previousCourseId;
+    }
+
+    public double getPreviousMaxPoints() {
+        return previousMaxPoints;
+    }
+
+    @Override
+    public String toString() {
+        return "AssignmentChanged{" +
+                "assignmentId='" + assignment.getAssignmentId() + '\'' +
+                ", changeType='" + changeType + '\'' +
+                '}';
+    }
+}
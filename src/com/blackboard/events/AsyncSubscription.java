@@ -0,0 +1,170 @@
+package com.blackboard.events;
+
+import java.util.ArrayList;
+
+// A bounded ring buffer drained in batches by its own worker thread.
+// Publishing never blocks: when the buffer is full the event is dropped and counted, the events
+// still waiting are discarded with it, and the listener is told to resync before it gets the
+// events published after that. Applying older events after a resync could undo the dropped one.
+public class AsyncSubscription implements Runnable {
+    private String name;
+    private BatchEventListener listener;
+    private DomainEvent[] buffer;
+    private int batchSize;
+    private long head;      // Next slot to read
+    private long tail;      // Next slot to write
+    private long droppedCount;
+    private long deliveredCount;
+    private long discardedCount;  // Events skipped by a resync that has finished
+    private long pendingDiscards; // Events skipped by a resync that hasn't run yet
+    private boolean resyncNeeded;
+    private boolean running;
+    private Thread worker;
+
+    public AsyncSubscription(String name, BatchEventListener listener, int capacity, int batchSize) {
+        this.name = name;
+        this.listener = listener;
+        this.buffer = new DomainEvent[capacity];
+        this.batchSize = batchSize;
+        this.running = true;
+        this.worker = new Thread(this, "event-subscriber-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // Adds an event to the buffer; returns false if it was full
+    public synchronized boolean offer(DomainEvent event) {
+        if (tail - head == buffer.length) {
+            droppedCount++;
+            pendingDiscards += tail - head;
+            while (head < tail) {
+                buffer[(int) (head % buffer.length)] = null;
+                head++;
+            }
+            resyncNeeded = true;
+            notifyAll();
+            return false;
+        }
+        buffer[(int) (tail % buffer.length)] = event;
+        tail++;
+        notifyAll();
+        return true;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            ArrayList<DomainEvent> batch = takeBatch();
+            if (batch == null) {
+                return; // Stopped and drained
+            }
+            if (batch.isEmpty()) {
+                resync();
+                continue;
+            }
+            try {
+                listener.onEvents(batch);
+            } catch (RuntimeException e) {
+                System.err.println("Event subscriber " + name + " failed: " + e.getMessage());
+            }
+            synchronized (this) {
+                deliveredCount += batch.size();
+                notifyAll();
+            }
+        }
+    }
+
+    private void resync() {
+        long discarded;
+        synchronized (this) {
+            discarded = pendingDiscards;
+            pendingDiscards = 0;
+        }
+        try {
+            listener.onEventsDropped();
+        } catch (RuntimeException e) {
+            System.err.println("Event subscriber " + name + " failed to resync: " + e.getMessage());
+        }
+        synchronized (this) {
+            discardedCount += discarded;
+            notifyAll();
+        }
+    }
+
+    // Waits for events and removes up to batchSize of them from the buffer;
+    // an empty batch means the listener has to resync first
+    private synchronized ArrayList<DomainEvent> takeBatch() {
+        while (head == tail && !resyncNeeded && running) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        if (resyncNeeded) {
+            resyncNeeded = false;
+            return new ArrayList<>();
+        }
+        if (head == tail) {
+            return null;
+        }
+
+        int count = (int) Math.min(batchSize, tail - head);
+        ArrayList<DomainEvent> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = (int) (head % buffer.length);
+            batch.add(buffer[index]);
+            buffer[index] = null;
+            head++;
+        }
+        notifyAll();
+        return batch;
+    }
+
+    // Waits until every event published so far has been delivered (or the timeout passes)
+    public synchronized boolean awaitDrained(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        // Dropped events never enter the buffer, so tail counts exactly what will be delivered or
+        // discarded, and a discard only counts once the resync that replaces it has finished
+        long target = tail;
+        while (deliveredCount + discardedCount < target) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Stops the worker after the remaining events are delivered
+    public synchronized void stop() {
+        running = false;
+        notifyAll();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getPendingCount() {
+        return (int) (tail - head);
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public synchronized long getDiscardedCount() {
+        return discardedCount;
+    }
+}
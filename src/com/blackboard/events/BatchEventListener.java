@@ -0,0 +1,12 @@
+package com.blackboard.events;
+
+import java.util.ArrayList;
+
+// Called on a background thread with events in the order they were published
+public interface BatchEventListener {
+    void onEvents(ArrayList<DomainEvent> batch);
+
+    // Called instead of the events lost when the buffer overflowed; the listener should
+    // rebuild whatever it derives from the services' current state
+    void onEventsDropped();
+}
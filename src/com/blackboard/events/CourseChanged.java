@@ -0,0 +1,32 @@
+package com.blackboard.events;
+
+import com.blackboard.models.Course;
+
+public class CourseChanged extends DomainEvent {
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+
+    private Course course;
+    private String changeType;
+
+    public CourseChanged(Course course, String changeType) {
+        this.course = course;
+        this.changeType = changeType;
+    }
+
+    public Course getCourse() {
+        return course;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    @Override
+    public String toString() {
+        return "CourseChanged{" +
+                "courseId='" + course.getCourseId() + '\'' +
+                ", changeType='" + changeType + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,20 @@
+package com.blackboard.events;
+
+public class CourseDeleted extends DomainEvent {
+    private String courseId;
+
+    public CourseDeleted(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    @Override
+    public String toString() {
+        return "CourseDeleted{" +
+                "courseId='" + courseId + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,13 @@
+package com.blackboard.events;
+
+public abstract class DomainEvent {
+    private long timestamp;
+
+    public DomainEvent() {
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
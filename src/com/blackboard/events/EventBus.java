@@ -0,0 +1,74 @@
+package com.blackboard.events;
+
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class EventBus {
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+
+    // Copy-on-write lists: subscribing is rare, publishing is on every write
+    private CopyOnWriteArrayList<EventListener> listeners;
+    private CopyOnWriteArrayList<AsyncSubscription> asyncSubscriptions;
+
+    public EventBus() {
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.asyncSubscriptions = new CopyOnWriteArrayList<>();
+    }
+
+    // Registers a listener that runs on the publishing thread, before the write returns
+    public void subscribe(EventListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    public void unsubscribe(EventListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Registers a listener that receives batches on its own thread
+    public AsyncSubscription subscribeAsync(String name, BatchEventListener listener) {
+        return subscribeAsync(name, listener, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public AsyncSubscription subscribeAsync(String name, BatchEventListener listener,
+                                            int capacity, int batchSize) {
+        AsyncSubscription subscription = new AsyncSubscription(name, listener, capacity, batchSize);
+        asyncSubscriptions.add(subscription);
+        return subscription;
+    }
+
+    public void unsubscribeAsync(AsyncSubscription subscription) {
+        if (asyncSubscriptions.remove(subscription)) {
+            subscription.stop();
+        }
+    }
+
+    // Delivers an event to every listener; a failing listener never fails the write
+    public void publish(DomainEvent event) {
+        for (EventListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                System.err.println("Event listener failed on " + event + ": " + e.getMessage());
+            }
+        }
+        for (AsyncSubscription subscription : asyncSubscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    // Returns the async subscriptions (used for monitoring)
+    public ArrayList<AsyncSubscription> getAsyncSubscriptions() {
+        return new ArrayList<>(asyncSubscriptions);
+    }
+
+    // Stops all async workers once their buffers are drained
+    public void shutdown() {
+        for (AsyncSubscription subscription : asyncSubscriptions) {
+            subscription.stop();
+        }
+        asyncSubscriptions.clear();
+    }
+}
@@ -0,0 +1,6 @@
+package com.blackboard.events;
+
+// Called on the publishing thread, so it must be quick
+public interface EventListener {
+    void onEvent(DomainEvent event);
+}
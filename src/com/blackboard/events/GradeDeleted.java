@@ -0,0 +1,33 @@
+package com.blackboard.events;
+
+public class GradeDeleted extends DomainEvent {
+    private String gradeId;
+    private String studentId;
+    private String assignmentId;
+
+    public GradeDeleted(String gradeId, String studentId, String assignmentId) {
+        this.gradeId = gradeId;
+        this.studentId = studentId;
+        this.assignmentId = assignmentId;
+    }
+
+    public String getGradeId() {
+        return gradeId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getAssignmentId() {
+        return assignmentId;
+    }
+
+    @Override
+    public String toString() {
+        return "GradeDeleted{" +
+                "studentId='" + studentId + '\'' +
+                ", assignmentId='" + assignmentId + '\'' +
+                '}';
+    }
+}
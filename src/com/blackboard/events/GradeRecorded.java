@@ -0,0 +1,54 @@
+package com.blackboard.events;
+
+public class GradeRecorded extends DomainEvent {
+    private String gradeId;
+    private String studentId;
+    private String assignmentId;
+    private double points;
+    private double previousPoints;
+    private boolean newGrade;
+
+    public GradeRecorded(String gradeId, String studentId, String assignmentId,
+                         double points, double previousPoints, boolean newGrade) {
+        this.gradeId = gradeId;
+        this.studentId = studentId;
+        this.assignmentId = assignmentId;
+        this.points = points;
+        this.previousPoints = previousPoints;
+        this.newGrade = newGrade;
+    }
+
+    public String getGradeId() {
+        return gradeId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getAssignmentId() {
+        return assignmentId;
+    }
+
+    public double getPoints() {
+        return points;
+    }
+
+    // Points before the change (0 for a new grade)
+    public double getPreviousPoints() {
+        return previousPoints;
+    }
+
+    public boolean isNewGrade() {
+        return newGrade;
+    }
+
+    @Override
+    public String toString() {
+        return "GradeRecorded{" +
+                "studentId='" + studentId + '\'' +
+                ", assignmentId='" + assignmentId + '\'' +
+                ", points=" + points +
+                '}';
+    }
+}
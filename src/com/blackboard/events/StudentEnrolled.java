@@ -0,0 +1,27 @@
+package com.blackboard.events;
+
+public class StudentEnrolled extends DomainEvent {
+    private String studentId;
+    private String courseId;
+
+    public StudentEnrolled(String studentId, String courseId) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    @Override
+    public String toString() {
+        return "StudentEnrolled{" +
+                "studentId='" + studentId + '\'' +
+                ", courseId='" + courseId + '\'' +
+                '}';
+    }
+}
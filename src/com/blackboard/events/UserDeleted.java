@@ -0,0 +1,38 @@
+package com.blackboard.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class UserDeleted extends DomainEvent {
+    private String userId;
+    private String role;
+    private List<String> courseIds; // Courses the student was enrolled in, or the teacher taught
+
+    public UserDeleted(String userId, String role, List<String> courseIds) {
+        this.userId = userId;
+        this.role = role;
+        this.courseIds = Collections.unmodifiableList(new ArrayList<>(courseIds));
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public List<String> getCourseIds() {
+        return courseIds;
+    }
+
+    @Override
+    public String toString() {
+        return "UserDeleted{" +
+                "userId='" + userId + '\'' +
+                ", role='" + role + '\'' +
+                ", courseIds=" + courseIds +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package com.blackboard.models;
 
+import com.blackboard.utils.DueDateParser;
+
 public class Assignment {
     private String assignmentId;
     private String courseId;
@@ -7,6 +9,8 @@ public class Assignment {
     private String description;
     private String dueDate;
     private double maxPoints;
+    private String category; // Grading category in the course's policy (null if none)
+    private long dueTime; // dueDate parsed to epoch milliseconds (-1 if it couldn't be parsed)
     
     public Assignment(String assignmentId, String courseId, String title, 
                      String description, String dueDate, double maxPoints) {
@@ -16,6 +20,7 @@ public class Assignment {
         this.description = description;
         this.dueDate = dueDate;
         this.maxPoints = maxPoints;
+        this.dueTime = DueDateParser.UNKNOWN; // Set when the assignment is stored
     }
     
     
@@ -55,8 +60,26 @@ public class Assignment {
         return dueDate;
     }
     
+    // Clears the parsed due time, which no longer matches; storing the assignment parses it again
     public void setDueDate(String dueDate) {
         this.dueDate = dueDate;
+        this.dueTime = DueDateParser.UNKNOWN;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    
+    public long getDueTime() {
+        return dueTime;
+    }
+    
+    public void setDueTime(long dueTime) {
+        this.dueTime = dueTime;
     }
     
     public double getMaxPoints() {
@@ -74,6 +97,7 @@ public class Assignment {
                 ", courseId='" + courseId + '\'' +
                 ", title='" + title + '\'' +
                 ", maxPoints=" + maxPoints +
+                ", category='" + category + '\'' +
                 ", dueDate='" + dueDate + '\'' +
                 '}';
     }
@@ -1,14 +1,25 @@
 package com.blackboard.models;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Course {
+    // Every course ID gets a small number the first time it is seen, so students and teachers
+    // can keep their courses sorted by number (see CourseArrays) instead of comparing strings
+    private static final ConcurrentHashMap<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ORDINAL = new AtomicInteger();
+    
     private String courseId;
+    private int ordinal;
     private String courseName;
     private String description;
     private String teacherId;
     private int capacity;
+    private GradingPolicy gradingPolicy; // null: final grade is total points earned / total points possible
     
     public Course(String courseId, String courseName, String description, String teacherId, int capacity) {
         this.courseId = courseId;
+        this.ordinal = ordinalOf(courseId);
         this.courseName = courseName;
         this.description = description;
         this.teacherId = teacherId;
@@ -22,6 +33,12 @@ public class Course {
     
     public void setCourseId(String courseId) {
         this.courseId = courseId;
+        this.ordinal = ordinalOf(courseId);
+    }
+    
+    // Same for every Course object with this ID (for the life of the program, not saved)
+    public int getOrdinal() {
+        return ordinal;
     }
     
     public String getCourseName() {
@@ -56,6 +73,38 @@ public class Course {
         this.capacity = capacity;
     }
     
+    public GradingPolicy getGradingPolicy() {
+        return gradingPolicy;
+    }
+    
+    public void setGradingPolicy(GradingPolicy gradingPolicy) {
+        this.gradingPolicy = gradingPolicy;
+    }
+    
+    private static int ordinalOf(String courseId) {
+        if (courseId == null) {
+            return -1;
+        }
+        return ORDINALS.computeIfAbsent(courseId, id -> NEXT_ORDINAL.getAndIncrement());
+    }
+    
+    // Two courses are the same course if they have the same ID
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Course)) {
+            return false;
+        }
+        return ordinal == ((Course) o).ordinal;
+    }
+    
+    @Override
+    public int hashCode() {
+        return ordinal;
+    }
+    
     @Override
     public String toString() {
         return "Course{" +
@@ -0,0 +1,98 @@
+package com.blackboard.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Helpers for the course links of Student and Teacher. The links are kept as a Course[] sorted by
+// ordinal and exactly as long as needed: a few references per user instead of an ArrayList with
+// spare slots, and membership is a binary search. Arrays are never changed in place; adding or
+// removing makes a new one, so a list handed out earlier is never affected.
+final class CourseArrays {
+    static final Course[] EMPTY = new Course[0];
+
+    private CourseArrays() {
+    }
+
+    // Returns the position of the course in the array, or a negative number if it isn't there
+    static int indexOf(Course[] courses, Course course) {
+        int ordinal = course.getOrdinal();
+        int low = 0;
+        int high = courses.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midOrdinal = courses[mid].getOrdinal();
+            if (midOrdinal < ordinal) {
+                low = mid + 1;
+            } else if (midOrdinal > ordinal) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // Returns a new array with the course added, or the same array if it is already there
+    static Course[] add(Course[] courses, Course course) {
+        int index = indexOf(courses, course);
+        if (index >= 0) {
+            return courses;
+        }
+        int insertAt = -(index + 1);
+        Course[] added = new Course[courses.length + 1];
+        System.arraycopy(courses, 0, added, 0, insertAt);
+        added[insertAt] = course;
+        System.arraycopy(courses, insertAt, added, insertAt + 1, courses.length - insertAt);
+        return added;
+    }
+
+    // Returns a new array without the course, or the same array if it isn't there
+    static Course[] remove(Course[] courses, Course course) {
+        int index = indexOf(courses, course);
+        if (index < 0) {
+            return courses;
+        }
+        if (courses.length == 1) {
+            return EMPTY;
+        }
+        Course[] removed = new Course[courses.length - 1];
+        System.arraycopy(courses, 0, removed, 0, index);
+        System.arraycopy(courses, index + 1, removed, index, courses.length - index - 1);
+        return removed;
+    }
+
+    // Builds a sorted array from any list of courses (duplicates are dropped)
+    static Course[] fromList(List<Course> list) {
+        Course[] courses = EMPTY;
+        for (Course course : list) {
+            courses = add(courses, course);
+        }
+        return courses;
+    }
+
+    // Read-only list over the array, in ordinal order
+    static List<Course> asList(Course[] courses) {
+        return new AbstractList<Course>() {
+            @Override
+            public Course get(int index) {
+                return courses[index];
+            }
+
+            @Override
+            public int size() {
+                return courses.length;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Course && CourseArrays.indexOf(courses, (Course) o) >= 0;
+            }
+
+            @Override
+            public Object[] toArray() {
+                return Arrays.copyOf(courses, courses.length, Object[].class);
+            }
+        };
+    }
+}
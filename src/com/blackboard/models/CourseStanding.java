@@ -0,0 +1,57 @@
+package com.blackboard.models;
+
+// Where a student stands in a course: rank 1 is the highest score, tied students share a rank.
+// percentile is the share of the class scoring below the student (ties count half), 0-100.
+public class CourseStanding {
+    private String studentId;
+    private String courseId;
+    private double score;
+    private int rank;
+    private int classSize;
+    private double percentile;
+
+    public CourseStanding(String studentId, String courseId, double score, int rank, int classSize,
+                          double percentile) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.score = score;
+        this.rank = rank;
+        this.classSize = classSize;
+        this.percentile = percentile;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getClassSize() {
+        return classSize;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    @Override
+    public String toString() {
+        return "CourseStanding{" +
+                "studentId='" + studentId + '\'' +
+                ", courseId='" + courseId + '\'' +
+                ", score=" + score +
+                ", rank=" + rank + "/" + classSize +
+                ", percentile=" + percentile +
+                '}';
+    }
+}
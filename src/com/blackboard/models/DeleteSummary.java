@@ -0,0 +1,73 @@
+package com.blackboard.models;
+
+// What a cascading delete removed along with the record that was asked for
+// (also what an integrity repair removed, with no deleted ID)
+public class DeleteSummary {
+    private String deletedId;
+    private int assignmentCount;
+    private int gradeCount;
+    private int enrollmentCount;
+    private int unassignedCourseCount; // Courses left without a teacher
+    private boolean saved;
+
+    public DeleteSummary(String deletedId) {
+        this.deletedId = deletedId;
+    }
+
+    public String getDeletedId() {
+        return deletedId;
+    }
+
+    public int getAssignmentCount() {
+        return assignmentCount;
+    }
+
+    public void setAssignmentCount(int assignmentCount) {
+        this.assignmentCount = assignmentCount;
+    }
+
+    public int getGradeCount() {
+        return gradeCount;
+    }
+
+    public void setGradeCount(int gradeCount) {
+        this.gradeCount = gradeCount;
+    }
+
+    public int getEnrollmentCount() {
+        return enrollmentCount;
+    }
+
+    public void setEnrollmentCount(int enrollmentCount) {
+        this.enrollmentCount = enrollmentCount;
+    }
+
+    public int getUnassignedCourseCount() {
+        return unassignedCourseCount;
+    }
+
+    public void setUnassignedCourseCount(int unassignedCourseCount) {
+        this.unassignedCourseCount = unassignedCourseCount;
+    }
+
+    // True if the result was written to the data files
+    public boolean isSaved() {
+        return saved;
+    }
+
+    public void setSaved(boolean saved) {
+        this.saved = saved;
+    }
+
+    @Override
+    public String toString() {
+        return "DeleteSummary{" +
+                "deletedId='" + deletedId + '\'' +
+                ", assignmentCount=" + assignmentCount +
+                ", gradeCount=" + gradeCount +
+                ", enrollmentCount=" + enrollmentCount +
+                ", unassignedCourseCount=" + unassignedCourseCount +
+                ", saved=" + saved +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+package com.blackboard.models;
+
+import java.util.ArrayList;
+
+public class GradeBatchResult {
+    private int createdCount;
+    private int updatedCount;
+    private int unchangedCount;
+    private ArrayList<String> errors;
+
+    public GradeBatchResult() {
+        this.errors = new ArrayList<>();
+    }
+
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    public void setCreatedCount(int createdCount) {
+        this.createdCount = createdCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public void setUpdatedCount(int updatedCount) {
+        this.updatedCount = updatedCount;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public void setUnchangedCount(int unchangedCount) {
+        this.unchangedCount = unchangedCount;
+    }
+
+    public ArrayList<String> getErrors() {
+        return errors;
+    }
+
+    public void addError(String error) {
+        errors.add(error);
+    }
+
+    // A batch is applied only if every entry was valid
+    public boolean isApplied() {
+        return errors.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "GradeBatchResult{" +
+                "created=" + createdCount +
+                ", updated=" + updatedCount +
+                ", unchanged=" + unchangedCount +
+                ", errors=" + errors.size() +
+                '}';
+    }
+}
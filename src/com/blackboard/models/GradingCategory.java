@@ -0,0 +1,48 @@
+package com.blackboard.models;
+
+// One weighted part of a course's final grade, e.g. "homework" worth 30 with the lowest score dropped
+public class GradingCategory {
+    public static final double DEFAULT_CAP = 100.0;
+
+    private String name;
+    private double weight;
+    private int dropLowest; // Number of lowest scores (by percentage) that don't count
+    private double cap;     // Highest percentage the category can count for (above 100 allows extra credit)
+
+    public GradingCategory(String name, double weight, int dropLowest) {
+        this(name, weight, dropLowest, DEFAULT_CAP);
+    }
+
+    public GradingCategory(String name, double weight, int dropLowest, double cap) {
+        this.name = name;
+        this.weight = weight;
+        this.dropLowest = dropLowest;
+        this.cap = cap;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public int getDropLowest() {
+        return dropLowest;
+    }
+
+    public double getCap() {
+        return cap;
+    }
+
+    @Override
+    public String toString() {
+        return "GradingCategory{" +
+                "name='" + name + '\'' +
+                ", weight=" + weight +
+                ", dropLowest=" + dropLowest +
+                ", cap=" + cap +
+                '}';
+    }
+}
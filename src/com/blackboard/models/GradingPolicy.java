@@ -0,0 +1,131 @@
+package com.blackboard.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// How a course turns assignment scores into a final grade: weighted categories.
+// Each category's percentage is its points earned over points possible (after dropping its
+// lowest scores), kept between 0 and the category's cap (100% unless set); the final grade is the
+// weighted average of the categories that have assignments.
+// Weights are relative, so 30/70 and 3/7 mean the same thing.
+// Saved as "homework:30:1;exams:70:0:110" (name:weight:dropLowest[:cap] for each category).
+public class GradingPolicy {
+    private List<GradingCategory> categories;
+
+    public GradingPolicy(List<GradingCategory> categories) {
+        this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+    }
+
+    public List<GradingCategory> getCategories() {
+        return categories;
+    }
+
+    // Returns the category with this name (case doesn't matter), or null
+    public GradingCategory findCategory(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (GradingCategory category : categories) {
+            if (category.getName().equalsIgnoreCase(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    // The text saved in courses.txt
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        for (GradingCategory category : categories) {
+            if (text.length() > 0) {
+                text.append(';');
+            }
+            text.append(category.getName()).append(':')
+                .append(formatWeight(category.getWeight())).append(':')
+                .append(category.getDropLowest());
+            if (category.getCap() != GradingCategory.DEFAULT_CAP) {
+                text.append(':').append(formatWeight(category.getCap()));
+            }
+        }
+        return text.toString();
+    }
+
+    // Reads the text written by format(); returns null if it isn't a valid policy
+    public static GradingPolicy parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+        ArrayList<GradingCategory> categories = new ArrayList<>();
+        for (String part : text.split(";")) {
+            String[] fields = part.trim().split(":");
+            if (fields.length < 2 || fields.length > 4) {
+                return null;
+            }
+            try {
+                double weight = Double.parseDouble(fields[1].trim());
+                int dropLowest = fields.length >= 3 ? Integer.parseInt(fields[2].trim()) : 0;
+                double cap = fields.length == 4 ? Double.parseDouble(fields[3].trim()) : GradingCategory.DEFAULT_CAP;
+                GradingCategory category = createCategory(fields[0], weight, dropLowest, cap);
+                if (category == null || findIn(categories, category.getName()) != null) {
+                    return null; // Invalid or repeated category
+                }
+                categories.add(category);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return new GradingPolicy(categories);
+    }
+
+    // Returns a category with a normalized name, or null if the name, weight or drop count isn't allowed
+    public static GradingCategory createCategory(String name, double weight, int dropLowest) {
+        return createCategory(name, weight, dropLowest, GradingCategory.DEFAULT_CAP);
+    }
+    
+    // Same, with a cap (percentage, above 0)
+    public static GradingCategory createCategory(String name, double weight, int dropLowest, double cap) {
+        String normalized = normalizeName(name);
+        if (normalized == null || !(weight > 0) || Double.isInfinite(weight) || dropLowest < 0
+                || !(cap > 0) || Double.isInfinite(cap)) {
+            return null;
+        }
+        return new GradingCategory(normalized, weight, dropLowest, cap);
+    }
+
+    // Category names are lowercase letters, digits, '-' and '_' (they end up in comma-separated files);
+    // returns null for anything else
+    public static String normalizeName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                return null;
+            }
+        }
+        return normalized;
+    }
+
+    private static GradingCategory findIn(List<GradingCategory> categories, String name) {
+        for (GradingCategory category : categories) {
+            if (category.getName().equals(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    // "30" rather than "30.0" for whole numbers
+    public static String formatWeight(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    @Override
+    public String toString() {
+        return "GradingPolicy{" + format() + '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.blackboard.models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// What an integrity check found: every violation, grouped by kind
+public class IntegrityReport {
+    private ArrayList<IntegrityViolation> violations;
+    private LinkedHashMap<String, ArrayList<IntegrityViolation>> violationsByKind;
+    private long rowsChecked;
+    private long elapsedMillis;
+
+    public IntegrityReport(List<IntegrityViolation> violations, long rowsChecked, long elapsedMillis) {
+        this.violations = new ArrayList<>(violations);
+        this.violationsByKind = new LinkedHashMap<>();
+        for (IntegrityViolation violation : violations) {
+            violationsByKind.computeIfAbsent(violation.getKind(), kind -> new ArrayList<>()).add(violation);
+        }
+        this.rowsChecked = rowsChecked;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public ArrayList<IntegrityViolation> getViolations() {
+        return violations;
+    }
+
+    // Violations of one kind (see the IntegrityViolation constants); empty if there are none
+    public ArrayList<IntegrityViolation> getViolations(String kind) {
+        ArrayList<IntegrityViolation> ofKind = violationsByKind.get(kind);
+        return ofKind != null ? ofKind : new ArrayList<>();
+    }
+
+    public Map<String, ArrayList<IntegrityViolation>> getViolationsByKind() {
+        return violationsByKind;
+    }
+
+    public boolean isClean() {
+        return violations.isEmpty();
+    }
+
+    public long getRowsChecked() {
+        return rowsChecked;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "IntegrityReport{" +
+                "violations=" + violations.size() +
+                ", rowsChecked=" + rowsChecked +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package com.blackboard.models;
+
+// One record that refers to something that doesn't exist, e.g. a grade for a deleted assignment
+public class IntegrityViolation {
+    public static final String GRADE_WITHOUT_ASSIGNMENT = "grade for a missing assignment";
+    public static final String GRADE_WITHOUT_STUDENT = "grade for a missing student";
+    public static final String ASSIGNMENT_WITHOUT_COURSE = "assignment in a missing course";
+    public static final String COURSE_WITHOUT_TEACHER = "course with a missing teacher";
+    public static final String ENROLLMENT_WITHOUT_STUDENT = "enrollment of a missing student";
+    public static final String ENROLLMENT_WITHOUT_COURSE = "enrollment in a missing course";
+
+    private String kind;
+    private String recordId;  // The record that is wrong (grade, assignment or course ID, or "studentId,courseId")
+    private String missingId; // What it refers to
+
+    public IntegrityViolation(String kind, String recordId, String missingId) {
+        this.kind = kind;
+        this.recordId = recordId;
+        this.missingId = missingId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getRecordId() {
+        return recordId;
+    }
+
+    public String getMissingId() {
+        return missingId;
+    }
+
+    @Override
+    public String toString() {
+        return kind + ": " + recordId + " -> " + missingId;
+    }
+}
@@ -0,0 +1,34 @@
+package com.blackboard.models;
+
+import java.util.ArrayList;
+
+// One page of a listing. nextCursor is passed back to get the following page; it is null on the last page.
+public class Page<T> {
+    private ArrayList<T> items;
+    private String nextCursor;
+
+    public Page(ArrayList<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public ArrayList<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items.size() +
+                ", hasMore=" + hasMore() +
+                '}';
+    }
+}
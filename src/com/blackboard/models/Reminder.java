@@ -0,0 +1,54 @@
+package com.blackboard.models;
+
+public class Reminder {
+    private String studentId;
+    private String assignmentId;
+    private String courseId;
+    private String title;
+    private String dueDate;
+    private long leadTimeMillis;
+
+    public Reminder(String studentId, String assignmentId, String courseId, String title,
+                    String dueDate, long leadTimeMillis) {
+        this.studentId = studentId;
+        this.assignmentId = assignmentId;
+        this.courseId = courseId;
+        this.title = title;
+        this.dueDate = dueDate;
+        this.leadTimeMillis = leadTimeMillis;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getAssignmentId() {
+        return assignmentId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDueDate() {
+        return dueDate;
+    }
+
+    // How long before the due date this reminder was sent
+    public long getLeadTimeMillis() {
+        return leadTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Reminder{" +
+                "studentId='" + studentId + '\'' +
+                ", assignmentId='" + assignmentId + '\'' +
+                ", dueDate='" + dueDate + '\'' +
+                '}';
+    }
+}
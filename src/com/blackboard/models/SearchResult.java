@@ -0,0 +1,43 @@
+package com.blackboard.models;
+
+public class SearchResult {
+    public static final String COURSE = "COURSE";
+    public static final String ASSIGNMENT = "ASSIGNMENT";
+
+    private String type;
+    private String id;
+    private String title;
+    private double score;
+
+    public SearchResult(String type, String id, String title, double score) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.score = score;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "type='" + type + '\'' +
+                ", id='" + id + '\'' +
+                ", score=" + score +
+                '}';
+    }
+}
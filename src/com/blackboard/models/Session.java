@@ -0,0 +1,55 @@
+package com.blackboard.models;
+
+public class Session {
+    private String token;
+    private User user;
+    private long createdAt;
+    private long expiresAt;
+
+    public Session(String token, User user, long createdAt, long expiresAt) {
+        this.token = token;
+        this.user = user;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Session{" +
+                "userId='" + user.getUserId() + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
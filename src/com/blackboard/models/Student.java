@@ -1,16 +1,17 @@
 package com.blackboard.models;
-import java.util.ArrayList;
+
+import java.util.List;
 
 
 public class Student extends User {
     private String major;                              
-    private ArrayList<Course> enrolledCourses;       
+    private volatile Course[] enrolledCourses; // Sorted by ordinal, replaced (never changed) on enroll
     
     public Student(String userId, String password, String name, String major) {
         super(userId, password, name, "STUDENT");  
         
         this.major = major;
-        this.enrolledCourses = new ArrayList<>();  
+        this.enrolledCourses = CourseArrays.EMPTY;  
     }
 
     public String getMajor() {
@@ -21,16 +22,26 @@ public class Student extends User {
         this.major = major;
     }
     
-    public ArrayList<Course> getEnrolledCourses() {
-        return enrolledCourses;
+    // Read-only view of the courses the student is enrolled in right now
+    public List<Course> getEnrolledCourses() {
+        return CourseArrays.asList(enrolledCourses);
     }
     
-    public void setEnrolledCourses(ArrayList<Course> enrolledCourses) {
-        this.enrolledCourses = enrolledCourses;
+    public void setEnrolledCourses(List<Course> enrolledCourses) {
+        this.enrolledCourses = CourseArrays.fromList(enrolledCourses);
+    }
+
+    public synchronized void enrollInCourse(Course course) {
+        enrolledCourses = CourseArrays.add(enrolledCourses, course);
+    }
+
+    public synchronized void dropCourse(Course course) {
+        enrolledCourses = CourseArrays.remove(enrolledCourses, course);
     }
 
-    public void enrollInCourse(Course course) {
-        enrolledCourses.add(course);
+    // Binary search over the student's courses
+    public boolean isEnrolledIn(Course course) {
+        return course != null && CourseArrays.indexOf(enrolledCourses, course) >= 0;
     }
 
     @Override
@@ -39,7 +50,7 @@ public class Student extends User {
                 "userId='" + getUserId() + '\'' +
                 ", name='" + getName() + '\'' +
                 ", major='" + major + '\'' +
-                ", enrolledCourses=" + enrolledCourses.size() + " courses" +
+                ", enrolledCourses=" + enrolledCourses.length + " courses" +
                 '}';
     }
 }
@@ -1,18 +1,18 @@
 package com.blackboard.models;
 
-import java.util.ArrayList;
+import java.util.List;
 
 public class Teacher extends User {
 
     private String department;                         
-    private ArrayList<Course> assignedCourses;       
+    private volatile Course[] assignedCourses; // Sorted by ordinal, replaced (never changed) on assign
 
     public Teacher(String userId, String password, String name, String department) {
  
         super(userId, password, name, "TEACHER");  
         
         this.department = department;
-        this.assignedCourses = new ArrayList<>();  
+        this.assignedCourses = CourseArrays.EMPTY;  
     }
     
     
@@ -24,19 +24,27 @@ public class Teacher extends User {
         this.department = department;
     }
     
-    public ArrayList<Course> getAssignedCourses() {
-        return assignedCourses;
+    // Read-only view of the courses assigned to the teacher right now
+    public List<Course> getAssignedCourses() {
+        return CourseArrays.asList(assignedCourses);
     }
     
-    public void setAssignedCourses(ArrayList<Course> assignedCourses) {
-        this.assignedCourses = assignedCourses;
+    public void setAssignedCourses(List<Course> assignedCourses) {
+        this.assignedCourses = CourseArrays.fromList(assignedCourses);
     }
     
     
-    public void assignCourse(Course course) {
-        if (!assignedCourses.contains(course)) {
-            assignedCourses.add(course);
-        }
+    public synchronized void assignCourse(Course course) {
+        assignedCourses = CourseArrays.add(assignedCourses, course);
+    }
+    
+    public synchronized void unassignCourse(Course course) {
+        assignedCourses = CourseArrays.remove(assignedCourses, course);
+    }
+    
+    // Binary search over the teacher's courses
+    public boolean isAssignedTo(Course course) {
+        return course != null && CourseArrays.indexOf(assignedCourses, course) >= 0;
     }
     
     
@@ -46,7 +54,7 @@ public class Teacher extends User {
                 "userId='" + getUserId() + '\'' +
                 ", name='" + getName() + '\'' +
                 ", department='" + department + '\'' +
-                ", assignedCourses=" + assignedCourses.size() + " courses" +
+                ", assignedCourses=" + assignedCourses.length + " courses" +
                 '}';
     }
-}
\ No newline at end of file
+}
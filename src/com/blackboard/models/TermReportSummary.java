@@ -0,0 +1,56 @@
+package com.blackboard.models;
+
+// What a term report run produced and how long it took
+public class TermReportSummary {
+    private String reportFile;
+    private int studentCount;
+    private int courseGradeCount;
+    private int gradeCount;
+    private long elapsedMillis;
+
+    public TermReportSummary(String reportFile, int studentCount, int courseGradeCount, int gradeCount,
+                             long elapsedMillis) {
+        this.reportFile = reportFile;
+        this.studentCount = studentCount;
+        this.courseGradeCount = courseGradeCount;
+        this.gradeCount = gradeCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    // Number of (student, course) final grades in the report
+    public int getCourseGradeCount() {
+        return courseGradeCount;
+    }
+
+    // Number of assignment grades read
+    public int getGradeCount() {
+        return gradeCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getStudentsPerSecond() {
+        return studentCount * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "TermReportSummary{" +
+                "reportFile='" + reportFile + '\'' +
+                ", students=" + studentCount +
+                ", courseGrades=" + courseGradeCount +
+                ", grades=" + gradeCount +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,136 @@
+package com.blackboard.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class Transcript {
+    private String studentId;
+    private LinkedHashMap<String, ArrayList<TranscriptRow>> rowsByCourse;
+    private HashMap<String, Double> coursePercentages;
+    private HashSet<String> enrolledCourseIds;
+
+    public Transcript(String studentId) {
+        this.studentId = studentId;
+        this.rowsByCourse = new LinkedHashMap<>();
+        this.coursePercentages = new HashMap<>();
+        this.enrolledCourseIds = new HashSet<>();
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    // Course IDs this transcript has rows for
+    public ArrayList<String> getCourseIds() {
+        return new ArrayList<>(rowsByCourse.keySet());
+    }
+
+    // Adds a course even if it has no rows yet
+    public void addCourse(String courseId) {
+        if (!rowsByCourse.containsKey(courseId)) {
+            rowsByCourse.put(courseId, new ArrayList<TranscriptRow>());
+        }
+    }
+
+    // Adds a course the student is enrolled in (its rows are every assignment, graded or not)
+    public void addEnrolledCourse(String courseId) {
+        addCourse(courseId);
+        enrolledCourseIds.add(courseId);
+    }
+
+    public boolean isEnrolledIn(String courseId) {
+        return enrolledCourseIds.contains(courseId);
+    }
+
+    public void addRow(TranscriptRow row) {
+        addCourse(row.getCourseId());
+        rowsByCourse.get(row.getCourseId()).add(row);
+    }
+
+    // All rows of one course (graded or not)
+    public ArrayList<TranscriptRow> getRowsForCourse(String courseId) {
+        ArrayList<TranscriptRow> rows = rowsByCourse.get(courseId);
+        if (rows == null) {
+            return new ArrayList<>();
+        }
+        return rows;
+    }
+
+    // Every graded row across all courses
+    public ArrayList<TranscriptRow> getGradedRows() {
+        ArrayList<TranscriptRow> gradedRows = new ArrayList<>();
+        for (ArrayList<TranscriptRow> rows : rowsByCourse.values()) {
+            for (TranscriptRow row : rows) {
+                if (row.isGraded()) {
+                    gradedRows.add(row);
+                }
+            }
+        }
+        return gradedRows;
+    }
+
+    public void setCoursePercentage(String courseId, double percentage) {
+        coursePercentages.put(courseId, percentage);
+    }
+
+    public void clearCoursePercentage(String courseId) {
+        coursePercentages.remove(courseId);
+    }
+
+    // Returns the final percentage for a course, or null if the course has no assignments
+    public Double getCoursePercentage(String courseId) {
+        return coursePercentages.get(courseId);
+    }
+
+    // A copy that can be changed without affecting this one (cached transcripts are shared with
+    // readers, so they are updated by copying, never in place)
+    public Transcript copy() {
+        Transcript copy = new Transcript(studentId);
+        for (Map.Entry<String, ArrayList<TranscriptRow>> entry : rowsByCourse.entrySet()) {
+            copy.rowsByCourse.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        copy.coursePercentages.putAll(coursePercentages);
+        copy.enrolledCourseIds.addAll(enrolledCourseIds);
+        return copy;
+    }
+
+    // A copy with one assignment's row taken out of fromCourseId and replacement (if not null) put in:
+    // at the same position if it stays in that course, otherwise at the end of its new course.
+    // Courses the student isn't enrolled in are left out once they have no rows.
+    public Transcript withRowReplaced(String fromCourseId, String assignmentId, TranscriptRow replacement) {
+        Transcript copy = copy();
+        ArrayList<TranscriptRow> rows = copy.rowsByCourse.get(fromCourseId);
+        boolean placed = false;
+        if (rows != null) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getAssignmentId().equals(assignmentId)) {
+                    if (replacement != null && replacement.getCourseId().equals(fromCourseId)) {
+                        rows.set(i, replacement);
+                        placed = true;
+                    } else {
+                        rows.remove(i);
+                    }
+                    break;
+                }
+            }
+            if (rows.isEmpty() && !enrolledCourseIds.contains(fromCourseId)) {
+                copy.rowsByCourse.remove(fromCourseId);
+            }
+        }
+        if (replacement != null && !placed) {
+            copy.addRow(replacement);
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "Transcript{" +
+                "studentId='" + studentId + '\'' +
+                ", courses=" + rowsByCourse.size() +
+                '}';
+    }
+}
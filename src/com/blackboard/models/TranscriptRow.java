@@ -0,0 +1,58 @@
+package com.blackboard.models;
+
+public class TranscriptRow {
+    private String courseId;
+    private String assignmentId;
+    private String title;
+    private String dueDate;
+    private double maxPoints;
+    private boolean graded;
+    private double points;
+
+    public TranscriptRow(String courseId, String assignmentId, String title, String dueDate,
+                         double maxPoints, boolean graded, double points) {
+        this.courseId = courseId;
+        this.assignmentId = assignmentId;
+        this.title = title;
+        this.dueDate = dueDate;
+        this.maxPoints = maxPoints;
+        this.graded = graded;
+        this.points = points;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public String getAssignmentId() {
+        return assignmentId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDueDate() {
+        return dueDate;
+    }
+
+    public double getMaxPoints() {
+        return maxPoints;
+    }
+
+    public boolean isGraded() {
+        return graded;
+    }
+
+    public double getPoints() {
+        return points;
+    }
+
+    @Override
+    public String toString() {
+        return "TranscriptRow{" +
+                "assignmentId='" + assignmentId + '\'' +
+                ", points=" + (graded ? points + "/" + maxPoints : "not graded") +
+                '}';
+    }
+}
@@ -0,0 +1,32 @@
+package com.blackboard.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event for one menu choice, timed from dispatch until the action returns to the menu
+@Name("com.blackboard.MenuAction")
+@Label("Menu Action")
+@Category({"Mini Blackboard", "Menu"})
+@Description("A menu choice and how long its action took, including waiting for input")
+@StackTrace(false)
+public class MenuActionEvent extends jdk.jfr.Event {
+    @Label("Menu")
+    public String menu;
+
+    @Label("Choice")
+    public String choice;
+
+    @Label("User ID")
+    public String userId;
+
+    // Starts timing an action
+    public MenuActionEvent(String menu, String choice, String userId) {
+        this.menu = menu;
+        this.choice = choice;
+        this.userId = userId;
+        begin();
+    }
+}
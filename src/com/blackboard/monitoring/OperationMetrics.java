@@ -0,0 +1,80 @@
+package com.blackboard.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// One OperationStats per instrumented operation. They are static fields so a service records a call
+// with a field read and a few atomic increments, never a map lookup or an allocation:
+//
+//     long start = System.nanoTime();
+//     try { ... } finally { OperationMetrics.LOGIN.record(start); }
+//
+// registerMBeans() publishes them all under com.blackboard:type=Operation for jconsole.
+public class OperationMetrics {
+    private static final ArrayList<OperationStats> ALL = new ArrayList<>();
+
+    public static final OperationStats LOGIN = create("login");
+    public static final OperationStats FIND_USER = create("findUserById");
+    public static final OperationStats FIND_USERS_BY_PREFIX = create("findUsersByPrefix");
+    public static final OperationStats FIND_COURSE = create("findCourseById");
+    public static final OperationStats FIND_COURSES_BY_PREFIX = create("findCoursesByPrefix");
+    public static final OperationStats FIND_ASSIGNMENT = create("findAssignmentById");
+    public static final OperationStats FIND_GRADE = create("findGradeById");
+    public static final OperationStats ENROLL = create("enrollStudentInCourse");
+    public static final OperationStats CREATE_GRADE = create("createGrade");
+    public static final OperationStats CALCULATE_FINAL_GRADE = create("calculateFinalGradeForCourse");
+
+    public static final OperationStats LOAD_USERS = create("load.users");
+    public static final OperationStats LOAD_COURSES = create("load.courses");
+    public static final OperationStats LOAD_ENROLLMENTS = create("load.enrollments");
+    public static final OperationStats LOAD_ASSIGNMENTS = create("load.assignments");
+    public static final OperationStats LOAD_GRADES = create("load.grades");
+    public static final OperationStats LOAD_IDS = create("load.ids");
+    public static final OperationStats SAVE_USERS = create("save.users");
+    public static final OperationStats SAVE_COURSES = create("save.courses");
+    public static final OperationStats SAVE_ENROLLMENTS = create("save.enrollments");
+    public static final OperationStats SAVE_ASSIGNMENTS = create("save.assignments");
+    public static final OperationStats SAVE_GRADES = create("save.grades");
+    public static final OperationStats SAVE_IDS = create("save.ids");
+
+    private static boolean registered;
+
+    private static OperationStats create(String name) {
+        OperationStats stats = new OperationStats(name);
+        ALL.add(stats);
+        return stats;
+    }
+
+    // Every operation, in the order declared above
+    public static ArrayList<OperationStats> getAll() {
+        return new ArrayList<>(ALL);
+    }
+
+    // Publishes every operation as an MBean (once); failures are reported but don't stop the application
+    public static synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationStats stats : ALL) {
+            try {
+                ObjectName name = new ObjectName("com.blackboard:type=Operation,name=" + stats.getName());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(stats, name);
+                }
+            } catch (JMException e) {
+                System.err.println("Could not register metrics for " + stats.getName() + ": " + e.getMessage());
+            }
+        }
+        registered = true;
+    }
+
+    public static void resetAll() {
+        for (OperationStats stats : ALL) {
+            stats.reset();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.blackboard.monitoring;
+
+// Call count and latency histogram of one operation
+public class OperationStats implements OperationStatsMXBean {
+    // Calls at least this slow are also recorded as a JFR SlowServiceCallEvent
+    private static final long SLOW_CALL_NANOS = Long.getLong("blackboard.slowCallMillis", 20) * 1000000L;
+
+    private String name;
+    private LatencyHistogram histogram;
+
+    public OperationStats(String name) {
+        this.name = name;
+        this.histogram = new LatencyHistogram();
+    }
+
+    // Records one call that started at startNanos (from System.nanoTime())
+    public void record(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        histogram.record(elapsed);
+        if (elapsed >= SLOW_CALL_NANOS) {
+            recordSlowCall(elapsed); // Rare, so the event object is only ever made here
+        }
+    }
+
+    private void recordSlowCall(long elapsed) {
+        SlowServiceCallEvent event = new SlowServiceCallEvent();
+        if (event.isEnabled()) {
+            event.operation = name;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return histogram.getMeanNanos() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return histogram.getPercentileNanos(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return histogram.getPercentileNanos(0.90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return histogram.getPercentileNanos(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return histogram.getMaxNanos() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        histogram.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats{" +
+                "name='" + name + '\'' +
+                ", count=" + getCount() +
+                ", p99Micros=" + getP99Micros() +
+                '}';
+    }
+}
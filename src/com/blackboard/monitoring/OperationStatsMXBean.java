@@ -0,0 +1,20 @@
+package com.blackboard.monitoring;
+
+// What each operation shows in jconsole (times in microseconds)
+public interface OperationStatsMXBean {
+    String getName();
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
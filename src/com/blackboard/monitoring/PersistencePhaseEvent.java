@@ -0,0 +1,46 @@
+package com.blackboard.monitoring;
+
+import java.io.File;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event for one load or save of a data file (e.g. "save" of grades.txt), with its size
+@Name("com.blackboard.PersistencePhase")
+@Label("Persistence Phase")
+@Category({"Mini Blackboard", "Persistence"})
+@Description("Loading or saving one data file")
+@StackTrace(false)
+public class PersistencePhaseEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("File")
+    public String file;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    // Starts timing a phase
+    public PersistencePhaseEvent(String operation, String file) {
+        this.operation = operation;
+        this.file = file;
+        begin();
+    }
+
+    // Ends the phase and records it with the file's size on disk
+    public void finish(File dataFile) {
+        end();
+        if (shouldCommit()) {
+            bytes = dataFile.length(); // Only touch the file system if the event is being recorded
+            commit();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.blackboard.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// JFR event for an instrumented service call that took longer than the slow-call threshold.
+// Raised from OperationStats.record, so fast calls never create one.
+@Name("com.blackboard.SlowServiceCall")
+@Label("Slow Service Call")
+@Category({"Mini Blackboard", "Services"})
+@Description("A service call slower than -Dblackboard.slowCallMillis (20 ms by default)")
+public class SlowServiceCallEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    public long elapsed;
+}
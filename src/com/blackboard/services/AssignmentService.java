@@ -3,79 +3,129 @@ package com.blackboard.services;
 import com.blackboard.models.Assignment;
 import com.blackboard.models.Course;
 import com.blackboard.models.Student;
+import com.blackboard.events.AssignmentChanged;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventBus;
+import com.blackboard.utils.DueDateParser;
+import com.blackboard.monitoring.OperationMetrics;
+import com.blackboard.utils.StringPool;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.PriorityQueue;
 
 public class AssignmentService {
-    private ArrayList<Assignment> assignments;
+    private VersionedStore<Assignment> assignments;
+    private EventBus eventBus;
+    private HashMap<String, LinkedHashMap<String, Assignment>> assignmentsByCourse; // courseId -> assignmentId -> assignment
+    private HashMap<String, ArrayList<Assignment>> deadlinesByCourse; // courseId -> assignments sorted by due time
     
     public AssignmentService() {
-        this.assignments = new ArrayList<>();
+        this.assignments = new VersionedStore<>();
+        this.assignmentsByCourse = new HashMap<>();
+        this.deadlinesByCourse = new HashMap<>();
     }
     
     // Creates a new assignment
     public Assignment createAssignment(String assignmentId, String courseId, String title,
                                        String description, String dueDate, double maxPoints) {
-        if (findAssignmentById(assignmentId) != null) {
-            return null; // Assignment already exists
+        Assignment assignment;
+        synchronized (this) {
+            if (findAssignmentById(assignmentId) != null) {
+                return null; // Assignment already exists
+            }
+            
+            assignment = new Assignment(StringPool.canonical(assignmentId), StringPool.canonical(courseId),
+                                        title, description, dueDate, maxPoints);
+            storeAssignment(assignment);
         }
-        
-        Assignment assignment = new Assignment(assignmentId, courseId, title, description, dueDate, maxPoints);
-        assignments.add(assignment);
+        publish(new AssignmentChanged(assignment, AssignmentChanged.CREATED, courseId, maxPoints));
         return assignment;
     }
     
     // Finds an assignment by its ID
     public Assignment findAssignmentById(String assignmentId) {
-        for (Assignment assignment : assignments) {
-            if (assignment.getAssignmentId().equals(assignmentId)) {
-                return assignment;
-            }
+        long start = System.nanoTime();
+        try {
+            return assignments.get(assignmentId);
+        } finally {
+            OperationMetrics.FIND_ASSIGNMENT.record(start);
         }
-        return null;
     }
     
-    // Returns all assignments
+    // Returns all assignments (a copy, so callers can't change the stored list)
     public ArrayList<Assignment> getAllAssignments() {
+        return assignments.toList();
+    }
+    
+    // Used by SnapshotService to take a point-in-time view of the assignments
+    VersionedStore<Assignment> getAssignmentStore() {
         return assignments;
     }
     
     // Updates an assignment
+    // The stored assignment is replaced by an updated copy rather than changed in place,
+    // so a snapshot taken earlier keeps seeing the old course, max points and category
     public boolean updateAssignment(Assignment updatedAssignmentData) {
-        // Find the assignment that already exists in our list
-        Assignment assignmentInList = findAssignmentById(updatedAssignmentData.getAssignmentId());
-        
-        // If the assignment exists in our list, update it with new data
-        if (assignmentInList != null) {
-            assignmentInList.setCourseId(updatedAssignmentData.getCourseId());
-            assignmentInList.setTitle(updatedAssignmentData.getTitle());
-            assignmentInList.setDescription(updatedAssignmentData.getDescription());
-            assignmentInList.setDueDate(updatedAssignmentData.getDueDate());
-            assignmentInList.setMaxPoints(updatedAssignmentData.getMaxPoints());
-            return true; // Successfully updated
+        Assignment previous;
+        Assignment updated;
+        synchronized (this) {
+            previous = findAssignmentById(updatedAssignmentData.getAssignmentId());
+            if (previous == null) {
+                return false; // Assignment not found, couldn't update
+            }
+            updated = new Assignment(previous.getAssignmentId(),
+                                     StringPool.canonical(updatedAssignmentData.getCourseId()),
+                                     updatedAssignmentData.getTitle(), updatedAssignmentData.getDescription(),
+                                     updatedAssignmentData.getDueDate(), updatedAssignmentData.getMaxPoints());
+            updated.setCategory(StringPool.canonical(updatedAssignmentData.getCategory()));
+            replaceAssignment(previous, updated);
         }
-        
-        return false; // Assignment not found, couldn't update
+        publish(new AssignmentChanged(updated, AssignmentChanged.UPDATED,
+                                      previous.getCourseId(), previous.getMaxPoints()));
+        return true; // Successfully updated
+    }
+    
+    // Puts an assignment in a grading category of its course's policy (null for none)
+    public boolean setAssignmentCategory(String assignmentId, String category) {
+        Assignment updated;
+        synchronized (this) {
+            Assignment previous = findAssignmentById(assignmentId);
+            if (previous == null) {
+                return false;
+            }
+            updated = new Assignment(previous.getAssignmentId(), previous.getCourseId(), previous.getTitle(),
+                                     previous.getDescription(), previous.getDueDate(), previous.getMaxPoints());
+            updated.setCategory(StringPool.canonical(category));
+            replaceAssignment(previous, updated);
+        }
+        publish(new AssignmentChanged(updated, AssignmentChanged.UPDATED,
+                                      updated.getCourseId(), updated.getMaxPoints()));
+        return true;
     }
     
     // Deletes an assignment
     public boolean deleteAssignment(String assignmentId) {
-        Assignment assignment = findAssignmentById(assignmentId);
+        Assignment assignment;
+        synchronized (this) {
+            assignment = removeAssignment(assignmentId);
+        }
         if (assignment != null) {
-            assignments.remove(assignment);
+            publish(new AssignmentChanged(assignment, AssignmentChanged.DELETED,
+                                          assignment.getCourseId(), assignment.getMaxPoints()));
             return true;
         }
         return false;
     }
     
     // Gets all assignments for a specific course
-    public ArrayList<Assignment> getAssignmentsForCourse(String courseId) {
-        ArrayList<Assignment> courseAssignments = new ArrayList<>();
-        for (Assignment assignment : assignments) {
-            if (assignment.getCourseId().equals(courseId)) {
-                courseAssignments.add(assignment);
-            }
+    public synchronized ArrayList<Assignment> getAssignmentsForCourse(String courseId) {
+        LinkedHashMap<String, Assignment> courseAssignments = assignmentsByCourse.get(courseId);
+        if (courseAssignments == null) {
+            return new ArrayList<>();
         }
-        return courseAssignments;
+        return new ArrayList<>(courseAssignments.values());
     }
     
     // Gets all assignments for a student (from all courses they're enrolled in)
@@ -97,10 +147,159 @@ public class AssignmentService {
         return studentAssignments;
     }
     
+    // Returns the next n deadlines (due at or after 'now') across all of a student's courses, soonest first
+    // Each course keeps its assignments sorted by due time, so this merges those lists and
+    // stops after n results instead of looking at every assignment
+    public synchronized ArrayList<Assignment> getUpcomingDeadlines(Student student, long now, int n) {
+        ArrayList<Assignment> upcoming = new ArrayList<>();
+        if (student == null || n <= 0) {
+            return upcoming;
+        }
+        
+        // One cursor per course, pointing at its first assignment that isn't due yet
+        ArrayList<ArrayList<Assignment>> lists = new ArrayList<>();
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(
+                (a, b) -> compareDeadlines(lists.get(a[0]).get(a[1]), lists.get(b[0]).get(b[1])));
+        
+        for (Course course : student.getEnrolledCourses()) {
+            ArrayList<Assignment> deadlines = deadlinesByCourse.get(course.getCourseId());
+            if (deadlines == null) {
+                continue;
+            }
+            int first = firstDueAtOrAfter(deadlines, now);
+            if (first < deadlines.size()) {
+                lists.add(deadlines);
+                cursors.add(new int[] {lists.size() - 1, first});
+            }
+        }
+        
+        while (upcoming.size() < n && !cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            ArrayList<Assignment> deadlines = lists.get(cursor[0]);
+            upcoming.add(deadlines.get(cursor[1]));
+            if (cursor[1] + 1 < deadlines.size()) {
+                cursors.add(new int[] {cursor[0], cursor[1] + 1});
+            }
+        }
+        return upcoming;
+    }
+    
     // Adds an assignment (used by DataPersistenceService when loading data)
-    public void addAssignment(Assignment assignment) {
+    public synchronized void addAssignment(Assignment assignment) {
         if (assignment != null && findAssignmentById(assignment.getAssignmentId()) == null) {
-            assignments.add(assignment);
+            storeAssignment(assignment);
+        }
+    }
+    
+    // Sets the bus that this service publishes its changes to
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+    
+    private void publish(DomainEvent event) {
+        if (eventBus != null) {
+            eventBus.publish(event);
+        }
+    }
+    
+    // Removes every assignment of a course and returns them, without publishing anything.
+    // Used by CascadeDeleteService, which holds the lock and VersionedStore.WRITE_LOCK.
+    ArrayList<Assignment> removeAssignmentsForCourse(String courseId) {
+        LinkedHashMap<String, Assignment> courseAssignments = assignmentsByCourse.get(courseId);
+        if (courseAssignments == null) {
+            return new ArrayList<>();
+        }
+        ArrayList<Assignment> removed = new ArrayList<>(courseAssignments.values());
+        for (Assignment assignment : removed) {
+            assignments.remove(assignment.getAssignmentId());
+            unindexAssignment(assignment);
+        }
+        return removed;
+    }
+    
+    // Removes one assignment without publishing anything; returns it, or null (caller holds the lock)
+    Assignment removeAssignment(String assignmentId) {
+        Assignment assignment = assignments.remove(assignmentId);
+        if (assignment != null) {
+            unindexAssignment(assignment);
+        }
+        return assignment;
+    }
+    
+    // Puts an assignment in the store and the course indexes (caller holds the lock)
+    private void storeAssignment(Assignment assignment) {
+        assignment.setDueTime(DueDateParser.parse(assignment.getDueDate())); // Parsed once here, not on every query
+        assignments.put(assignment.getAssignmentId(), assignment);
+        
+        LinkedHashMap<String, Assignment> courseAssignments = assignmentsByCourse.get(assignment.getCourseId());
+        if (courseAssignments == null) {
+            courseAssignments = new LinkedHashMap<>();
+            assignmentsByCourse.put(assignment.getCourseId(), courseAssignments);
+        }
+        courseAssignments.put(assignment.getAssignmentId(), assignment);
+        
+        if (assignment.getDueTime() != DueDateParser.UNKNOWN) {
+            ArrayList<Assignment> deadlines = deadlinesByCourse.get(assignment.getCourseId());
+            if (deadlines == null) {
+                deadlines = new ArrayList<>();
+                deadlinesByCourse.put(assignment.getCourseId(), deadlines);
+            }
+            int index = Collections.binarySearch(deadlines, assignment, AssignmentService::compareDeadlines);
+            if (index < 0) {
+                deadlines.add(-index - 1, assignment);
+            }
+        }
+    }
+    
+    // Swaps the stored assignment for an updated copy (caller holds the lock)
+    private void replaceAssignment(Assignment previous, Assignment updated) {
+        unindexAssignment(previous);
+        storeAssignment(updated);
+    }
+    
+    // Removes an assignment from the course indexes (caller holds the lock)
+    private void unindexAssignment(Assignment assignment) {
+        ArrayList<Assignment> deadlines = deadlinesByCourse.get(assignment.getCourseId());
+        if (deadlines != null) {
+            int index = Collections.binarySearch(deadlines, assignment, AssignmentService::compareDeadlines);
+            if (index >= 0) {
+                deadlines.remove(index);
+            }
+            if (deadlines.isEmpty()) {
+                deadlinesByCourse.remove(assignment.getCourseId());
+            }
+        }
+        
+        LinkedHashMap<String, Assignment> courseAssignments = assignmentsByCourse.get(assignment.getCourseId());
+        if (courseAssignments != null) {
+            courseAssignments.remove(assignment.getAssignmentId());
+            if (courseAssignments.isEmpty()) {
+                assignmentsByCourse.remove(assignment.getCourseId());
+            }
+        }
+    }
+    
+    // Orders assignments by due time, then by ID so equal times still have a fixed order
+    private static int compareDeadlines(Assignment a, Assignment b) {
+        int byTime = Long.compare(a.getDueTime(), b.getDueTime());
+        if (byTime != 0) {
+            return byTime;
+        }
+        return a.getAssignmentId().compareTo(b.getAssignmentId());
+    }
+    
+    // Binary search for the first assignment due at or after the given time
+    private static int firstDueAtOrAfter(ArrayList<Assignment> deadlines, long time) {
+        int low = 0;
+        int high = deadlines.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (deadlines.get(middle).getDueTime() < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
         }
+        return low;
     }
 }
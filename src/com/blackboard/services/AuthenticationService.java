@@ -1,83 +1,317 @@
 package com.blackboard.services;
 
+import com.blackboard.models.Page;
 import com.blackboard.models.User;
 import com.blackboard.models.Student;
 import com.blackboard.models.Teacher;
+import com.blackboard.utils.PasswordHasher;
+import com.blackboard.utils.StringPool;
+import com.blackboard.monitoring.OperationMetrics;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class AuthenticationService {
-    private ArrayList<User> users;
+    private static final long TARGET_HASH_MILLIS = 100; // Cost of one hash on this machine
+    private static final int HASHING_QUEUE_CAPACITY = 64;
+    private static final String STUDENT_ID_PREFIX = "STUDENT";
+    
+    private VersionedStore<User> users;
+    private int hashIterations;
+    private ThreadPoolExecutor hashingPool;
+    private HashMap<String, PrefixIndex> nameIndexByRole; // role -> name/ID prefix index
+    private SortedIndex<User> listing;                     // all users sorted, for paged listings
+    private HashMap<String, SortedIndex<User>> listingByRole;
+    private IdAllocator idAllocator;
     
     public AuthenticationService() {
-        this.users = new ArrayList<>();
+        this(new IdAllocator());
+    }
+    
+    public AuthenticationService(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+        // Student IDs are created by hand and shown to people, so reserve them one at a time and keep them dense
+        idAllocator.setBlockSize(IdAllocator.STUDENT, 1);
+        this.users = new VersionedStore<>();
+        this.nameIndexByRole = new HashMap<>();
+        this.listing = new SortedIndex<>();
+        this.listingByRole = new HashMap<>();
+        // Calibrating takes a few hashes, so only do it when no cost was given on the command line
+        Integer configuredIterations = Integer.getInteger("blackboard.pbkdf2.iterations");
+        this.hashIterations = configuredIterations != null ? configuredIterations
+                : PasswordHasher.calibrateIterations(TARGET_HASH_MILLIS);
+        
+        // Hashing is CPU bound: one worker per core and a bounded queue, so a burst of
+        // logins waits its turn instead of starving the rest of the application
+        int workers = Runtime.getRuntime().availableProcessors();
+        this.hashingPool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(HASHING_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing");
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
     
     // Login method to validate user credentials
     public User login(String userId, String password) {
-        User user = findUserById(userId);
-        
-        if (user != null && user.getPassword().equals(password)) {
+        long start = System.nanoTime();
+        try {
+            User user = findUserById(userId);
+            
+            if (user == null || password == null) {
+                return null; // Invalid credentials
+            }
+            
+            String storedHash = user.getPassword();
+            Boolean valid = runOnHashingPool(() -> PasswordHasher.verify(password, storedHash));
+            if (valid == null || !valid) {
+                return null; // Invalid credentials or the hashing pool is saturated
+            }
+            
+            // Hashes made with an older, cheaper cost are upgraded on the next successful login
+            if (PasswordHasher.getIterations(storedHash) < hashIterations) {
+                String upgradedHash = runOnHashingPool(() -> PasswordHasher.hash(password, hashIterations));
+                if (upgradedHash != null) {
+                    user.setPassword(upgradedHash);
+                }
+            }
+            
             return user;
+        } finally {
+            OperationMetrics.LOGIN.record(start);
         }
-        
-        return null; // Invalid credentials
     }
     
     // Finds a user by their userId
     public User findUserById(String userId) {
-        for (User user : users) {
-            if (user.getUserId().equals(userId)) {
-                return user;
-            }
+        long start = System.nanoTime();
+        try {
+            return users.get(userId);
+        } finally {
+            OperationMetrics.FIND_USER.record(start);
         }
-        return null;
     }
     
     // Adds a user to the system by data persistence service
     public void addUser(User user) {
         if (user != null && findUserById(user.getUserId()) == null) {
-            users.add(user);
+            hashPasswordIfNeeded(user);
+            poolStrings(user);
+            users.put(user.getUserId(), user);
+            indexUser(user);
+            idAllocator.observeId(IdAllocator.STUDENT, STUDENT_ID_PREFIX, user.getUserId());
+        }
+    }
+    
+    // Returns the next free student ID (STUDENT001, STUDENT002, ...)
+    public String generateStudentId() {
+        return String.format(STUDENT_ID_PREFIX + "%03d", idAllocator.next(IdAllocator.STUDENT));
+    }
+    
+    // Adds users loaded from storage; plaintext passwords are hashed in parallel on the hashing pool
+    // Returns the number of passwords that were upgraded from plaintext
+    public int addUsersFromStorage(ArrayList<User> loadedUsers) {
+        ArrayList<User> plaintextUsers = new ArrayList<>();
+        for (User user : loadedUsers) {
+            if (!PasswordHasher.isHashed(user.getPassword())) {
+                plaintextUsers.add(user);
+            }
+        }
+        
+        // Submit in chunks no larger than the queue. Logins share the queue, so it can still be full;
+        // a rejected password is hashed on this thread instead, as hashPasswordIfNeeded does
+        int chunkSize = HASHING_QUEUE_CAPACITY;
+        for (int start = 0; start < plaintextUsers.size(); start += chunkSize) {
+            int end = Math.min(start + chunkSize, plaintextUsers.size());
+            ArrayList<Future<String>> hashes = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                String plaintext = plaintextUsers.get(i).getPassword();
+                try {
+                    hashes.add(hashingPool.submit(() -> PasswordHasher.hash(plaintext, hashIterations)));
+                } catch (RejectedExecutionException e) {
+                    hashes.add(CompletableFuture.completedFuture(PasswordHasher.hash(plaintext, hashIterations)));
+                }
+            }
+            for (int i = start; i < end; i++) {
+                plaintextUsers.get(i).setPassword(waitFor(hashes.get(i - start)));
+            }
         }
+        
+        for (User user : loadedUsers) {
+            addUser(user);
+        }
+        return plaintextUsers.size();
     }
     
-    // Returns all users in the system
+    // Returns all users in the system (a copy, so callers can't change the stored list)
     public ArrayList<User> getAllUsers() {
+        return users.toList();
+    }
+    
+    // Returns one page of users, sorted by SortedIndex.SORT_BY_ID or SORT_BY_NAME
+    // role null lists every role; pass the previous page's next cursor to continue (null to start)
+    public Page<User> getUsersPage(String role, String sortBy, String cursor, int pageSize) {
+        SortedIndex<User> source = role == null ? listing : getListing(role);
+        return source.getPage(sortBy, cursor, pageSize);
+    }
+    
+    // Returns the number of users without copying them
+    public int getUserCount() {
+        return users.size();
+    }
+    
+    // Finds up to maxResults users of a role whose name (any word of it) or ID starts with the prefix
+    public ArrayList<User> findUsersByPrefix(String prefix, String role, int maxResults) {
+        long start = System.nanoTime();
+        try {
+            ArrayList<User> matches = new ArrayList<>();
+            PrefixIndex index = getNameIndex(role);
+            for (String userId : index.findByPrefix(prefix, maxResults)) {
+                User user = findUserById(userId);
+                if (user != null) {
+                    matches.add(user);
+                }
+            }
+            return matches;
+        } finally {
+            OperationMetrics.FIND_USERS_BY_PREFIX.record(start);
+        }
+    }
+    
+    // Used by SnapshotService to take a point-in-time view of the users
+    VersionedStore<User> getUserStore() {
         return users;
     }
     
     // Updates a user
+    // Pass a detached copy: the new password is hashed before the stored user changes at all,
+    // so a save running meanwhile can never write it in plaintext
     public boolean updateUser(User updatedUser) {
         User existingUser = findUserById(updatedUser.getUserId());
         if (existingUser != null) {
-            existingUser.setPassword(updatedUser.getPassword());
+            String password = hashIfNeeded(updatedUser.getPassword());
+            existingUser.setPassword(password);
             existingUser.setName(updatedUser.getName());
             
             if (existingUser instanceof Student && updatedUser instanceof Student) {
                 Student existingStudent = (Student) existingUser;
                 Student updatedStudent = (Student) updatedUser;
-                existingStudent.setMajor(updatedStudent.getMajor());
+                existingStudent.setMajor(StringPool.canonical(updatedStudent.getMajor()));
             } else if (existingUser instanceof Teacher && updatedUser instanceof Teacher) {
                 Teacher existingTeacher = (Teacher) existingUser;
                 Teacher updatedTeacher = (Teacher) updatedUser;
-                existingTeacher.setDepartment(updatedTeacher.getDepartment());
+                existingTeacher.setDepartment(StringPool.canonical(updatedTeacher.getDepartment()));
             }
             
+            indexUser(existingUser);
             return true;
         }
         return false;
     }
     
-    // Deletes a user
+    // Deletes a user (CascadeDeleteService also removes their grades and enrollments)
     public boolean deleteUser(String userId) {
-        User user = findUserById(userId);
-        if (user != null) {
-            users.remove(user);
-            return true;
+        User user = users.remove(userId);
+        if (user == null) {
+            return false;
         }
-        return false;
+        unindexUser(user);
+        return true;
     }
     
-    public void logout() {
-        
+    // Removes a user from the store without touching the indexes; used by CascadeDeleteService,
+    // which holds VersionedStore.WRITE_LOCK and calls unindexUser afterwards
+    User removeUser(String userId) {
+        return users.remove(userId);
+    }
+    
+    // Takes a removed user out of the name index and the listings
+    void unindexUser(User user) {
+        getNameIndex(user.getRole()).remove(user.getUserId());
+        listing.remove(user.getUserId());
+        getListing(user.getRole()).remove(user.getUserId());
+    }
+    
+    // Keeps the prefix index and the sorted listings in step with a user's current name
+    private void indexUser(User user) {
+        getNameIndex(user.getRole()).put(user.getUserId(), user.getName(), user.getUserId());
+        listing.put(user.getUserId(), user.getName(), user);
+        getListing(user.getRole()).put(user.getUserId(), user.getName(), user);
+    }
+    
+    private synchronized SortedIndex<User> getListing(String role) {
+        SortedIndex<User> roleListing = listingByRole.get(role);
+        if (roleListing == null) {
+            roleListing = new SortedIndex<>();
+            listingByRole.put(role, roleListing);
+        }
+        return roleListing;
+    }
+    
+    private synchronized PrefixIndex getNameIndex(String role) {
+        PrefixIndex index = nameIndexByRole.get(role);
+        if (index == null) {
+            index = new PrefixIndex();
+            nameIndexByRole.put(role, index);
+        }
+        return index;
+    }
+    
+    // Swaps the user's ID, major or department for the shared copies (see StringPool)
+    private void poolStrings(User user) {
+        user.setUserId(StringPool.canonical(user.getUserId()));
+        if (user instanceof Student) {
+            Student student = (Student) user;
+            student.setMajor(StringPool.canonical(student.getMajor()));
+        } else if (user instanceof Teacher) {
+            Teacher teacher = (Teacher) user;
+            teacher.setDepartment(StringPool.canonical(teacher.getDepartment()));
+        }
+    }
+    
+    // Replaces a plaintext password with its hash
+    private void hashPasswordIfNeeded(User user) {
+        user.setPassword(hashIfNeeded(user.getPassword()));
+    }
+    
+    // Returns the hash of a plaintext password (already hashed ones and null are returned as they are)
+    private String hashIfNeeded(String password) {
+        if (password == null || PasswordHasher.isHashed(password)) {
+            return password;
+        }
+        String hash = runOnHashingPool(() -> PasswordHasher.hash(password, hashIterations));
+        if (hash == null) {
+            hash = PasswordHasher.hash(password, hashIterations); // Never keep plaintext, even when busy
+        }
+        return hash;
+    }
+    
+    // Runs a hashing task on the bounded pool and waits for it
+    // Returns null when the queue is full, so callers can fail fast instead of piling up
+    private <T> T runOnHashingPool(Callable<T> task) {
+        try {
+            return waitFor(hashingPool.submit(task));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Password hashing is busy, request rejected.");
+            return null;
+        }
+    }
+    
+    private <T> T waitFor(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed: " + e.getCause().getMessage(), e);
+        }
     }
 }
@@ -0,0 +1,192 @@
+package com.blackboard.services;
+
+import com.blackboard.events.AssignmentChanged;
+import com.blackboard.events.CourseDeleted;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventBus;
+import com.blackboard.events.UserDeleted;
+import com.blackboard.models.Assignment;
+import com.blackboard.models.Course;
+import com.blackboard.models.DeleteSummary;
+import com.blackboard.models.Student;
+import com.blackboard.models.Teacher;
+import com.blackboard.models.User;
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+// Deletes a course, user or assignment together with everything that depends on it, so no
+// enrollments, assignments or grades are left pointing at something that is gone.
+// Dependents are found through the services' reverse indexes (course -> roster and assignments,
+// assignment -> grades, student -> grades and courses, teacher -> courses), so a delete costs
+// time in proportion to what it removes rather than to the size of the stores.
+// Each delete is applied while holding every service lock and the store lock, so snapshots and
+// readers holding a service lock see all of it or none of it, and is then written as one save.
+public class CascadeDeleteService {
+    private AuthenticationService authService;
+    private CourseService courseService;
+    private AssignmentService assignmentService;
+    private GradeService gradeService;
+    private DataPersistenceService persistenceService; // Null: deletes aren't saved
+    private EventBus eventBus;
+
+    public CascadeDeleteService(AuthenticationService authService, CourseService courseService,
+                                AssignmentService assignmentService, GradeService gradeService,
+                                DataPersistenceService persistenceService) {
+        this.authService = authService;
+        this.courseService = courseService;
+        this.assignmentService = assignmentService;
+        this.gradeService = gradeService;
+        this.persistenceService = persistenceService;
+    }
+
+    // Deletes a course with its assignments, their grades and its enrollments.
+    // Returns what was removed, or null if there is no such course.
+    public DeleteSummary deleteCourse(String courseId) {
+        Removal removal = applyAtomically(() -> removeCourse(courseId));
+        if (removal == null) {
+            return null;
+        }
+        courseService.unindexCourse(courseId);
+        publish(new CourseDeleted(courseId));
+        publishDeleted(removal.assignments);
+        return save(removal.summary);
+    }
+
+    // Deletes a user; a student's grades and enrollments go with them, and a teacher's courses
+    // are kept but left without a teacher. Returns what was removed, or null if there is no such user.
+    public DeleteSummary deleteUser(String userId) {
+        Removal removal = applyAtomically(() -> removeUser(userId));
+        if (removal == null) {
+            return null;
+        }
+        authService.unindexUser(removal.user);
+        publish(new UserDeleted(userId, removal.user.getRole(), removal.courseIds));
+        return save(removal.summary);
+    }
+
+    // Deletes an assignment with its grades.
+    // Returns what was removed, or null if there is no such assignment.
+    public DeleteSummary deleteAssignment(String assignmentId) {
+        Removal removal = applyAtomically(() -> removeAssignment(assignmentId));
+        if (removal == null) {
+            return null;
+        }
+        publishDeleted(removal.assignments);
+        return save(removal.summary);
+    }
+
+    // Sets the bus that this service publishes its changes to
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    // Takes the locks in the order the services do (service, then VersionedStore.WRITE_LOCK)
+    private Removal applyAtomically(Supplier<Removal> removal) {
+        synchronized (courseService) {
+            synchronized (assignmentService) {
+                synchronized (gradeService) {
+                    synchronized (VersionedStore.WRITE_LOCK) {
+                        return removal.get();
+                    }
+                }
+            }
+        }
+    }
+
+    private Removal removeCourse(String courseId) {
+        Course course = courseService.findCourseById(courseId);
+        if (course == null) {
+            return null;
+        }
+        Removal removal = new Removal(courseId);
+        removal.assignments = assignmentService.removeAssignmentsForCourse(courseId);
+        removal.summary.setAssignmentCount(removal.assignments.size());
+        removal.summary.setGradeCount(removeGrades(removal.assignments));
+        removal.summary.setEnrollmentCount(courseService.removeCourse(course).size());
+
+        User teacher = course.getTeacherId() != null ? authService.findUserById(course.getTeacherId()) : null;
+        if (teacher instanceof Teacher) {
+            ((Teacher) teacher).unassignCourse(course);
+        }
+        return removal;
+    }
+
+    private Removal removeUser(String userId) {
+        User user = authService.findUserById(userId);
+        if (user == null) {
+            return null;
+        }
+        Removal removal = new Removal(userId);
+        removal.user = user;
+        if (user instanceof Student) {
+            ArrayList<Course> enrolled = courseService.removeEnrollments((Student) user);
+            addCourseIds(removal.courseIds, enrolled);
+            removal.summary.setEnrollmentCount(enrolled.size());
+            removal.summary.setGradeCount(gradeService.removeGradesForStudent(userId).size());
+        } else if (user instanceof Teacher) {
+            ArrayList<Course> taught = courseService.removeTeacher(userId);
+            addCourseIds(removal.courseIds, taught);
+            removal.summary.setUnassignedCourseCount(taught.size());
+        }
+        authService.removeUser(userId);
+        return removal;
+    }
+
+    private Removal removeAssignment(String assignmentId) {
+        Assignment assignment = assignmentService.removeAssignment(assignmentId);
+        if (assignment == null) {
+            return null;
+        }
+        Removal removal = new Removal(assignmentId);
+        removal.assignments.add(assignment);
+        removal.summary.setGradeCount(removeGrades(removal.assignments));
+        return removal;
+    }
+
+    private int removeGrades(ArrayList<Assignment> assignments) {
+        int removed = 0;
+        for (Assignment assignment : assignments) {
+            removed += gradeService.removeGradesForAssignment(assignment.getAssignmentId()).size();
+        }
+        return removed;
+    }
+
+    private static void addCourseIds(ArrayList<String> courseIds, ArrayList<Course> courses) {
+        for (Course course : courses) {
+            courseIds.add(course.getCourseId());
+        }
+    }
+
+    // Tells the listeners about removed assignments (search, reminders, transcripts and ranks)
+    private void publishDeleted(ArrayList<Assignment> assignments) {
+        for (Assignment assignment : assignments) {
+            publish(new AssignmentChanged(assignment, AssignmentChanged.DELETED,
+                                          assignment.getCourseId(), assignment.getMaxPoints()));
+        }
+    }
+
+    private DeleteSummary save(DeleteSummary summary) {
+        if (persistenceService != null) {
+            summary.setSaved(persistenceService.saveAllData());
+        }
+        return summary;
+    }
+
+    private void publish(DomainEvent event) {
+        if (eventBus != null) {
+            eventBus.publish(event);
+        }
+    }
+
+    // What one delete took out, for the events published after the locks are released
+    private static class Removal {
+        DeleteSummary summary;
+        User user;
+        ArrayList<Assignment> assignments = new ArrayList<>();
+        ArrayList<String> courseIds = new ArrayList<>();
+
+        Removal(String deletedId) {
+            this.summary = new DeleteSummary(deletedId);
+        }
+    }
+}
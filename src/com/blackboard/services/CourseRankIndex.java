@@ -0,0 +1,247 @@
+package com.blackboard.services;
+
+import com.blackboard.events.AssignmentChanged;
+import com.blackboard.events.BatchEventListener;
+import com.blackboard.events.CourseChanged;
+import com.blackboard.events.CourseDeleted;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventListener;
+import com.blackboard.events.GradeDeleted;
+import com.blackboard.events.GradeRecorded;
+import com.blackboard.events.StudentEnrolled;
+import com.blackboard.events.UserDeleted;
+import com.blackboard.models.Assignment;
+import com.blackboard.models.CourseStanding;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+// Class rank and percentile per course without sorting the class on every request.
+// Each course keeps a FenwickTree of how many students have each final grade, in 0.1% buckets, so
+// "how many scored above me" and "what score is the median" are O(log buckets) lookups.
+// A course is built the first time someone asks about it; after that a grade change only
+// recomputes the one student's final grade and moves them to their new bucket, and an assignment
+// or policy change recomputes the class in one batch and moves only the students whose grade moved.
+// Main subscribes it asynchronously; a batch of events recomputes each affected class only once.
+public class CourseRankIndex implements EventListener, BatchEventListener {
+    private static final int BUCKETS_PER_PERCENT = 10;
+    private static final int BUCKET_COUNT = 100 * BUCKETS_PER_PERCENT + 1; // 0.0% .. 100.0%
+
+    private CourseService courseService;
+    private AssignmentService assignmentService;
+    private GradeService gradeService;
+    private HashMap<String, CourseScores> scoresByCourse; // Only courses that have been asked about
+
+    public CourseRankIndex(CourseService courseService, AssignmentService assignmentService,
+                           GradeService gradeService) {
+        this.courseService = courseService;
+        this.assignmentService = assignmentService;
+        this.gradeService = gradeService;
+        this.scoresByCourse = new HashMap<>();
+    }
+
+    // Returns the student's rank and percentile in the course, or null if they aren't enrolled in it
+    public synchronized CourseStanding getStanding(String studentId, String courseId) {
+        CourseScores scores = getScores(courseId);
+        Integer bucket = scores.bucketByStudent.get(studentId);
+        if (bucket == null) {
+            return null;
+        }
+
+        int classSize = scores.counts.total();
+        int below = scores.counts.prefixSum(bucket - 1);
+        int atOrBelow = scores.counts.prefixSum(bucket);
+        int tied = atOrBelow - below;
+        int rank = classSize - atOrBelow + 1;
+        double percentile = (below + tied / 2.0) * 100.0 / classSize;
+        return new CourseStanding(studentId, courseId, toScore(bucket), rank, classSize, percentile);
+    }
+
+    // Returns the final grade that the given share of the class (0-100) scores at or below,
+    // e.g. 50 for the median; -1 if nobody is enrolled
+    public synchronized double getScoreAtPercentile(String courseId, double percentile) {
+        FenwickTree counts = getScores(courseId).counts;
+        if (counts.total() == 0) {
+            return -1;
+        }
+        int k = (int) Math.ceil(percentile / 100.0 * counts.total());
+        return toScore(counts.findKth(Math.max(1, Math.min(k, counts.total()))));
+    }
+
+    public synchronized int getClassSize(String courseId) {
+        return getScores(courseId).counts.total();
+    }
+
+    // Forgets every course; they are built again when next asked about
+    public synchronized void clear() {
+        scoresByCourse.clear();
+    }
+
+    // Applies a batch in order, except that classes to recompute are collected and recomputed once
+    // at the end; grade changes in those classes are skipped, since the recompute covers them
+    @Override
+    public synchronized void onEvents(ArrayList<DomainEvent> batch) {
+        LinkedHashSet<String> recalculate = new LinkedHashSet<>();
+        for (DomainEvent event : batch) {
+            if (event instanceof AssignmentChanged) {
+                AssignmentChanged changed = (AssignmentChanged) event;
+                recalculate.add(changed.getPreviousCourseId());
+                recalculate.add(changed.getAssignment().getCourseId());
+            } else if (event instanceof CourseChanged) {
+                recalculate.add(((CourseChanged) event).getCourse().getCourseId());
+            } else if (event instanceof GradeRecorded || event instanceof GradeDeleted) {
+                Assignment assignment = assignmentService.findAssignmentById(assignmentIdOf(event));
+                if (assignment != null && !recalculate.contains(assignment.getCourseId())) {
+                    onEvent(event);
+                }
+            } else {
+                onEvent(event);
+            }
+        }
+        for (String courseId : recalculate) {
+            recalculateCourse(courseId);
+        }
+    }
+
+    @Override
+    public void onEventsDropped() {
+        clear();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof GradeRecorded) {
+            GradeRecorded recorded = (GradeRecorded) event;
+            gradeChanged(recorded.getStudentId(), recorded.getAssignmentId());
+        } else if (event instanceof GradeDeleted) {
+            GradeDeleted deleted = (GradeDeleted) event;
+            gradeChanged(deleted.getStudentId(), deleted.getAssignmentId());
+        } else if (event instanceof StudentEnrolled) {
+            StudentEnrolled enrolled = (StudentEnrolled) event;
+            studentEnrolled(enrolled.getStudentId(), enrolled.getCourseId());
+        } else if (event instanceof AssignmentChanged) {
+            // Every student's final grade in the old and new course may change
+            AssignmentChanged changed = (AssignmentChanged) event;
+            recalculateCourse(changed.getPreviousCourseId());
+            if (!changed.getAssignment().getCourseId().equals(changed.getPreviousCourseId())) {
+                recalculateCourse(changed.getAssignment().getCourseId());
+            }
+        } else if (event instanceof CourseChanged) {
+            recalculateCourse(((CourseChanged) event).getCourse().getCourseId()); // e.g. a new grading policy
+        } else if (event instanceof CourseDeleted) {
+            dropCourse(((CourseDeleted) event).getCourseId());
+        } else if (event instanceof UserDeleted) {
+            UserDeleted deleted = (UserDeleted) event;
+            studentDeleted(deleted.getUserId(), deleted.getCourseIds()); // Teachers aren't ranked, so a no-op
+        }
+    }
+
+    private static String assignmentIdOf(DomainEvent event) {
+        if (event instanceof GradeRecorded) {
+            return ((GradeRecorded) event).getAssignmentId();
+        }
+        return ((GradeDeleted) event).getAssignmentId();
+    }
+
+    private synchronized void gradeChanged(String studentId, String assignmentId) {
+        Assignment assignment = assignmentService.findAssignmentById(assignmentId);
+        if (assignment == null) {
+            return;
+        }
+        CourseScores scores = scoresByCourse.get(assignment.getCourseId());
+        if (scores != null && scores.bucketByStudent.containsKey(studentId)) {
+            scores.put(studentId, toBucket(calculateScore(studentId, assignment.getCourseId())));
+        }
+    }
+
+    private synchronized void studentEnrolled(String studentId, String courseId) {
+        CourseScores scores = scoresByCourse.get(courseId);
+        if (scores != null) {
+            scores.put(studentId, toBucket(calculateScore(studentId, courseId)));
+        }
+    }
+
+    // Recomputes the final grade of every student in a built course as one batch and moves only
+    // those whose bucket changed; courses nobody has asked about yet are left alone.
+    // Costs one pass over the class, instead of throwing the course away and rebuilding it.
+    private synchronized void recalculateCourse(String courseId) {
+        CourseScores scores = scoresByCourse.get(courseId);
+        if (scores == null) {
+            return;
+        }
+        ArrayList<String> studentIds = new ArrayList<>(scores.bucketByStudent.keySet());
+        double[] finalGrades = gradeService.calculateFinalGradesForCourse(studentIds, courseId,
+                assignmentService.getAssignmentsForCourse(courseId));
+        for (int i = 0; i < studentIds.size(); i++) {
+            int bucket = toBucket(finalGrades[i]);
+            if (bucket != scores.bucketByStudent.get(studentIds.get(i))) {
+                scores.put(studentIds.get(i), bucket);
+            }
+        }
+    }
+
+    // Takes a deleted student out of the built courses they were enrolled in
+    private synchronized void studentDeleted(String studentId, List<String> courseIds) {
+        for (String courseId : courseIds) {
+            CourseScores scores = scoresByCourse.get(courseId);
+            if (scores != null) {
+                scores.remove(studentId);
+            }
+        }
+    }
+
+    private synchronized void dropCourse(String courseId) {
+        scoresByCourse.remove(courseId);
+    }
+
+    private CourseScores getScores(String courseId) {
+        CourseScores scores = scoresByCourse.get(courseId);
+        if (scores == null) {
+            scores = new CourseScores();
+            ArrayList<Assignment> assignments = assignmentService.getAssignmentsForCourse(courseId);
+            ArrayList<String> studentIds = courseService.getStudentIdsInCourse(courseId);
+            double[] finalGrades = gradeService.calculateFinalGradesForCourse(studentIds, courseId, assignments);
+            for (int i = 0; i < studentIds.size(); i++) {
+                scores.put(studentIds.get(i), toBucket(finalGrades[i]));
+            }
+            scoresByCourse.put(courseId, scores);
+        }
+        return scores;
+    }
+
+    private double calculateScore(String studentId, String courseId) {
+        return gradeService.calculateFinalGradeForCourse(studentId, courseId,
+                                                         assignmentService.getAssignmentsForCourse(courseId));
+    }
+
+    private static int toBucket(double score) {
+        int bucket = (int) Math.round(score * BUCKETS_PER_PERCENT);
+        return Math.max(0, Math.min(BUCKET_COUNT - 1, bucket));
+    }
+
+    private static double toScore(int bucket) {
+        return bucket / (double) BUCKETS_PER_PERCENT;
+    }
+
+    // One course: the bucket of every enrolled student and how many students are in each bucket
+    private static class CourseScores {
+        FenwickTree counts = new FenwickTree(BUCKET_COUNT);
+        HashMap<String, Integer> bucketByStudent = new HashMap<>();
+
+        void put(String studentId, int bucket) {
+            Integer previous = bucketByStudent.put(studentId, bucket);
+            if (previous != null) {
+                counts.add(previous, -1);
+            }
+            counts.add(bucket, 1);
+        }
+
+        void remove(String studentId) {
+            Integer previous = bucketByStudent.remove(studentId);
+            if (previous != null) {
+                counts.add(previous, -1);
+            }
+        }
+    }
+}
@@ -1,44 +1,92 @@
 package com.blackboard.services;
 
 import com.blackboard.models.Course;
+import com.blackboard.models.GradingPolicy;
+import com.blackboard.models.Page;
 import com.blackboard.models.Student;
 import com.blackboard.models.Teacher;
+import com.blackboard.events.CourseChanged;
+import com.blackboard.events.CourseDeleted;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventBus;
+import com.blackboard.events.StudentEnrolled;
+import com.blackboard.monitoring.OperationMetrics;
+import com.blackboard.utils.StringPool;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 public class CourseService {
-    private ArrayList<Course> courses;
+    private VersionedStore<Course> courses;
+    private EventBus eventBus;
+    private HashMap<String, LinkedHashMap<String, Student>> rosters; // courseId -> studentId -> student
+    private HashMap<String, LinkedHashSet<String>> courseIdsByTeacher; // teacherId -> IDs of the courses they teach
+    // Each student's enrolled courses and each course's grading policy again, in versioned stores, so a
+    // snapshot sees them as they were (Student and Course objects are changed in place)
+    private VersionedStore<List<Course>> enrollmentsByStudent; // studentId -> courses, never empty
+    private VersionedStore<GradingPolicy> policiesByCourse;    // Only courses that have a policy
+    private PrefixIndex nameIndex;                                     // course name/ID prefixes
+    private SortedIndex<Course> listing;                               // courses sorted, for paged listings
     
     public CourseService() {
-        this.courses = new ArrayList<>();
+        this.courses = new VersionedStore<>();
+        this.rosters = new HashMap<>();
+        this.courseIdsByTeacher = new HashMap<>();
+        this.enrollmentsByStudent = new VersionedStore<>();
+        this.policiesByCourse = new VersionedStore<>();
+        this.nameIndex = new PrefixIndex();
+        this.listing = new SortedIndex<>();
     }
     
     // Creates a new course
     public Course createCourse(String courseId, String courseName, String description, 
                               String teacherId, int capacity) {
-        if (findCourseById(courseId) != null) {
-            return null; // Course already exists
+        Course course;
+        synchronized (this) {
+            if (findCourseById(courseId) != null) {
+                return null; // Course already exists
+            }
+            
+            course = new Course(StringPool.canonical(courseId), courseName, description,
+                                StringPool.canonical(teacherId), capacity);
+            courses.put(courseId, course);
+            indexTeacher(course.getTeacherId(), course.getCourseId());
+            indexCourse(course);
         }
-        
-        Course course = new Course(courseId, courseName, description, teacherId, capacity);
-        courses.add(course);
+        publish(new CourseChanged(course, CourseChanged.CREATED));
         return course;
     }
     
     // Finds a course by its ID
     public Course findCourseById(String courseId) {
-        for (Course course : courses) {
-            if (course.getCourseId().equals(courseId)) {
-                return course;
-            }
+        long start = System.nanoTime();
+        try {
+            return courses.get(courseId);
+        } finally {
+            OperationMetrics.FIND_COURSE.record(start);
         }
-        return null;
     }
     
-    // Returns all courses
+    // Returns all courses (a copy, so callers can't change the stored list)
     public ArrayList<Course> getAllCourses() {
+        return courses.toList();
+    }
+    
+    // Used by SnapshotService to take a point-in-time view of the courses
+    VersionedStore<Course> getCourseStore() {
         return courses;
     }
     
+    VersionedStore<List<Course>> getEnrollmentStore() {
+        return enrollmentsByStudent;
+    }
+    
+    VersionedStore<GradingPolicy> getPolicyStore() {
+        return policiesByCourse;
+    }
+    
     // Updates a course
     public boolean updateCourse(Course updatedCourseData) {
         // Find the course that already exists in our list
@@ -48,19 +96,49 @@ public class CourseService {
         if (courseInList != null) {
             courseInList.setCourseName(updatedCourseData.getCourseName());
             courseInList.setDescription(updatedCourseData.getDescription());
-            courseInList.setTeacherId(updatedCourseData.getTeacherId());
+            synchronized (this) {
+                unindexTeacher(courseInList.getTeacherId(), courseInList.getCourseId());
+                courseInList.setTeacherId(StringPool.canonical(updatedCourseData.getTeacherId()));
+                indexTeacher(courseInList.getTeacherId(), courseInList.getCourseId());
+            }
             courseInList.setCapacity(updatedCourseData.getCapacity());
+            courseInList.setGradingPolicy(updatedCourseData.getGradingPolicy());
+            recordPolicy(courseInList);
+            indexCourse(courseInList);
+            publish(new CourseChanged(courseInList, CourseChanged.UPDATED));
             return true; // Successfully updated
         }
         
         return false; // Course not found, couldn't update
     }
     
-    // Deletes a course
-    public boolean deleteCourse(String courseId) {
+    // Sets how the course's final grades are calculated (null for plain points)
+    public boolean setGradingPolicy(String courseId, GradingPolicy policy) {
         Course course = findCourseById(courseId);
+        if (course == null) {
+            return false;
+        }
+        course.setGradingPolicy(policy);
+        recordPolicy(course);
+        publish(new CourseChanged(course, CourseChanged.UPDATED));
+        return true;
+    }
+    
+    // Deletes a course and drops it from its students
+    // (CascadeDeleteService also removes its assignments and grades)
+    public boolean deleteCourse(String courseId) {
+        Course course;
+        synchronized (this) {
+            synchronized (VersionedStore.WRITE_LOCK) { // Snapshots see the course and its enrollments go together
+                course = courses.get(courseId);
+                if (course != null) {
+                    removeCourse(course);
+                }
+            }
+        }
+        unindexCourse(courseId);
         if (course != null) {
-            courses.remove(course);
+            publish(new CourseDeleted(courseId));
             return true;
         }
         return false;
@@ -70,7 +148,11 @@ public class CourseService {
     public boolean assignTeacherToCourse(String courseId, Teacher teacher) {
         Course course = findCourseById(courseId);
         if (course != null && teacher != null) {
-            course.setTeacherId(teacher.getUserId());
+            synchronized (this) {
+                unindexTeacher(course.getTeacherId(), courseId);
+                course.setTeacherId(teacher.getUserId());
+                indexTeacher(course.getTeacherId(), courseId);
+            }
             teacher.assignCourse(course);
             return true;
         }
@@ -78,42 +160,94 @@ public class CourseService {
     }
     
     // Enrolls a student in a course (checks capacity)
-    public boolean enrollStudentInCourse(String courseId, Student student, 
-                                        ArrayList<Student> allStudents) {
+    public boolean enrollStudentInCourse(String courseId, Student student) {
+        long start = System.nanoTime();
+        try {
+            synchronized (this) {
+                Course course = findCourseById(courseId);
+                if (course == null || student == null) {
+                    return false;
+                }
+                
+                LinkedHashMap<String, Student> roster = getOrCreateRoster(courseId);
+                
+                // Check if student is already enrolled
+                if (roster.containsKey(student.getUserId())) {
+                    return false; // Already enrolled
+                }
+                
+                // Check if course is full
+                if (roster.size() >= course.getCapacity()) {
+                    return false; // Course is full
+                }
+                
+                // Enroll the student
+                student.enrollInCourse(course);
+                roster.put(student.getUserId(), student);
+                recordEnrollments(student);
+            }
+            publish(new StudentEnrolled(student.getUserId(), courseId));
+            return true;
+        } finally {
+            OperationMetrics.ENROLL.record(start);
+        }
+    }
+    
+    // Restores an enrollment read from file (no capacity check, no event)
+    public synchronized void restoreEnrollment(String courseId, Student student) {
         Course course = findCourseById(courseId);
         if (course == null || student == null) {
-            return false;
+            return;
         }
         
-        // Check if student is already enrolled
-        if (student.getEnrolledCourses().contains(course)) {
-            return false; // Already enrolled
+        LinkedHashMap<String, Student> roster = getOrCreateRoster(courseId);
+        if (!roster.containsKey(student.getUserId())) {
+            student.enrollInCourse(course); // Does nothing if the student already has it
+            roster.put(student.getUserId(), student);
+            recordEnrollments(student);
         }
-        
-        // Check capacity by counting enrolled students
-        int enrolledCount = 0;
-        for (Student s : allStudents) {
-            if (s.getEnrolledCourses().contains(course)) {
-                enrolledCount++;
-            }
+    }
+    
+    // Gets the students enrolled in a course
+    public synchronized ArrayList<Student> getStudentsInCourse(String courseId) {
+        LinkedHashMap<String, Student> roster = rosters.get(courseId);
+        if (roster == null) {
+            return new ArrayList<>();
         }
-        
-        // Check if course is full
-        if (enrolledCount >= course.getCapacity()) {
-            return false; // Course is full
+        return new ArrayList<>(roster.values());
+    }
+    
+    // Gets the IDs of the students enrolled in a course
+    public synchronized ArrayList<String> getStudentIdsInCourse(String courseId) {
+        LinkedHashMap<String, Student> roster = rosters.get(courseId);
+        if (roster == null) {
+            return new ArrayList<>();
         }
-        
-        // Enroll the student
-        student.enrollInCourse(course);
-        return true;
+        return new ArrayList<>(roster.keySet());
+    }
+    
+    // Returns the number of students enrolled in a course
+    public synchronized int getEnrollmentCount(String courseId) {
+        LinkedHashMap<String, Student> roster = rosters.get(courseId);
+        return roster == null ? 0 : roster.size();
+    }
+    
+    private LinkedHashMap<String, Student> getOrCreateRoster(String courseId) {
+        LinkedHashMap<String, Student> roster = rosters.get(courseId);
+        if (roster == null) {
+            roster = new LinkedHashMap<>();
+            rosters.put(courseId, roster);
+        }
+        return roster;
     }
     
     // Gets all courses for a specific teacher
-    public ArrayList<Course> getCoursesForTeacher(String teacherId) {
+    public synchronized ArrayList<Course> getCoursesForTeacher(String teacherId) {
         ArrayList<Course> teacherCourses = new ArrayList<>();
-        for (Course course : courses) {
-            if (course.getTeacherId() != null && course.getTeacherId().equals(teacherId)) {
-                teacherCourses.add(course);
+        LinkedHashSet<String> courseIds = courseIdsByTeacher.get(teacherId);
+        if (courseIds != null) {
+            for (String courseId : courseIds) {
+                teacherCourses.add(courses.get(courseId));
             }
         }
         return teacherCourses;
@@ -122,15 +256,152 @@ public class CourseService {
     // Gets all courses for a specific student
     public ArrayList<Course> getCoursesForStudent(Student student) {
         if (student != null) {
-            return student.getEnrolledCourses();
+            return new ArrayList<>(student.getEnrolledCourses());
         }
         return new ArrayList<>();
     }
     
     // Adds a course (used by DataPersistenceService when loading data)
-    public void addCourse(Course course) {
+    public synchronized void addCourse(Course course) {
         if (course != null && findCourseById(course.getCourseId()) == null) {
-            courses.add(course);
+            courses.put(course.getCourseId(), course);
+            recordPolicy(course);
+            indexTeacher(course.getTeacherId(), course.getCourseId());
+            indexCourse(course);
+        }
+    }
+    
+    // Finds up to maxResults courses whose name (any word of it) or ID starts with the prefix
+    public ArrayList<Course> findCoursesByPrefix(String prefix, int maxResults) {
+        long start = System.nanoTime();
+        try {
+            ArrayList<Course> matches = new ArrayList<>();
+            for (String courseId : nameIndex.findByPrefix(prefix, maxResults)) {
+                Course course = findCourseById(courseId);
+                if (course != null) {
+                    matches.add(course);
+                }
+            }
+            return matches;
+        } finally {
+            OperationMetrics.FIND_COURSES_BY_PREFIX.record(start);
+        }
+    }
+    
+    // Returns one page of courses, sorted by SortedIndex.SORT_BY_ID or SORT_BY_NAME
+    // Pass the previous page's next cursor to continue (null to start)
+    public Page<Course> getCoursesPage(String sortBy, String cursor, int pageSize) {
+        return listing.getPage(sortBy, cursor, pageSize);
+    }
+    
+    // Removes a course and its roster and drops it from every enrolled student; returns those students.
+    // Caller holds the lock (CascadeDeleteService also holds VersionedStore.WRITE_LOCK) and calls
+    // unindexCourse afterwards.
+    ArrayList<Student> removeCourse(Course course) {
+        courses.remove(course.getCourseId());
+        policiesByCourse.remove(course.getCourseId());
+        unindexTeacher(course.getTeacherId(), course.getCourseId());
+        LinkedHashMap<String, Student> roster = rosters.remove(course.getCourseId());
+        if (roster == null) {
+            return new ArrayList<>();
+        }
+        for (Student student : roster.values()) {
+            student.dropCourse(course);
+            recordEnrollments(student);
+        }
+        return new ArrayList<>(roster.values());
+    }
+    
+    // Takes a student off the roster of every course they're enrolled in; returns those courses
+    // (caller holds the lock)
+    ArrayList<Course> removeEnrollments(Student student) {
+        ArrayList<Course> enrolled = new ArrayList<>(student.getEnrolledCourses());
+        for (Course course : enrolled) {
+            LinkedHashMap<String, Student> roster = rosters.get(course.getCourseId());
+            if (roster != null) {
+                roster.remove(student.getUserId());
+            }
+            student.dropCourse(course);
+        }
+        recordEnrollments(student);
+        return enrolled;
+    }
+    
+    // Leaves every course of a teacher without one; returns those courses (caller holds the lock)
+    ArrayList<Course> removeTeacher(String teacherId) {
+        ArrayList<Course> taught = new ArrayList<>();
+        LinkedHashSet<String> courseIds = courseIdsByTeacher.remove(teacherId);
+        if (courseIds != null) {
+            for (String courseId : courseIds) {
+                Course course = courses.get(courseId);
+                course.setTeacherId(null);
+                taught.add(course);
+            }
+        }
+        return taught;
+    }
+    
+    // Takes a removed course out of the search indexes (outside the lock)
+    void unindexCourse(String courseId) {
+        nameIndex.remove(courseId);
+        listing.remove(courseId);
+    }
+    
+    // Copies the student's current courses into the enrollment store (the list is never changed
+    // afterwards: Student replaces its array on every enroll or drop)
+    private void recordEnrollments(Student student) {
+        List<Course> enrolled = student.getEnrolledCourses();
+        if (enrolled.isEmpty()) {
+            enrollmentsByStudent.remove(student.getUserId());
+        } else {
+            enrollmentsByStudent.put(student.getUserId(), enrolled);
+        }
+    }
+    
+    private void recordPolicy(Course course) {
+        if (course.getGradingPolicy() == null) {
+            policiesByCourse.remove(course.getCourseId());
+        } else {
+            policiesByCourse.put(course.getCourseId(), course.getGradingPolicy());
+        }
+    }
+    
+    // Keeps the teacher -> courses index in step (caller holds the lock)
+    private void indexTeacher(String teacherId, String courseId) {
+        if (teacherId == null) {
+            return;
+        }
+        LinkedHashSet<String> courseIds = courseIdsByTeacher.get(teacherId);
+        if (courseIds == null) {
+            courseIds = new LinkedHashSet<>();
+            courseIdsByTeacher.put(teacherId, courseIds);
+        }
+        courseIds.add(courseId);
+    }
+    
+    private void unindexTeacher(String teacherId, String courseId) {
+        LinkedHashSet<String> courseIds = teacherId == null ? null : courseIdsByTeacher.get(teacherId);
+        if (courseIds != null) {
+            courseIds.remove(courseId);
+            if (courseIds.isEmpty()) {
+                courseIdsByTeacher.remove(teacherId);
+            }
+        }
+    }
+    
+    private void indexCourse(Course course) {
+        nameIndex.put(course.getCourseId(), course.getCourseName(), course.getCourseId());
+        listing.put(course.getCourseId(), course.getCourseName(), course);
+    }
+    
+    // Sets the bus that this service publishes its changes to
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+    
+    private void publish(DomainEvent event) {
+        if (eventBus != null) {
+            eventBus.publish(event);
         }
     }
 }
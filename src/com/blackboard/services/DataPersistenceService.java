@@ -1,33 +1,62 @@
 package com.blackboard.services;
 
 import com.blackboard.models.*;
+import com.blackboard.monitoring.OperationMetrics;
+import com.blackboard.monitoring.PersistencePhaseEvent;
+import com.blackboard.utils.StringPool;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Map;
 
 public class DataPersistenceService {
-    private static final String DATA_DIR = "data/";
-    private static final String USERS_FILE = DATA_DIR + "users.txt";
-    private static final String COURSES_FILE = DATA_DIR + "courses.txt";
-    private static final String ASSIGNMENTS_FILE = DATA_DIR + "assignments.txt";
-    private static final String GRADES_FILE = DATA_DIR + "grades.txt";
-    private static final String ENROLLMENTS_FILE = DATA_DIR + "enrollments.txt";
+    public static final String DEFAULT_DATA_DIR = "data/";
+    public static final String USERS_FILE = "users.txt";
+    public static final String COURSES_FILE = "courses.txt";
+    public static final String ASSIGNMENTS_FILE = "assignments.txt";
+    public static final String GRADES_FILE = "grades.txt";
+    public static final String ENROLLMENTS_FILE = "enrollments.txt";
+    public static final String IDS_FILE = "ids.txt";
     
     private AuthenticationService authService;
     private CourseService courseService;
     private AssignmentService assignmentService;
     private GradeService gradeService;
+    private SnapshotService snapshotService;
+    private IdAllocator idAllocator;
+    private String dataDir;
+    private ArrayList<IntegrityViolation> rejectedEnrollments; // Rows of enrollments.txt that weren't loaded
     
     public DataPersistenceService(AuthenticationService authService, 
                                  CourseService courseService,
                                  AssignmentService assignmentService,
-                                 GradeService gradeService) {
+                                 GradeService gradeService,
+                                 IdAllocator idAllocator) {
+        this(authService, courseService, assignmentService, gradeService, idAllocator, DEFAULT_DATA_DIR);
+    }
+    
+    // Reads and writes the data files in another directory (used by the benchmarks and tools)
+    public DataPersistenceService(AuthenticationService authService, 
+                                 CourseService courseService,
+                                 AssignmentService assignmentService,
+                                 GradeService gradeService,
+                                 IdAllocator idAllocator,
+                                 String dataDir) {
+        this.dataDir = dataDir;
         this.authService = authService;
         this.courseService = courseService;
         this.assignmentService = assignmentService;
         this.gradeService = gradeService;
+        this.rejectedEnrollments = new ArrayList<>();
+        this.snapshotService = new SnapshotService(authService, courseService, assignmentService, gradeService);
+        this.idAllocator = idAllocator;
+        idAllocator.setReservationWriter(this::saveIds); // Every reserved block is on disk before it is used
     }
     
     // Loads all data from files
     public void loadAllData() {
+        loadIds();
         loadUsers();
         loadCourses();
         loadEnrollments(); // Must load after users and courses
@@ -36,46 +65,95 @@ public class DataPersistenceService {
     }
     
     // Saves all data to files
-    public void saveAllData() {
-        saveUsers();
-        saveCourses();
-        saveEnrollments(); // Save enrollment relationships
-        saveAssignments();
-        saveGrades();
+    // Everything is written from one snapshot, so the files agree with each other even if
+    // grades are being entered while the save runs. Each file is written to a temporary file
+    // first, and only when all of them were written are they renamed over the old ones, so a save
+    // that fails while writing leaves the previous files as they were. Each rename is atomic, but
+    // the five together are not: if one of them fails, the files before it are already new.
+    // Saves run one at a time, since they all use the same temporary files.
+    public synchronized boolean saveAllData() {
+        boolean written;
+        try (StateSnapshot snapshot = snapshotService.openSnapshot()) {
+            written = saveUsers(snapshot)
+                    && saveCourses(snapshot)
+                    && saveEnrollments(snapshot) // Save enrollment relationships
+                    && saveAssignments(snapshot)
+                    && saveGrades(snapshot);
+        }
+        
+        String[] files = {USERS_FILE, COURSES_FILE, ENROLLMENTS_FILE, ASSIGNMENTS_FILE, GRADES_FILE};
+        if (!written) {
+            for (String file : files) {
+                tempFile(file).delete();
+            }
+            System.err.println("Data was not saved; the previous files were kept.");
+            return false;
+        }
+        try {
+            for (String file : files) {
+                moveIntoPlace(file);
+            }
+            rejectedEnrollments.clear(); // Not in the new enrollments.txt
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving data: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Enrollment rows that were in the file but not loaded because their student or course
+    // doesn't exist (until the next save, which leaves them out)
+    public synchronized ArrayList<IntegrityViolation> getRejectedEnrollments() {
+        return new ArrayList<>(rejectedEnrollments);
+    }
+    
+    // Where a save writes a data file before saveAllData moves it into place
+    private File tempFile(String fileName) {
+        return new File(dataDir, fileName + ".tmp");
+    }
+    
+    // Renames a written temporary file over the data file in one step
+    private void moveIntoPlace(String fileName) throws IOException {
+        Files.move(tempFile(fileName).toPath(), new File(dataDir, fileName).toPath(),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
     
     // Loads users from file
     private void loadUsers() {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("load", USERS_FILE);
         try {
-            File file = new File(USERS_FILE);
+            File file = new File(dataDir, USERS_FILE);
             if (!file.exists()) {
                 return; // File doesn't exist yet, nothing to load
             }
             
+            ArrayList<User> loadedUsers = new ArrayList<>();
             BufferedReader reader = new BufferedReader(new FileReader(file));
             String line = reader.readLine();
             while (line != null) {
                 if (!line.trim().isEmpty()) {
                     String[] parts = line.split(",");
                     if (parts.length >= 4) {
-                        String userId = parts[0];
+                        String userId = StringPool.canonical(parts[0]);
                         String password = parts[1];
                         String name = parts[2];
                         String role = parts[3];
                         
                         User user = null;
                         if (role.equals("STUDENT") && parts.length >= 5) {
-                            String major = parts[4];
+                            String major = StringPool.canonical(parts[4]);
                             user = new Student(userId, password, name, major);
                         } else if (role.equals("TEACHER") && parts.length >= 5) {
-                            String department = parts[4];
+                            String department = StringPool.canonical(parts[4]);
                             user = new Teacher(userId, password, name, department);
                         } else if (role.equals("ADMIN")) {
                             user = new Admin(userId, password, name);
                         }
                         
                         if (user != null) {
-                            authService.addUser(user);
+                            loadedUsers.add(user);
+                            phase.rows++;
                         }
                     }
                 }
@@ -83,22 +161,44 @@ public class DataPersistenceService {
             }
             
             reader.close();
+            
+            // Rows written before password hashing hold plaintext; hash them and rewrite the file
+            int upgraded = authService.addUsersFromStorage(loadedUsers);
+            if (upgraded > 0) {
+                synchronized (this) { // Same temporary file as saveAllData
+                    boolean written;
+                    try (StateSnapshot snapshot = snapshotService.openSnapshot()) {
+                        written = saveUsers(snapshot); // Only users are loaded at this point
+                    }
+                    if (written) {
+                        moveIntoPlace(USERS_FILE); // Plaintext must not stay on disk until the next full save
+                        System.out.println("Upgraded " + upgraded + " plaintext password(s) to hashed storage.");
+                    } else {
+                        tempFile(USERS_FILE).delete();
+                    }
+                }
+            }
         } catch (IOException e) {
             System.err.println("Error loading users: " + e.getMessage());
+        } finally {
+            OperationMetrics.LOAD_USERS.record(start);
+            phase.finish(new File(dataDir, USERS_FILE));
         }
     }
     
     // Saves users to file
-    private void saveUsers() {
+    private boolean saveUsers(StateSnapshot snapshot) {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("save", USERS_FILE);
         try {
-            File dir = new File(DATA_DIR);
+            File dir = new File(dataDir);
             if (!dir.exists()) {
                 dir.mkdirs();
             }
             
-            PrintWriter writer = new PrintWriter(new FileWriter(USERS_FILE));
+            PrintWriter writer = new PrintWriter(new FileWriter(tempFile(USERS_FILE)));
             
-            for (User user : authService.getAllUsers()) {
+            for (User user : snapshot.getUsers()) {
                 String line = user.getUserId() + "," + user.getPassword() + "," + 
                              user.getName() + "," + user.getRole();
                 
@@ -111,18 +211,30 @@ public class DataPersistenceService {
                 }
                 
                 writer.println(line);
+                
+                phase.rows++;
             }
             
             writer.close();
+            if (writer.checkError()) {
+                throw new IOException("write failed");
+            }
+            return true;
         } catch (IOException e) {
             System.err.println("Error saving users: " + e.getMessage());
+            return false;
+        } finally {
+            OperationMetrics.SAVE_USERS.record(start);
+            phase.finish(tempFile(USERS_FILE));
         }
     }
     
     // Loads courses from file
     private void loadCourses() {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("load", COURSES_FILE);
         try {
-            File file = new File(COURSES_FILE);
+            File file = new File(dataDir, COURSES_FILE);
             if (!file.exists()) {
                 return;
             }
@@ -134,14 +246,22 @@ public class DataPersistenceService {
                 if (!line.trim().isEmpty()) {
                     String[] parts = line.split(",");
                     if (parts.length >= 5) {
-                        String courseId = parts[0];
+                        String courseId = StringPool.canonical(parts[0]);
                         String courseName = parts[1];
                         String description = parts[2];
-                        String teacherId = parts[3];
+                        String teacherId = parts[3].isEmpty() ? null : StringPool.canonical(parts[3]); // Empty: no teacher
                         int capacity = Integer.parseInt(parts[4]);
                         
                         Course course = new Course(courseId, courseName, description, teacherId, capacity);
+                        if (parts.length >= 6) {
+                            // Optional grading policy column
+                            course.setGradingPolicy(GradingPolicy.parse(parts[5]));
+                            if (course.getGradingPolicy() == null) {
+                                System.err.println("Ignoring invalid grading policy for course " + courseId);
+                            }
+                        }
                         courseService.addCourse(course);
+                        phase.rows++;
                     }
                 }
                 line = reader.readLine();
@@ -150,36 +270,58 @@ public class DataPersistenceService {
             reader.close();
         } catch (IOException e) {
             System.err.println("Error loading courses: " + e.getMessage());
+        } finally {
+            OperationMetrics.LOAD_COURSES.record(start);
+            phase.finish(new File(dataDir, COURSES_FILE));
         }
     }
     
     // Saves courses to file
-    private void saveCourses() {
+    private boolean saveCourses(StateSnapshot snapshot) {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("save", COURSES_FILE);
         try {
-            File dir = new File(DATA_DIR);
+            File dir = new File(dataDir);
             if (!dir.exists()) {
                 dir.mkdirs();
             }
             
-            PrintWriter writer = new PrintWriter(new FileWriter(COURSES_FILE));
+            PrintWriter writer = new PrintWriter(new FileWriter(tempFile(COURSES_FILE)));
             
-            for (Course course : courseService.getAllCourses()) {
+            for (Course course : snapshot.getCourses()) {
                 String line = course.getCourseId() + "," + course.getCourseName() + "," + 
-                             course.getDescription() + "," + course.getTeacherId() + "," + 
+                             course.getDescription() + "," + (course.getTeacherId() != null ? course.getTeacherId() : "") + "," + 
                              course.getCapacity();
+                GradingPolicy policy = snapshot.getGradingPolicy(course.getCourseId());
+                if (policy != null) {
+                    line += "," + policy.format();
+                }
                 writer.println(line);
+                phase.rows++;
             }
             
             writer.close();
+            if (writer.checkError()) {
+                throw new IOException("write failed");
+            }
+            return true;
         } catch (IOException e) {
             System.err.println("Error saving courses: " + e.getMessage());
+            return false;
+        } finally {
+            OperationMetrics.SAVE_COURSES.record(start);
+            phase.finish(tempFile(COURSES_FILE));
         }
     }
     
     // Loads enrollment relationships from file
+    // Rows whose student or course doesn't exist are left out and kept for the integrity check
     private void loadEnrollments() {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("load", ENROLLMENTS_FILE);
+        rejectedEnrollments.clear();
         try {
-            File file = new File(ENROLLMENTS_FILE);
+            File file = new File(dataDir, ENROLLMENTS_FILE);
             if (!file.exists()) {
                 return;
             }
@@ -195,12 +337,15 @@ public class DataPersistenceService {
                         String courseId = parts[1];
                         
                         User user = authService.findUserById(studentId);
-                        if (user instanceof Student) {
-                            Student student = (Student) user;
-                            Course course = courseService.findCourseById(courseId);
-                            if (course != null && !student.getEnrolledCourses().contains(course)) {
-                                student.enrollInCourse(course);
-                            }
+                        if (!(user instanceof Student)) {
+                            rejectedEnrollments.add(new IntegrityViolation(IntegrityViolation.ENROLLMENT_WITHOUT_STUDENT,
+                                                                           studentId + "," + courseId, studentId));
+                        } else if (courseService.findCourseById(courseId) == null) {
+                            rejectedEnrollments.add(new IntegrityViolation(IntegrityViolation.ENROLLMENT_WITHOUT_COURSE,
+                                                                           studentId + "," + courseId, courseId));
+                        } else {
+                            courseService.restoreEnrollment(courseId, (Student) user);
+                            phase.rows++;
                         }
                     }
                 }
@@ -210,38 +355,54 @@ public class DataPersistenceService {
             reader.close();
         } catch (IOException e) {
             System.err.println("Error loading enrollments: " + e.getMessage());
+        } finally {
+            OperationMetrics.LOAD_ENROLLMENTS.record(start);
+            phase.finish(new File(dataDir, ENROLLMENTS_FILE));
         }
     }
     
     // Saves enrollment relationships to file
-    private void saveEnrollments() {
+    private boolean saveEnrollments(StateSnapshot snapshot) {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("save", ENROLLMENTS_FILE);
         try {
-            File dir = new File(DATA_DIR);
+            File dir = new File(dataDir);
             if (!dir.exists()) {
                 dir.mkdirs();
             }
             
-            PrintWriter writer = new PrintWriter(new FileWriter(ENROLLMENTS_FILE));
+            PrintWriter writer = new PrintWriter(new FileWriter(tempFile(ENROLLMENTS_FILE)));
             
-            for (User user : authService.getAllUsers()) {
+            for (User user : snapshot.getUsers()) {
                 if (user instanceof Student) {
                     Student student = (Student) user;
-                    for (Course course : student.getEnrolledCourses()) {
+                    for (Course course : snapshot.getEnrolledCourses(student.getUserId())) {
                         writer.println(student.getUserId() + "," + course.getCourseId());
+                        phase.rows++;
                     }
                 }
             }
             
             writer.close();
+            if (writer.checkError()) {
+                throw new IOException("write failed");
+            }
+            return true;
         } catch (IOException e) {
             System.err.println("Error saving enrollments: " + e.getMessage());
+            return false;
+        } finally {
+            OperationMetrics.SAVE_ENROLLMENTS.record(start);
+            phase.finish(tempFile(ENROLLMENTS_FILE));
         }
     }
     
     // Loads assignments from file
     private void loadAssignments() {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("load", ASSIGNMENTS_FILE);
         try {
-            File file = new File(ASSIGNMENTS_FILE);
+            File file = new File(dataDir, ASSIGNMENTS_FILE);
             if (!file.exists()) {
                 return;
             }
@@ -253,8 +414,8 @@ public class DataPersistenceService {
                 if (!line.trim().isEmpty()) {
                     String[] parts = line.split(",");
                     if (parts.length >= 6) {
-                        String assignmentId = parts[0];
-                        String courseId = parts[1];
+                        String assignmentId = StringPool.canonical(parts[0]);
+                        String courseId = StringPool.canonical(parts[1]);
                         String title = parts[2];
                         String description = parts[3];
                         String dueDate = parts[4];
@@ -262,7 +423,11 @@ public class DataPersistenceService {
                         
                         Assignment assignment = new Assignment(assignmentId, courseId, title, 
                                                              description, dueDate, maxPoints);
+                        if (parts.length >= 7) {
+                            assignment.setCategory(StringPool.canonical(GradingPolicy.normalizeName(parts[6])));
+                        }
                         assignmentService.addAssignment(assignment);
+                        phase.rows++;
                     }
                 }
                 line = reader.readLine();
@@ -271,36 +436,55 @@ public class DataPersistenceService {
             reader.close();
         } catch (IOException e) {
             System.err.println("Error loading assignments: " + e.getMessage());
+        } finally {
+            OperationMetrics.LOAD_ASSIGNMENTS.record(start);
+            phase.finish(new File(dataDir, ASSIGNMENTS_FILE));
         }
     }
     
     // Saves assignments to file
-    private void saveAssignments() {
+    private boolean saveAssignments(StateSnapshot snapshot) {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("save", ASSIGNMENTS_FILE);
         try {
-            File dir = new File(DATA_DIR);
+            File dir = new File(dataDir);
             if (!dir.exists()) {
                 dir.mkdirs();
             }
             
-            PrintWriter writer = new PrintWriter(new FileWriter(ASSIGNMENTS_FILE));
+            PrintWriter writer = new PrintWriter(new FileWriter(tempFile(ASSIGNMENTS_FILE)));
             
-            for (Assignment assignment : assignmentService.getAllAssignments()) {
+            for (Assignment assignment : snapshot.getAssignments()) {
                 String line = assignment.getAssignmentId() + "," + assignment.getCourseId() + "," + 
                              assignment.getTitle() + "," + assignment.getDescription() + "," + 
                              assignment.getDueDate() + "," + assignment.getMaxPoints();
+                if (assignment.getCategory() != null) {
+                    line += "," + assignment.getCategory();
+                }
                 writer.println(line);
+                phase.rows++;
             }
             
             writer.close();
+            if (writer.checkError()) {
+                throw new IOException("write failed");
+            }
+            return true;
         } catch (IOException e) {
             System.err.println("Error saving assignments: " + e.getMessage());
+            return false;
+        } finally {
+            OperationMetrics.SAVE_ASSIGNMENTS.record(start);
+            phase.finish(tempFile(ASSIGNMENTS_FILE));
         }
     }
     
     // Loads grades from file
     private void loadGrades() {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("load", GRADES_FILE);
         try {
-            File file = new File(GRADES_FILE);
+            File file = new File(dataDir, GRADES_FILE);
             if (!file.exists()) {
                 return;
             }
@@ -313,12 +497,22 @@ public class DataPersistenceService {
                     String[] parts = line.split(",");
                     if (parts.length >= 4) {
                         String gradeId = parts[0];
-                        String studentId = parts[1];
-                        String assignmentId = parts[2];
+                        // The same String objects as the student's and assignment's own IDs
+                        String studentId = StringPool.canonical(parts[1]);
+                        String assignmentId = StringPool.canonical(parts[2]);
                         double points = Double.parseDouble(parts[3]);
-                        
-                        Grade grade = new Grade(gradeId, studentId, assignmentId, points);
-                        gradeService.addGrade(grade);
+                        if (!(points >= 0) || Double.isInfinite(points)) {
+                            // Negative or NaN points would break every grade calculation that uses them
+                            System.err.println("Ignoring grade " + gradeId + " with invalid points: " + parts[3]);
+                        } else {
+                            Grade grade = new Grade(gradeId, studentId, assignmentId, points);
+                            if (gradeService.addGrade(grade)) {
+                                phase.rows++;
+                            } else {
+                                System.err.println("Ignoring grade " + gradeId + ": its ID or its student and "
+                                                   + "assignment already have a grade");
+                            }
+                        }
                     }
                 }
                 line = reader.readLine();
@@ -327,29 +521,112 @@ public class DataPersistenceService {
             reader.close();
         } catch (IOException e) {
             System.err.println("Error loading grades: " + e.getMessage());
+        } finally {
+            OperationMetrics.LOAD_GRADES.record(start);
+            phase.finish(new File(dataDir, GRADES_FILE));
         }
     }
     
     // Saves grades to file
-    private void saveGrades() {
+    private boolean saveGrades(StateSnapshot snapshot) {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("save", GRADES_FILE);
         try {
-            File dir = new File(DATA_DIR);
+            File dir = new File(dataDir);
             if (!dir.exists()) {
                 dir.mkdirs();
             }
             
-            PrintWriter writer = new PrintWriter(new FileWriter(GRADES_FILE));
+            PrintWriter writer = new PrintWriter(new FileWriter(tempFile(GRADES_FILE)));
             
-            for (Grade grade : gradeService.getAllGrades()) {
+            for (Grade grade : snapshot.getGrades()) {
                 String line = grade.getGradeId() + "," + grade.getStudentId() + "," + 
                              grade.getAssignmentId() + "," + grade.getPoints();
                 writer.println(line);
+                phase.rows++;
             }
             
             writer.close();
+            if (writer.checkError()) {
+                throw new IOException("write failed");
+            }
+            return true;
         } catch (IOException e) {
             System.err.println("Error saving grades: " + e.getMessage());
+            return false;
+        } finally {
+            OperationMetrics.SAVE_GRADES.record(start);
+            phase.finish(tempFile(GRADES_FILE));
+        }
+    }
+    
+    // Loads the ID high-water marks, so IDs handed out before a restart are never reused
+    private void loadIds() {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("load", IDS_FILE);
+        try {
+            File file = new File(dataDir, IDS_FILE);
+            if (!file.exists()) {
+                return;
+            }
+            
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            String line = reader.readLine();
+            
+            while (line != null) {
+                if (!line.trim().isEmpty()) {
+                    String[] parts = line.split(",");
+                    if (parts.length >= 2) {
+                        try {
+                            idAllocator.observe(parts[0], Long.parseLong(parts[1].trim()));
+                            phase.rows++;
+                        } catch (NumberFormatException e) {
+                            System.err.println("Skipping bad ID line: " + line);
+                        }
+                    }
+                }
+                line = reader.readLine();
+            }
+            
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Error loading IDs: " + e.getMessage());
+        } finally {
+            OperationMetrics.LOAD_IDS.record(start);
+            phase.finish(new File(dataDir, IDS_FILE));
+        }
+    }
+    
+    // Saves the ID high-water marks (called by IdAllocator each time it reserves a block)
+    // Written to a temporary file first and then renamed, so a crash never leaves a half-written file
+    private void saveIds(Map<String, Long> highWaterMarks) {
+        long start = System.nanoTime();
+        PersistencePhaseEvent phase = new PersistencePhaseEvent("save", IDS_FILE);
+        try {
+            File dir = new File(dataDir);
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+            
+            File temp = new File(dataDir, IDS_FILE + ".tmp");
+            try (PrintWriter writer = new PrintWriter(new FileWriter(temp))) {
+                for (Map.Entry<String, Long> entry : highWaterMarks.entrySet()) {
+                    writer.println(entry.getKey() + "," + entry.getValue());
+                    phase.rows++;
+                }
+                if (writer.checkError()) { // Flushes, so a failed write shows up here
+                    throw new IOException("write failed");
+                }
+            }
+            
+            Files.move(temp.toPath(), new File(dataDir, IDS_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Handing out IDs that aren't recorded could reuse them after a restart
+            throw new IllegalStateException("Could not save ID reservation: " + e.getMessage(), e);
+        } finally {
+            OperationMetrics.SAVE_IDS.record(start);
+            phase.finish(new File(dataDir, IDS_FILE));
         }
     }
 }
-
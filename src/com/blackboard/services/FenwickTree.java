@@ -0,0 +1,60 @@
+package com.blackboard.services;
+
+// Counts per bucket (0 .. size-1) with O(log n) updates, prefix sums and "find the k-th item".
+// Each slot i holds the sum of the 2^j buckets ending at i, where 2^j is the lowest set bit of i
+// (slots are 1-based internally), so a prefix sum adds up at most log n slots.
+public class FenwickTree {
+    private int[] tree;
+    private int total;
+
+    public FenwickTree(int size) {
+        this.tree = new int[size + 1];
+    }
+
+    public int size() {
+        return tree.length - 1;
+    }
+
+    // Adds delta to the count of one bucket
+    public void add(int bucket, int delta) {
+        for (int i = bucket + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+        total += delta;
+    }
+
+    // Sum of the counts of buckets 0 .. bucket (0 if bucket < 0)
+    public int prefixSum(int bucket) {
+        int sum = 0;
+        for (int i = Math.min(bucket + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Count of one bucket
+    public int count(int bucket) {
+        return prefixSum(bucket) - prefixSum(bucket - 1);
+    }
+
+    // Sum of every bucket
+    public int total() {
+        return total;
+    }
+
+    // Smallest bucket whose prefix sum reaches k (1-based, so k = 1 is the lowest item)
+    // Walks down from the highest power of two instead of binary searching over prefixSum
+    public int findKth(int k) {
+        int position = 0;
+        int step = Integer.highestOneBit(tree.length - 1);
+        while (step > 0) {
+            int next = position + step;
+            if (next < tree.length && tree[next] < k) {
+                position = next;
+                k -= tree[next];
+            }
+            step >>= 1;
+        }
+        return position; // Slot position + 1, i.e. bucket position
+    }
+}
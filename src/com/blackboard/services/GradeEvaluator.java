@@ -0,0 +1,140 @@
+package com.blackboard.services;
+
+import com.blackboard.models.Assignment;
+import java.util.List;
+
+// A course's grading policy compiled against one list of its assignments (see GradingPolicyEngine).
+// Everything that doesn't depend on the student - which category each assignment counts in, the
+// points possible per category, the weights - is worked out once, so evaluate() is a pass over a
+// double[] of one student's points with no lookups or string comparisons.
+public class GradeEvaluator {
+    private Assignment[] assignments; // The assignments this was compiled for, in order
+    private double[] maxPoints;
+    private int[] categoryOf;       // Category of each assignment, -1 if it doesn't count
+    private double[] weights;       // Per category
+    private double[] possible;      // Points possible per category when nothing is dropped
+    private int[] dropLowest;       // Per category
+    private double[] caps;          // Highest ratio each category can count for (1.0 is 100%)
+    private int[][] members;        // Assignment positions of each category that drops scores (else null)
+
+    GradeEvaluator(Assignment[] assignments, double[] maxPoints, int[] categoryOf, double[] weights,
+                   int[] dropLowest, double[] caps) {
+        this.assignments = assignments;
+        this.maxPoints = maxPoints;
+        this.categoryOf = categoryOf;
+        this.weights = weights;
+        this.dropLowest = dropLowest;
+        this.caps = caps;
+        this.possible = new double[weights.length];
+        this.members = new int[weights.length][];
+
+        int[] memberCounts = new int[weights.length];
+        for (int i = 0; i < categoryOf.length; i++) {
+            if (categoryOf[i] >= 0) {
+                possible[categoryOf[i]] += maxPoints[i];
+                memberCounts[categoryOf[i]]++;
+            }
+        }
+        for (int c = 0; c < weights.length; c++) {
+            // Always keep at least one score, so a category never disappears by dropping
+            if (dropLowest[c] > 0 && memberCounts[c] > 1) {
+                members[c] = new int[memberCounts[c]];
+                this.dropLowest[c] = Math.min(dropLowest[c], memberCounts[c] - 1);
+            }
+        }
+        int[] filled = new int[weights.length];
+        for (int i = 0; i < categoryOf.length; i++) {
+            int c = categoryOf[i];
+            if (c >= 0 && members[c] != null) {
+                members[c][filled[c]++] = i;
+            }
+        }
+    }
+
+    // Length of the points array evaluate() expects
+    public int getAssignmentCount() {
+        return assignments.length;
+    }
+
+    // True if this was compiled for exactly these assignments, in this order.
+    // Compares the Assignment objects, not their IDs: an update stores a new object, so an
+    // evaluator compiled from a list read before the update never matches the list after it.
+    public boolean isCompiledFor(List<Assignment> courseAssignments) {
+        if (courseAssignments.size() != assignments.length) {
+            return false;
+        }
+        for (int i = 0; i < assignments.length; i++) {
+            if (assignments[i] != courseAssignments.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Final grade from the points earned on each assignment, in the compiled order (0 for ungraded
+    // work). Categories without points possible are left out of the average. Each category's ratio
+    // is kept between 0 and its cap, so stored points above the max (e.g. after the max was lowered)
+    // can't push a grade over 100% unless the cap allows extra credit.
+    public double evaluate(double[] points) {
+        return evaluate(points, 0);
+    }
+
+    // Same, with the points starting at points[offset] (one array can hold several courses)
+    public double evaluate(double[] points, int offset) {
+        double[] earned = new double[weights.length];
+        for (int i = 0; i < categoryOf.length; i++) {
+            int c = categoryOf[i];
+            if (c >= 0) {
+                earned[c] += points[offset + i];
+            }
+        }
+
+        double weightedSum = 0.0;
+        double weightUsed = 0.0;
+        for (int c = 0; c < weights.length; c++) {
+            double categoryEarned = earned[c];
+            double categoryPossible = possible[c];
+            if (members[c] != null) {
+                double[] dropped = dropLowestScores(c, points, offset);
+                categoryEarned -= dropped[0];
+                categoryPossible -= dropped[1];
+            }
+            if (categoryPossible > 0) {
+                double ratio = Math.max(0.0, Math.min(caps[c], categoryEarned / categoryPossible));
+                weightedSum += weights[c] * ratio;
+                weightUsed += weights[c];
+            }
+        }
+
+        if (weightUsed == 0) {
+            return 0.0;
+        }
+        return (weightedSum / weightUsed) * 100.0;
+    }
+
+    // Picks the category's lowest scores by percentage and returns {points earned, points possible}
+    // of the dropped ones. Assignments worth 0 points are never dropped.
+    private double[] dropLowestScores(int c, double[] points, int offset) {
+        int[] positions = members[c];
+        boolean[] dropped = new boolean[positions.length];
+        double[] removed = new double[2];
+        for (int d = 0; d < dropLowest[c]; d++) {
+            int lowest = -1;
+            double lowestRatio = Double.POSITIVE_INFINITY;
+            for (int m = 0; m < positions.length; m++) {
+                int i = positions[m];
+                if (!dropped[m] && maxPoints[i] > 0 && points[offset + i] / maxPoints[i] < lowestRatio) {
+                    lowest = m;
+                    lowestRatio = points[offset + i] / maxPoints[i];
+                }
+            }
+            if (lowest < 0) {
+                break;
+            }
+            dropped[lowest] = true;
+            removed[0] += points[offset + positions[lowest]];
+            removed[1] += maxPoints[positions[lowest]];
+        }
+        return removed;
+    }
+}
@@ -2,134 +2,380 @@ package com.blackboard.services;
 
 import com.blackboard.models.Grade;
 import com.blackboard.models.Assignment;
+import com.blackboard.models.GradeBatchResult;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventBus;
+import com.blackboard.events.GradeDeleted;
+import com.blackboard.events.GradeRecorded;
+import com.blackboard.monitoring.OperationMetrics;
+import com.blackboard.utils.StringPool;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class GradeService {
-    private ArrayList<Grade> grades;
+    private VersionedStore<Grade> grades;
+    private EventBus eventBus;
+    private GradingPolicyEngine policyEngine; // Optional
+    
+    // Indexes so lookups by student or assignment don't scan every grade
+    private HashMap<String, LinkedHashMap<String, Grade>> gradesByStudent;     // studentId -> assignmentId -> grade
+    private HashMap<String, LinkedHashMap<String, Grade>> gradesByAssignment;  // assignmentId -> studentId -> grade
+    private IdAllocator idAllocator;
     
     public GradeService() {
-        this.grades = new ArrayList<>();
+        this(new IdAllocator());
+    }
+    
+    public GradeService(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+        this.grades = new VersionedStore<>();
+        this.gradesByStudent = new HashMap<>();
+        this.gradesByAssignment = new HashMap<>();
     }
     
-    // Creates a new grade
+    // Creates a new grade; returns null if the ID is taken, the student already has a grade for
+    // the assignment (update that one instead) or the points aren't a valid number
     public Grade createGrade(String gradeId, String studentId, String assignmentId, double points) {
-        if (findGradeById(gradeId) != null) {
-            return null; // Grade already exists
-        }
+        long start = System.nanoTime();
+        try {
+            if (!isValidPoints(points)) {
+                return null;
+            }
+            Grade grade;
+            synchronized (this) {
+                if (findGradeById(gradeId) != null) {
+                    return null; // Grade already exists
+                }
+                if (getGradeForStudentAndAssignment(studentId, assignmentId) != null) {
+                    return null; // A second grade would replace the first in the indexes but stay in the store
+                }
         
-        Grade grade = new Grade(gradeId, studentId, assignmentId, points);
-        grades.add(grade);
-        return grade;
+                grade = new Grade(gradeId, StringPool.canonical(studentId), StringPool.canonical(assignmentId),
+                                  points);
+                storeGrade(grade);
+            }
+            publish(new GradeRecorded(gradeId, studentId, assignmentId, points, 0.0, true));
+            return grade;
+        } finally {
+            OperationMetrics.CREATE_GRADE.record(start);
+        }
     }
     
     // Finds a grade by its ID
     public Grade findGradeById(String gradeId) {
-        for (Grade grade : grades) {
-            if (grade.getGradeId().equals(gradeId)) {
-                return grade;
-            }
+        long start = System.nanoTime();
+        try {
+            return grades.get(gradeId);
+        } finally {
+            OperationMetrics.FIND_GRADE.record(start);
         }
-        return null;
     }
     
-    // Returns all grades
+    // Returns all grades (a copy, so callers can't change the stored list)
     public ArrayList<Grade> getAllGrades() {
+        return grades.toList();
+    }
+    
+    // Used by SnapshotService to take a point-in-time view of the grades
+    VersionedStore<Grade> getGradeStore() {
         return grades;
     }
     
     // Updates a grade
     public boolean updateGrade(Grade updatedGradeData) {
-        // Find the grade that already exists in our list
-        Grade gradeInList = findGradeById(updatedGradeData.getGradeId());
-        
-        // If the grade exists in our list, update it with new data
-        if (gradeInList != null) {
-            gradeInList.setStudentId(updatedGradeData.getStudentId());
-            gradeInList.setAssignmentId(updatedGradeData.getAssignmentId());
-            gradeInList.setPoints(updatedGradeData.getPoints());
-            return true; // Successfully updated
+        if (!isValidPoints(updatedGradeData.getPoints())) {
+            return false;
         }
-        
-        return false; // Grade not found, couldn't update
+        Grade gradeInList;
+        Grade newGrade;
+        synchronized (this) {
+            // Find the grade that already exists in our list
+            gradeInList = findGradeById(updatedGradeData.getGradeId());
+            if (gradeInList == null) {
+                return false; // Grade not found, couldn't update
+            }
+            Grade occupant = getGradeForStudentAndAssignment(updatedGradeData.getStudentId(),
+                                                             updatedGradeData.getAssignmentId());
+            if (occupant != null && occupant != gradeInList) {
+                return false; // Moving it onto a pair that already has a grade
+            }
+    
+            // Store a new object instead of changing the old one, so open snapshots keep the old points
+            newGrade = new Grade(gradeInList.getGradeId(), StringPool.canonical(updatedGradeData.getStudentId()),
+                                 StringPool.canonical(updatedGradeData.getAssignmentId()),
+                                 updatedGradeData.getPoints());
+            unindexGrade(gradeInList);
+            storeGrade(newGrade);
+        }
+        publish(new GradeRecorded(newGrade.getGradeId(), newGrade.getStudentId(),
+                                  newGrade.getAssignmentId(), newGrade.getPoints(),
+                                  gradeInList.getPoints(), false));
+        return true; // Successfully updated
     }
     
     // Deletes a grade
     public boolean deleteGrade(String gradeId) {
-        Grade grade = findGradeById(gradeId);
-        if (grade != null) {
-            grades.remove(grade);
-            return true;
+        Grade grade;
+        synchronized (this) {
+            grade = removeGrade(gradeId);
+            if (grade == null) {
+                return false;
+            }
         }
-        return false;
+        publish(new GradeDeleted(gradeId, grade.getStudentId(), grade.getAssignmentId()));
+        return true;
     }
     
     // Gets all grades for a specific student
-    public ArrayList<Grade> getGradesForStudent(String studentId) {
-        ArrayList<Grade> studentGrades = new ArrayList<>();
-        for (Grade grade : grades) {
-            if (grade.getStudentId().equals(studentId)) {
-                studentGrades.add(grade);
-            }
+    public synchronized ArrayList<Grade> getGradesForStudent(String studentId) {
+        LinkedHashMap<String, Grade> studentGrades = gradesByStudent.get(studentId);
+        if (studentGrades == null) {
+            return new ArrayList<>();
         }
-        return studentGrades;
+        return new ArrayList<>(studentGrades.values());
     }
     
     // Gets all grades for a specific assignment
-    public ArrayList<Grade> getGradesForAssignment(String assignmentId) {
-        ArrayList<Grade> assignmentGrades = new ArrayList<>();
-        for (Grade grade : grades) {
-            if (grade.getAssignmentId().equals(assignmentId)) {
-                assignmentGrades.add(grade);
-            }
+    public synchronized ArrayList<Grade> getGradesForAssignment(String assignmentId) {
+        LinkedHashMap<String, Grade> assignmentGrades = gradesByAssignment.get(assignmentId);
+        if (assignmentGrades == null) {
+            return new ArrayList<>();
         }
-        return assignmentGrades;
+        return new ArrayList<>(assignmentGrades.values());
     }
     
     // Gets a specific grade for a student and assignment
-    public Grade getGradeForStudentAndAssignment(String studentId, String assignmentId) {
-        for (Grade grade : grades) {
-            if (grade.getStudentId().equals(studentId) && grade.getAssignmentId().equals(assignmentId)) {
-                return grade;
+    public synchronized Grade getGradeForStudentAndAssignment(String studentId, String assignmentId) {
+        LinkedHashMap<String, Grade> studentGrades = gradesByStudent.get(studentId);
+        if (studentGrades == null) {
+            return null;
+        }
+        return studentGrades.get(assignmentId);
+    }
+    
+    // Enters or updates the grades of many students for one assignment in a single operation
+    // Every entry is checked against the roster first; if any entry is invalid nothing is applied
+    public GradeBatchResult upsertGrades(Assignment assignment, Collection<String> rosterStudentIds,
+                                         Map<String, Double> pointsByStudent) {
+        GradeBatchResult result = new GradeBatchResult();
+        if (assignment == null) {
+            result.addError("Assignment not found.");
+            return result;
+        }
+    
+        // One validation pass over the entries
+        HashSet<String> roster = new HashSet<>(rosterStudentIds);
+        for (Map.Entry<String, Double> entry : pointsByStudent.entrySet()) {
+            String studentId = entry.getKey();
+            Double points = entry.getValue();
+            if (!roster.contains(studentId)) {
+                result.addError(studentId + " is not enrolled in course " + assignment.getCourseId() + ".");
+            } else if (points == null || !isValidPoints(points) || points > assignment.getMaxPoints()) {
+                result.addError(studentId + ": points must be between 0 and " + assignment.getMaxPoints() + ".");
             }
         }
-        return null;
+        if (!result.isApplied()) {
+            return result;
+        }
+    
+        // Apply everything under the store lock, so a snapshot sees all of the batch or none of it
+        String assignmentId = assignment.getAssignmentId();
+        ArrayList<GradeRecorded> events = new ArrayList<>();
+        synchronized (this) {
+            synchronized (VersionedStore.WRITE_LOCK) {
+                for (Map.Entry<String, Double> entry : pointsByStudent.entrySet()) {
+                    String studentId = StringPool.canonical(entry.getKey());
+                    double points = entry.getValue();
+                    Grade existing = getGradeForStudentAndAssignment(studentId, assignmentId);
+    
+                    if (existing == null) {
+                        Grade grade = new Grade(generateGradeId(), studentId, assignmentId, points);
+                        storeGrade(grade);
+                        events.add(new GradeRecorded(grade.getGradeId(), studentId, assignmentId, points, 0.0, true));
+                        result.setCreatedCount(result.getCreatedCount() + 1);
+                    } else if (existing.getPoints() != points) {
+                        Grade grade = new Grade(existing.getGradeId(), studentId, assignmentId, points);
+                        unindexGrade(existing);
+                        storeGrade(grade);
+                        events.add(new GradeRecorded(grade.getGradeId(), studentId, assignmentId,
+                                                     points, existing.getPoints(), false));
+                        result.setUpdatedCount(result.getUpdatedCount() + 1);
+                    } else {
+                        result.setUnchangedCount(result.getUnchangedCount() + 1);
+                    }
+                }
+            }
+        }
+    
+        for (GradeRecorded event : events) {
+            publish(event);
+        }
+        return result;
+    }
+    
+    // Returns a grade ID that is not in use ("G" followed by an increasing number)
+    public String generateGradeId() {
+        return "G" + idAllocator.next(IdAllocator.GRADE);
     }
     
     // Calculates final grade for a student in a course
-    // Returns the percentage (points earned / total points possible)
-    public double calculateFinalGradeForCourse(String studentId, String courseId, 
+    // Returns the percentage, using the course's grading policy (points earned / total points
+    // possible when it has none)
+    public double calculateFinalGradeForCourse(String studentId, String courseId,
                                                ArrayList<Assignment> courseAssignments) {
+        long start = System.nanoTime();
+        try {
+            if (courseAssignments == null || courseAssignments.isEmpty()) {
+                return 0.0;
+            }
+            return getEvaluator(courseId, courseAssignments).evaluate(getPoints(studentId, courseAssignments));
+        } finally {
+            OperationMetrics.CALCULATE_FINAL_GRADE.record(start);
+        }
+    }
+    
+    // Final grades of many students in one course, in the same order as studentIds
+    // The course's evaluator is looked up once for all of them
+    public double[] calculateFinalGradesForCourse(List<String> studentIds, String courseId,
+                                                  ArrayList<Assignment> courseAssignments) {
+        double[] finalGrades = new double[studentIds.size()];
         if (courseAssignments == null || courseAssignments.isEmpty()) {
-            return 0.0;
+            return finalGrades;
         }
-        
-        double totalPointsEarned = 0.0;
-        double totalPointsPossible = 0.0;
-        
-        // Loop through all assignments in the course
-        for (Assignment assignment : courseAssignments) {
-            totalPointsPossible += assignment.getMaxPoints();
-            
-            // Find grade for this student and assignment
-            Grade grade = getGradeForStudentAndAssignment(studentId, assignment.getAssignmentId());
-            if (grade != null) {
-                totalPointsEarned += grade.getPoints();
+        GradeEvaluator evaluator = getEvaluator(courseId, courseAssignments);
+        for (int i = 0; i < studentIds.size(); i++) {
+            finalGrades[i] = evaluator.evaluate(getPoints(studentIds.get(i), courseAssignments));
+        }
+        return finalGrades;
+    }
+    
+    // Sets the engine that compiles course grading policies (without one, every course uses plain points)
+    public void setPolicyEngine(GradingPolicyEngine policyEngine) {
+        this.policyEngine = policyEngine;
+    }
+    
+    private GradeEvaluator getEvaluator(String courseId, ArrayList<Assignment> courseAssignments) {
+        if (policyEngine == null) {
+            return GradingPolicyEngine.compile(null, courseAssignments);
+        }
+        return policyEngine.getEvaluator(courseId, courseAssignments);
+    }
+    
+    // Points the student earned on each assignment, in order (0 where there's no grade)
+    private synchronized double[] getPoints(String studentId, ArrayList<Assignment> courseAssignments) {
+        double[] points = new double[courseAssignments.size()];
+        LinkedHashMap<String, Grade> studentGrades = gradesByStudent.get(studentId);
+        if (studentGrades != null) {
+            for (int i = 0; i < points.length; i++) {
+                Grade grade = studentGrades.get(courseAssignments.get(i).getAssignmentId());
+                if (grade != null) {
+                    points[i] = grade.getPoints();
+                }
             }
         }
-        
-        // Calculate percentage
-        if (totalPointsPossible == 0) {
-            return 0.0;
+        return points;
+    }
+    
+    // Adds a grade (used by DataPersistenceService when loading data).
+    // Returns false if its ID is taken or the student already has a grade for the assignment.
+    public synchronized boolean addGrade(Grade grade) {
+        if (grade == null || findGradeById(grade.getGradeId()) != null
+                || getGradeForStudentAndAssignment(grade.getStudentId(), grade.getAssignmentId()) != null) {
+            return false;
         }
-        
-        return (totalPointsEarned / totalPointsPossible) * 100.0;
+        storeGrade(grade);
+        return true;
+    }
+    
+    // Points must be a finite number, at least 0 (NaN or infinity would break every grade that uses them)
+    private static boolean isValidPoints(double points) {
+        return !Double.isNaN(points) && !Double.isInfinite(points) && points >= 0;
+    }
+    
+    // Sets the bus that this service publishes its changes to
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+    
+    private void publish(DomainEvent event) {
+        if (eventBus != null) {
+            eventBus.publish(event);
+        }
+    }
+    
+    // Removes every grade on an assignment and returns them, without publishing anything.
+    // Used by CascadeDeleteService, which holds the lock and VersionedStore.WRITE_LOCK.
+    ArrayList<Grade> removeGradesForAssignment(String assignmentId) {
+        return removeAll(gradesByAssignment.get(assignmentId));
+    }
+    
+    // Removes every grade of a student (same as above)
+    ArrayList<Grade> removeGradesForStudent(String studentId) {
+        return removeAll(gradesByStudent.get(studentId));
     }
     
-    // Adds a grade (used by DataPersistenceService when loading data)
-    public void addGrade(Grade grade) {
-        if (grade != null && findGradeById(grade.getGradeId()) == null) {
-            grades.add(grade);
+    // Removes one grade without publishing anything; returns it, or null (same as above)
+    Grade removeGrade(String gradeId) {
+        Grade grade = grades.remove(gradeId);
+        if (grade != null) {
+            unindexGrade(grade);
+        }
+        return grade;
+    }
+    
+    private ArrayList<Grade> removeAll(LinkedHashMap<String, Grade> indexed) {
+        if (indexed == null) {
+            return new ArrayList<>();
+        }
+        ArrayList<Grade> removed = new ArrayList<>(indexed.values()); // unindexGrade changes the map
+        for (Grade grade : removed) {
+            grades.remove(grade.getGradeId());
+            unindexGrade(grade);
+        }
+        return removed;
+    }
+    
+    // Puts a grade in the store and both indexes (caller holds the lock)
+    private void storeGrade(Grade grade) {
+        grades.put(grade.getGradeId(), grade);
+        idAllocator.observeId(IdAllocator.GRADE, "G", grade.getGradeId());
+    
+        LinkedHashMap<String, Grade> studentGrades = gradesByStudent.get(grade.getStudentId());
+        if (studentGrades == null) {
+            studentGrades = new LinkedHashMap<>();
+            gradesByStudent.put(grade.getStudentId(), studentGrades);
+        }
+        studentGrades.put(grade.getAssignmentId(), grade);
+    
+        LinkedHashMap<String, Grade> assignmentGrades = gradesByAssignment.get(grade.getAssignmentId());
+        if (assignmentGrades == null) {
+            assignmentGrades = new LinkedHashMap<>();
+            gradesByAssignment.put(grade.getAssignmentId(), assignmentGrades);
+        }
+        assignmentGrades.put(grade.getStudentId(), grade);
+    }
+    
+    // Removes a grade from both indexes (caller holds the lock)
+    private void unindexGrade(Grade grade) {
+        LinkedHashMap<String, Grade> studentGrades = gradesByStudent.get(grade.getStudentId());
+        if (studentGrades != null && studentGrades.get(grade.getAssignmentId()) == grade) {
+            studentGrades.remove(grade.getAssignmentId());
+            if (studentGrades.isEmpty()) {
+                gradesByStudent.remove(grade.getStudentId());
+            }
+        }
+    
+        LinkedHashMap<String, Grade> assignmentGrades = gradesByAssignment.get(grade.getAssignmentId());
+        if (assignmentGrades != null && assignmentGrades.get(grade.getStudentId()) == grade) {
+            assignmentGrades.remove(grade.getStudentId());
+            if (assignmentGrades.isEmpty()) {
+                gradesByAssignment.remove(grade.getAssignmentId());
+            }
         }
     }
 }
-
@@ -0,0 +1,103 @@
+package com.blackboard.services;
+
+import com.blackboard.events.AssignmentChanged;
+import com.blackboard.events.CourseChanged;
+import com.blackboard.events.CourseDeleted;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventListener;
+import com.blackboard.models.Assignment;
+import com.blackboard.models.Course;
+import com.blackboard.models.GradingCategory;
+import com.blackboard.models.GradingPolicy;
+import java.util.HashMap;
+import java.util.List;
+
+// Compiles each course's grading policy into a GradeEvaluator once and keeps it until the policy
+// or the course's assignments change, so grading thousands of students re-reads none of it.
+// A course without a policy compiles to a single category holding every assignment, which gives
+// the same total points earned / total points possible as before policies existed.
+public class GradingPolicyEngine implements EventListener {
+    private CourseService courseService;
+    private HashMap<String, GradeEvaluator> evaluators; // courseId -> evaluator for its current assignments
+    private long compilations;
+
+    public GradingPolicyEngine(CourseService courseService) {
+        this.courseService = courseService;
+        this.evaluators = new HashMap<>();
+    }
+
+    // Returns the evaluator for the course's policy over these assignments (compiling it if needed)
+    public synchronized GradeEvaluator getEvaluator(String courseId, List<Assignment> courseAssignments) {
+        GradeEvaluator evaluator = evaluators.get(courseId);
+        if (evaluator == null || !evaluator.isCompiledFor(courseAssignments)) {
+            Course course = courseService.findCourseById(courseId);
+            evaluator = compile(course != null ? course.getGradingPolicy() : null, courseAssignments);
+            evaluators.put(courseId, evaluator);
+            compilations++;
+        }
+        return evaluator;
+    }
+
+    // Forgets a course's evaluator; it is compiled again when next needed
+    public synchronized void invalidate(String courseId) {
+        evaluators.remove(courseId);
+    }
+
+    // How many times a policy has been compiled (for checking that caching works)
+    public synchronized long getCompilations() {
+        return compilations;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof AssignmentChanged) {
+            // Max points or category may have changed, or the assignment moved
+            AssignmentChanged changed = (AssignmentChanged) event;
+            invalidate(changed.getPreviousCourseId());
+            invalidate(changed.getAssignment().getCourseId());
+        } else if (event instanceof CourseChanged) {
+            invalidate(((CourseChanged) event).getCourse().getCourseId());
+        } else if (event instanceof CourseDeleted) {
+            invalidate(((CourseDeleted) event).getCourseId());
+        }
+    }
+
+    // Compiles a policy (null for plain points) against a course's assignments.
+    // Assignments whose category isn't in the policy don't count toward the final grade.
+    public static GradeEvaluator compile(GradingPolicy policy, List<Assignment> courseAssignments) {
+        int n = courseAssignments.size();
+        Assignment[] assignments = courseAssignments.toArray(new Assignment[0]);
+        double[] maxPoints = new double[n];
+        int[] categoryOf = new int[n];
+        double[] weights;
+        int[] dropLowest;
+        double[] caps;
+
+        if (policy == null || policy.getCategories().isEmpty()) {
+            weights = new double[] {1.0};
+            dropLowest = new int[] {0};
+            caps = new double[] {GradingCategory.DEFAULT_CAP / 100.0};
+        } else {
+            List<GradingCategory> categories = policy.getCategories();
+            weights = new double[categories.size()];
+            dropLowest = new int[categories.size()];
+            caps = new double[categories.size()];
+            for (int c = 0; c < categories.size(); c++) {
+                weights[c] = categories.get(c).getWeight();
+                dropLowest[c] = categories.get(c).getDropLowest();
+                caps[c] = categories.get(c).getCap() / 100.0;
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            Assignment assignment = assignments[i];
+            maxPoints[i] = assignment.getMaxPoints();
+            if (policy == null || policy.getCategories().isEmpty()) {
+                categoryOf[i] = 0;
+            } else {
+                categoryOf[i] = policy.getCategories().indexOf(policy.findCategory(assignment.getCategory()));
+            }
+        }
+        return new GradeEvaluator(assignments, maxPoints, categoryOf, weights, dropLowest, caps);
+    }
+}
@@ -0,0 +1,118 @@
+package com.blackboard.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands out increasing numbers per named sequence ("STUDENT", "GRADE") for building IDs.
+// next() is a single atomic increment, so many threads can allocate at once without a lock.
+// Numbers are reserved in blocks: only when a block runs out is the new high-water mark saved
+// (through the ReservationWriter) before any number from it is handed out, so after a restart
+// allocation continues above everything that might already have been used.
+public class IdAllocator {
+    public static final String STUDENT = "STUDENT";
+    public static final String GRADE = "GRADE";
+    private static final long DEFAULT_BLOCK_SIZE = 1000;
+
+    private long blockSize;
+    private ConcurrentHashMap<String, Sequence> sequences;
+    private ReservationWriter writer;
+
+    // Saves the reserved high-water mark of every sequence
+    public interface ReservationWriter {
+        void save(Map<String, Long> highWaterMarks);
+    }
+
+    public IdAllocator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdAllocator(long blockSize) {
+        this.blockSize = blockSize;
+        this.sequences = new ConcurrentHashMap<>();
+    }
+
+    // Changes the block size of one sequence (a smaller block leaves smaller gaps after a restart)
+    public void setBlockSize(String sequenceName, long sequenceBlockSize) {
+        getSequence(sequenceName).blockSize = sequenceBlockSize;
+    }
+
+    // Without a writer the allocator works in memory only
+    public synchronized void setReservationWriter(ReservationWriter writer) {
+        this.writer = writer;
+    }
+
+    // Returns the next number of a sequence (never returned before, even across restarts)
+    public long next(String sequenceName) {
+        Sequence sequence = getSequence(sequenceName);
+        long number = sequence.last.incrementAndGet();
+        if (number > sequence.reservedUpTo) {
+            reserve(sequence, number);
+        }
+        return number;
+    }
+
+    // Makes sure a number that is already in use (loaded from file, or typed in by hand) is never handed out
+    public void observe(String sequenceName, long number) {
+        getSequence(sequenceName).last.accumulateAndGet(number, Math::max);
+    }
+
+    // Same as observe, for an ID like "G1042": the digits after the prefix are the number
+    // IDs that don't have that shape are ignored
+    public void observeId(String sequenceName, String prefix, String id) {
+        if (id == null || !id.startsWith(prefix) || id.length() == prefix.length()
+                || id.length() - prefix.length() > 18) {
+            return;
+        }
+        long number = 0;
+        for (int i = prefix.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return;
+            }
+            number = number * 10 + (c - '0');
+        }
+        observe(sequenceName, number);
+    }
+
+    // Returns the reserved high-water mark of every sequence
+    public synchronized HashMap<String, Long> getHighWaterMarks() {
+        HashMap<String, Long> marks = new HashMap<>();
+        for (Map.Entry<String, Sequence> entry : sequences.entrySet()) {
+            Sequence sequence = entry.getValue();
+            marks.put(entry.getKey(), Math.max(sequence.reservedUpTo, sequence.last.get()));
+        }
+        return marks;
+    }
+
+    private Sequence getSequence(String sequenceName) {
+        return sequences.computeIfAbsent(sequenceName, name -> new Sequence(name, blockSize));
+    }
+
+    // Reserves the block containing the number; threads past the old block wait here until it is saved
+    private synchronized void reserve(Sequence sequence, long needed) {
+        if (needed <= sequence.reservedUpTo) {
+            return; // Another thread reserved it while we waited
+        }
+        long upTo = needed + sequence.blockSize - 1;
+        if (writer != null) {
+            HashMap<String, Long> marks = getHighWaterMarks();
+            marks.put(sequence.name, upTo);
+            writer.save(marks);
+        }
+        sequence.reservedUpTo = upTo;
+    }
+
+    private static class Sequence {
+        private String name;
+        private volatile long blockSize;
+        private AtomicLong last = new AtomicLong();
+        private volatile long reservedUpTo;
+
+        private Sequence(String name, long blockSize) {
+            this.name = name;
+            this.blockSize = blockSize;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.blackboard.services;
+
+import com.blackboard.events.AssignmentChanged;
+import com.blackboard.events.CourseChanged;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventBus;
+import com.blackboard.events.GradeDeleted;
+import com.blackboard.models.Assignment;
+import com.blackboard.models.Course;
+import com.blackboard.models.DeleteSummary;
+import com.blackboard.models.Grade;
+import com.blackboard.models.IntegrityReport;
+import com.blackboard.models.IntegrityViolation;
+import com.blackboard.models.Student;
+import com.blackboard.models.Teacher;
+import com.blackboard.models.User;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Finds records that refer to something that doesn't exist: grades for missing assignments or
+// students, assignments in missing courses and courses whose teacher is gone, plus the enrollment
+// rows the loader had to leave out. Meant to run after loadAllData on every startup.
+// Works from a snapshot and joins each relationship against the snapshot's own hash maps, so no
+// index has to be built first. Grades are checked in chunks on a fork/join pool, at the same time
+// as the assignments and courses, and the results are collected in order.
+public class IntegrityChecker {
+    private static final int GRADE_CHUNK_SIZE = 65536; // Grades per task
+
+    private AuthenticationService authService;
+    private CourseService courseService;
+    private AssignmentService assignmentService;
+    private GradeService gradeService;
+    private DataPersistenceService persistenceService; // Null: no enrollment rows to report, repairs aren't saved
+    private SnapshotService snapshotService;
+    private EventBus eventBus;
+    private int parallelism;
+
+    public IntegrityChecker(AuthenticationService authService, CourseService courseService,
+                            AssignmentService assignmentService, GradeService gradeService,
+                            DataPersistenceService persistenceService) {
+        this(authService, courseService, assignmentService, gradeService, persistenceService,
+             Runtime.getRuntime().availableProcessors());
+    }
+
+    public IntegrityChecker(AuthenticationService authService, CourseService courseService,
+                            AssignmentService assignmentService, GradeService gradeService,
+                            DataPersistenceService persistenceService, int parallelism) {
+        this.authService = authService;
+        this.courseService = courseService;
+        this.assignmentService = assignmentService;
+        this.gradeService = gradeService;
+        this.persistenceService = persistenceService;
+        this.snapshotService = new SnapshotService(authService, courseService, assignmentService, gradeService);
+        this.parallelism = parallelism;
+    }
+
+    // Checks every relationship and returns what is wrong (changes nothing)
+    public IntegrityReport check() {
+        long start = System.nanoTime();
+        ArrayList<IntegrityViolation> violations = new ArrayList<>();
+        long rowsChecked;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (StateSnapshot snapshot = snapshotService.openSnapshot()) {
+            Grade[] grades = snapshot.getGrades().toArray(new Grade[0]);
+            ArrayList<ForkJoinTask<ArrayList<IntegrityViolation>>> tasks = new ArrayList<>();
+            tasks.add(pool.submit(() -> checkCourses(snapshot)));
+            tasks.add(pool.submit(() -> checkAssignments(snapshot)));
+            for (int from = 0; from < grades.length; from += GRADE_CHUNK_SIZE) {
+                int chunkStart = from;
+                int chunkEnd = Math.min(from + GRADE_CHUNK_SIZE, grades.length);
+                tasks.add(pool.submit(() -> checkGrades(snapshot, grades, chunkStart, chunkEnd)));
+            }
+            for (ForkJoinTask<ArrayList<IntegrityViolation>> task : tasks) {
+                violations.addAll(task.join());
+            }
+            rowsChecked = (long) grades.length + snapshot.getAssignments().size() + snapshot.getCourses().size();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (persistenceService != null) {
+            violations.addAll(persistenceService.getRejectedEnrollments());
+        }
+        return new IntegrityReport(violations, rowsChecked, (System.nanoTime() - start) / 1000000);
+    }
+
+    // Fixes what the report found, as one atomic change followed by one save:
+    // grades and assignments that point at nothing are deleted (with the assignments' grades),
+    // courses whose teacher is gone are left without a teacher, and the enrollment rows the loader
+    // left out are dropped from the file. Each record is checked again first, so anything fixed
+    // since the report was made is left alone.
+    public DeleteSummary repair(IntegrityReport report) {
+        ArrayList<Assignment> removedAssignments = new ArrayList<>();
+        ArrayList<Grade> removedGrades = new ArrayList<>();
+        ArrayList<Course> clearedCourses = new ArrayList<>();
+        int gradeCount = 0;
+
+        // Same lock order as CascadeDeleteService: service locks, then VersionedStore.WRITE_LOCK
+        synchronized (courseService) {
+            synchronized (assignmentService) {
+                synchronized (gradeService) {
+                    synchronized (VersionedStore.WRITE_LOCK) {
+                        for (IntegrityViolation violation : report.getViolations(IntegrityViolation.ASSIGNMENT_WITHOUT_COURSE)) {
+                            Assignment assignment = assignmentService.findAssignmentById(violation.getRecordId());
+                            if (assignment != null && courseService.findCourseById(assignment.getCourseId()) == null) {
+                                assignmentService.removeAssignment(assignment.getAssignmentId());
+                                gradeCount += gradeService.removeGradesForAssignment(assignment.getAssignmentId()).size();
+                                removedAssignments.add(assignment);
+                            }
+                        }
+                        removeGrades(report.getViolations(IntegrityViolation.GRADE_WITHOUT_ASSIGNMENT), removedGrades);
+                        removeGrades(report.getViolations(IntegrityViolation.GRADE_WITHOUT_STUDENT), removedGrades);
+
+                        LinkedHashSet<String> missingTeacherIds = new LinkedHashSet<>();
+                        for (IntegrityViolation violation : report.getViolations(IntegrityViolation.COURSE_WITHOUT_TEACHER)) {
+                            missingTeacherIds.add(violation.getMissingId());
+                        }
+                        for (String teacherId : missingTeacherIds) {
+                            if (!(authService.findUserById(teacherId) instanceof Teacher)) {
+                                clearedCourses.addAll(courseService.removeTeacher(teacherId));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        for (Assignment assignment : removedAssignments) {
+            publish(new AssignmentChanged(assignment, AssignmentChanged.DELETED,
+                                          assignment.getCourseId(), assignment.getMaxPoints()));
+        }
+        for (Grade grade : removedGrades) {
+            publish(new GradeDeleted(grade.getGradeId(), grade.getStudentId(), grade.getAssignmentId()));
+        }
+        for (Course course : clearedCourses) {
+            publish(new CourseChanged(course, CourseChanged.UPDATED));
+        }
+
+        DeleteSummary summary = new DeleteSummary(null);
+        summary.setAssignmentCount(removedAssignments.size());
+        summary.setGradeCount(gradeCount + removedGrades.size());
+        summary.setUnassignedCourseCount(clearedCourses.size());
+        if (persistenceService != null) {
+            int rejectedEnrollments = persistenceService.getRejectedEnrollments().size();
+            summary.setSaved(persistenceService.saveAllData());
+            summary.setEnrollmentCount(summary.isSaved() ? rejectedEnrollments : 0);
+        }
+        return summary;
+    }
+
+    // Sets the bus that repairs are published to
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    // Courses whose teacher ID isn't a teacher (courses without a teacher are fine)
+    private static ArrayList<IntegrityViolation> checkCourses(StateSnapshot snapshot) {
+        ArrayList<IntegrityViolation> violations = new ArrayList<>();
+        for (Course course : snapshot.getCourses()) {
+            String teacherId = course.getTeacherId();
+            if (teacherId != null && !(snapshot.findUserById(teacherId) instanceof Teacher)) {
+                violations.add(new IntegrityViolation(IntegrityViolation.COURSE_WITHOUT_TEACHER,
+                                                      course.getCourseId(), teacherId));
+            }
+        }
+        return violations;
+    }
+
+    private static ArrayList<IntegrityViolation> checkAssignments(StateSnapshot snapshot) {
+        ArrayList<IntegrityViolation> violations = new ArrayList<>();
+        for (Assignment assignment : snapshot.getAssignments()) {
+            if (snapshot.findCourseById(assignment.getCourseId()) == null) {
+                violations.add(new IntegrityViolation(IntegrityViolation.ASSIGNMENT_WITHOUT_COURSE,
+                                                      assignment.getAssignmentId(), assignment.getCourseId()));
+            }
+        }
+        return violations;
+    }
+
+    // Grades[from, to) whose assignment or student is missing (one violation per grade, assignment first)
+    private static ArrayList<IntegrityViolation> checkGrades(StateSnapshot snapshot, Grade[] grades, int from, int to) {
+        ArrayList<IntegrityViolation> violations = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Grade grade = grades[i];
+            if (snapshot.findAssignmentById(grade.getAssignmentId()) == null) {
+                violations.add(new IntegrityViolation(IntegrityViolation.GRADE_WITHOUT_ASSIGNMENT,
+                                                      grade.getGradeId(), grade.getAssignmentId()));
+            } else if (!(snapshot.findUserById(grade.getStudentId()) instanceof Student)) {
+                violations.add(new IntegrityViolation(IntegrityViolation.GRADE_WITHOUT_STUDENT,
+                                                      grade.getGradeId(), grade.getStudentId()));
+            }
+        }
+        return violations;
+    }
+
+    // Removes the reported grades that still point at nothing (caller holds the locks)
+    private void removeGrades(ArrayList<IntegrityViolation> violations, ArrayList<Grade> removed) {
+        for (IntegrityViolation violation : violations) {
+            Grade grade = gradeService.findGradeById(violation.getRecordId());
+            if (grade == null) {
+                continue;
+            }
+            User student = authService.findUserById(grade.getStudentId());
+            if (assignmentService.findAssignmentById(grade.getAssignmentId()) == null
+                    || !(student instanceof Student)) {
+                removed.add(gradeService.removeGrade(grade.getGradeId()));
+            }
+        }
+    }
+
+    private void publish(DomainEvent event) {
+        if (eventBus != null) {
+            eventBus.publish(event);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.blackboard.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Trie from lowercase text to IDs, for "type part of a name" lookups.
+// Each ID is stored under every word of its text and under the whole text, so "sal" finds
+// "Adam Saleh". A lookup walks the prefix and then collects IDs in alphabetical order until it
+// has enough, so it costs about prefix length + K instead of a scan. Empty branches are pruned on
+// removal, so the walk never wanders into dead subtrees.
+public class PrefixIndex {
+    private Node root;
+    private HashMap<String, ArrayList<String>> keysById; // id -> keys it was stored under, for removal
+
+    public PrefixIndex() {
+        this.root = new Node();
+        this.keysById = new HashMap<>();
+    }
+
+    // Stores an ID under the given texts, replacing whatever it was stored under before
+    public synchronized void put(String id, String... texts) {
+        remove(id);
+
+        ArrayList<String> keys = new ArrayList<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            String whole = text.trim().toLowerCase();
+            if (whole.isEmpty()) {
+                continue;
+            }
+            addKey(keys, whole);
+            for (String word : whole.split("\\s+")) {
+                addKey(keys, word);
+            }
+        }
+
+        for (String key : keys) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                Node child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(key.charAt(i), child);
+                }
+                node = child;
+            }
+            node.ids.add(id);
+        }
+        keysById.put(id, keys);
+    }
+
+    // Removes an ID from every key it was stored under
+    public synchronized void remove(String id) {
+        ArrayList<String> keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            removeKey(root, key, 0, id);
+        }
+    }
+
+    // Returns up to maxResults distinct IDs stored under a key starting with the prefix
+    public synchronized ArrayList<String> findByPrefix(String prefix, int maxResults) {
+        ArrayList<String> results = new ArrayList<>();
+        if (prefix == null || maxResults <= 0) {
+            return results;
+        }
+
+        String key = prefix.trim().toLowerCase();
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return results;
+        }
+
+        LinkedHashSet<String> found = new LinkedHashSet<>();
+        collect(node, found, maxResults);
+        results.addAll(found);
+        return results;
+    }
+
+    public synchronized int size() {
+        return keysById.size();
+    }
+
+    public synchronized void clear() {
+        root = new Node();
+        keysById.clear();
+    }
+
+    private void addKey(ArrayList<String> keys, String key) {
+        if (!key.isEmpty() && !keys.contains(key)) {
+            keys.add(key);
+        }
+    }
+
+    // Depth-first in character order; stops as soon as enough IDs are found
+    private void collect(Node node, LinkedHashSet<String> found, int maxResults) {
+        for (String id : node.ids) {
+            if (found.size() >= maxResults) {
+                return;
+            }
+            found.add(id);
+        }
+        for (Node child : node.children.values()) {
+            if (found.size() >= maxResults) {
+                return;
+            }
+            collect(child, found, maxResults);
+        }
+    }
+
+    // Returns true if the node became empty and can be dropped by its parent
+    private boolean removeKey(Node node, String key, int depth, String id) {
+        if (depth == key.length()) {
+            node.ids.remove(id);
+        } else {
+            Node child = node.children.get(key.charAt(depth));
+            if (child != null && removeKey(child, key, depth + 1, id)) {
+                node.children.remove(key.charAt(depth));
+            }
+        }
+        return node.ids.isEmpty() && node.children.isEmpty();
+    }
+
+    private static class Node {
+        private TreeMap<Character, Node> children = new TreeMap<>();
+        private TreeSet<String> ids = new TreeSet<>();
+    }
+}
@@ -0,0 +1,52 @@
+package com.blackboard.services;
+
+import com.blackboard.models.Reminder;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// Receives reminders in batches and holds them until each student reads them
+public class ReminderOutbox {
+    private static final int MAX_PENDING_PER_STUDENT = 50;
+
+    private HashMap<String, ArrayList<Reminder>> pendingByStudent;
+    private long deliveredCount;
+    private long batchCount;
+
+    public ReminderOutbox() {
+        this.pendingByStudent = new HashMap<>();
+    }
+
+    // Stores a batch of reminders (one lock for the whole batch)
+    public synchronized void deliver(ArrayList<Reminder> batch) {
+        for (Reminder reminder : batch) {
+            ArrayList<Reminder> pending = pendingByStudent.get(reminder.getStudentId());
+            if (pending == null) {
+                pending = new ArrayList<>();
+                pendingByStudent.put(reminder.getStudentId(), pending);
+            }
+            if (pending.size() >= MAX_PENDING_PER_STUDENT) {
+                pending.remove(0); // Keep only the most recent reminders
+            }
+            pending.add(reminder);
+        }
+        deliveredCount += batch.size();
+        batchCount++;
+    }
+
+    // Returns and clears a student's pending reminders
+    public synchronized ArrayList<Reminder> takeRemindersFor(String studentId) {
+        ArrayList<Reminder> pending = pendingByStudent.remove(studentId);
+        if (pending == null) {
+            return new ArrayList<>();
+        }
+        return pending;
+    }
+
+    public synchronized long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public synchronized long getBatchCount() {
+        return batchCount;
+    }
+}
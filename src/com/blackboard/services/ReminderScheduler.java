@@ -0,0 +1,211 @@
+package com.blackboard.services;
+
+import com.blackboard.events.AssignmentChanged;
+import com.blackboard.events.BatchEventListener;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventListener;
+import com.blackboard.models.Assignment;
+import com.blackboard.models.Reminder;
+import com.blackboard.utils.Clock;
+import com.blackboard.utils.DueDateParser;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Sends "due soon" reminders to every enrolled student, 24 hours and 1 hour before each due date.
+// There is one timer per (assignment, lead time), not per student: students are looked up from the
+// roster only when a timer fires, and the reminders go to the outbox in batches.
+public class ReminderScheduler implements EventListener, BatchEventListener {
+    public static final long[] LEAD_TIMES_MILLIS = {24 * 60 * 60 * 1000L, 60 * 60 * 1000L};
+    private static final long DEFAULT_TICK_MILLIS = 60 * 1000L;
+    private static final int DELIVERY_BATCH_SIZE = 500;
+
+    private AssignmentService assignmentService;
+    private CourseService courseService;
+    private ReminderOutbox outbox;
+    private Clock clock;
+    private TimerWheel<ReminderTimer> wheel;
+    private HashMap<String, ArrayList<TimerWheel.Timer<ReminderTimer>>> timersByAssignment;
+    private ScheduledExecutorService ticker;
+
+    public ReminderScheduler(AssignmentService assignmentService, CourseService courseService,
+                             ReminderOutbox outbox, Clock clock) {
+        this(assignmentService, courseService, outbox, clock, DEFAULT_TICK_MILLIS);
+    }
+
+    public ReminderScheduler(AssignmentService assignmentService, CourseService courseService,
+                             ReminderOutbox outbox, Clock clock, long tickMillis) {
+        this.assignmentService = assignmentService;
+        this.courseService = courseService;
+        this.outbox = outbox;
+        this.clock = clock;
+        this.wheel = new TimerWheel<>(tickMillis, clock.currentTimeMillis());
+        this.timersByAssignment = new HashMap<>();
+    }
+
+    // Schedules every assignment that is already loaded
+    public void scheduleAll() {
+        for (Assignment assignment : assignmentService.getAllAssignments()) {
+            reschedule(assignment);
+        }
+    }
+
+    // Replaces the timers of one assignment (O(1) per timer)
+    public synchronized void reschedule(Assignment assignment) {
+        cancel(assignment.getAssignmentId());
+        if (assignment.getDueTime() == DueDateParser.UNKNOWN) {
+            return;
+        }
+
+        long now = clock.currentTimeMillis();
+        ArrayList<TimerWheel.Timer<ReminderTimer>> timers = new ArrayList<>();
+        for (long leadTime : LEAD_TIMES_MILLIS) {
+            long fireAt = assignment.getDueTime() - leadTime;
+            if (fireAt > now) {
+                ReminderTimer payload = new ReminderTimer(assignment.getAssignmentId(),
+                                                          assignment.getDueTime(), leadTime);
+                timers.add(wheel.schedule(fireAt, payload));
+            }
+        }
+        if (!timers.isEmpty()) {
+            timersByAssignment.put(assignment.getAssignmentId(), timers);
+        }
+    }
+
+    // Removes the timers of one assignment
+    public synchronized void cancel(String assignmentId) {
+        ArrayList<TimerWheel.Timer<ReminderTimer>> timers = timersByAssignment.remove(assignmentId);
+        if (timers != null) {
+            for (TimerWheel.Timer<ReminderTimer> timer : timers) {
+                wheel.cancel(timer);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onEvents(ArrayList<DomainEvent> batch) {
+        for (DomainEvent event : batch) {
+            onEvent(event);
+        }
+    }
+
+    // Timers of assignments deleted meanwhile are left to fire; tick skips them
+    @Override
+    public void onEventsDropped() {
+        scheduleAll();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof AssignmentChanged) {
+            AssignmentChanged changed = (AssignmentChanged) event;
+            if (AssignmentChanged.DELETED.equals(changed.getChangeType())) {
+                cancel(changed.getAssignment().getAssignmentId());
+            } else {
+                reschedule(changed.getAssignment());
+            }
+        }
+    }
+
+    // Fires every timer due by now and fans the reminders out to the outbox
+    // Returns the number of reminders delivered
+    public int tick() {
+        ArrayList<ReminderTimer> due;
+        synchronized (this) {
+            due = wheel.advanceTo(clock.currentTimeMillis());
+        }
+
+        int delivered = 0;
+        ArrayList<Reminder> batch = new ArrayList<>(DELIVERY_BATCH_SIZE);
+        for (ReminderTimer timer : due) {
+            Assignment assignment = assignmentService.findAssignmentById(timer.assignmentId);
+            if (assignment == null || assignment.getDueTime() != timer.dueTime) {
+                continue; // Deleted or moved since the timer was set
+            }
+
+            for (String studentId : courseService.getStudentIdsInCourse(assignment.getCourseId())) {
+                batch.add(new Reminder(studentId, assignment.getAssignmentId(), assignment.getCourseId(),
+                                       assignment.getTitle(), assignment.getDueDate(), timer.leadTime));
+                if (batch.size() == DELIVERY_BATCH_SIZE) {
+                    outbox.deliver(batch);
+                    delivered += batch.size();
+                    batch = new ArrayList<>(DELIVERY_BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            outbox.deliver(batch);
+            delivered += batch.size();
+        }
+
+        synchronized (this) {
+            for (ReminderTimer timer : due) {
+                removeFired(timer);
+            }
+        }
+        return delivered;
+    }
+
+    // Starts a background thread that ticks once per wheel tick
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = wheel.getTickMillis();
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                System.err.println("Reminder tick failed: " + e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    public synchronized int getScheduledCount() {
+        return wheel.size();
+    }
+
+    // Forgets a fired timer so the assignment's timer list doesn't grow
+    private void removeFired(ReminderTimer fired) {
+        ArrayList<TimerWheel.Timer<ReminderTimer>> timers = timersByAssignment.get(fired.assignmentId);
+        if (timers == null) {
+            return;
+        }
+        for (int i = 0; i < timers.size(); i++) {
+            if (timers.get(i).getPayload() == fired) {
+                timers.remove(i);
+                break;
+            }
+        }
+        if (timers.isEmpty()) {
+            timersByAssignment.remove(fired.assignmentId);
+        }
+    }
+
+    // What a timer remembers: the due time it was set for, so stale timers can be skipped
+    private static class ReminderTimer {
+        private String assignmentId;
+        private long dueTime;
+        private long leadTime;
+
+        private ReminderTimer(String assignmentId, long dueTime, long leadTime) {
+            this.assignmentId = assignmentId;
+            this.dueTime = dueTime;
+            this.leadTime = leadTime;
+        }
+    }
+}
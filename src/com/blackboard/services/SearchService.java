@@ -0,0 +1,272 @@
+package com.blackboard.services;
+
+import com.blackboard.events.AssignmentChanged;
+import com.blackboard.events.BatchEventListener;
+import com.blackboard.events.CourseChanged;
+import com.blackboard.events.CourseDeleted;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventListener;
+import com.blackboard.models.Assignment;
+import com.blackboard.models.Course;
+import com.blackboard.models.SearchResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Keyword search over course names/descriptions and assignment titles/descriptions.
+// Keeps an inverted index (term -> documents containing it) that is updated from the event bus,
+// so a query only looks at the documents that contain one of its terms. Results are ranked with BM25.
+// Main subscribes it asynchronously, so a change shows up in results shortly after the write returns.
+public class SearchService implements EventListener, BatchEventListener {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2; // A word in the name/title counts as much as two in the description
+    private static final HashSet<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it",
+            "of", "on", "or", "the", "to", "with"));
+
+    private CourseService courseService;
+    private AssignmentService assignmentService;
+
+    private HashMap<String, HashMap<String, Integer>> postings; // term -> document key -> term frequency
+    private HashMap<String, IndexedDocument> documents;         // document key -> document
+    private long totalLength;
+
+    public SearchService(CourseService courseService, AssignmentService assignmentService) {
+        this.courseService = courseService;
+        this.assignmentService = assignmentService;
+        this.postings = new HashMap<>();
+        this.documents = new HashMap<>();
+    }
+
+    // Indexes everything from scratch (after the data is loaded, and when events were dropped)
+    public synchronized void rebuild() {
+        postings.clear();
+        documents.clear();
+        totalLength = 0;
+        for (Course course : courseService.getAllCourses()) {
+            indexCourse(course);
+        }
+        for (Assignment assignment : assignmentService.getAllAssignments()) {
+            indexAssignment(assignment);
+        }
+    }
+
+    // Adds or re-indexes one course
+    public synchronized void indexCourse(Course course) {
+        index(SearchResult.COURSE, course.getCourseId(), course.getCourseName(),
+              course.getCourseName(), course.getDescription());
+    }
+
+    // Adds or re-indexes one assignment
+    public synchronized void indexAssignment(Assignment assignment) {
+        index(SearchResult.ASSIGNMENT, assignment.getAssignmentId(), assignment.getTitle(),
+              assignment.getTitle(), assignment.getDescription());
+    }
+
+    public synchronized void removeCourse(String courseId) {
+        remove(documentKey(SearchResult.COURSE, courseId));
+    }
+
+    public synchronized void removeAssignment(String assignmentId) {
+        remove(documentKey(SearchResult.ASSIGNMENT, assignmentId));
+    }
+
+    // Searches courses and assignments
+    public ArrayList<SearchResult> search(String query, int maxResults) {
+        return search(query, null, maxResults);
+    }
+
+    public ArrayList<SearchResult> searchCourses(String query, int maxResults) {
+        return search(query, SearchResult.COURSE, maxResults);
+    }
+
+    public ArrayList<SearchResult> searchAssignments(String query, int maxResults) {
+        return search(query, SearchResult.ASSIGNMENT, maxResults);
+    }
+
+    // Returns the best maxResults matches, highest score first; type null means any type
+    public synchronized ArrayList<SearchResult> search(String query, String type, int maxResults) {
+        ArrayList<SearchResult> results = new ArrayList<>();
+        if (query == null || maxResults <= 0 || documents.isEmpty()) {
+            return results;
+        }
+
+        // Score only the documents that appear in the postings of a query term
+        double averageLength = (double) totalLength / documents.size();
+        HashMap<String, Double> scores = new HashMap<>();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            HashMap<String, Integer> termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            double idf = Math.log(1.0 + (documents.size() - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+            for (Map.Entry<String, Integer> posting : termPostings.entrySet()) {
+                IndexedDocument document = documents.get(posting.getKey());
+                if (type != null && !type.equals(document.type)) {
+                    continue;
+                }
+                int frequency = posting.getValue();
+                double score = idf * (frequency * (K1 + 1))
+                        / (frequency + K1 * (1 - B + B * document.length / averageLength));
+                scores.merge(posting.getKey(), score, Double::sum);
+            }
+        }
+
+        // Keep the top maxResults in a min-heap instead of sorting every match
+        PriorityQueue<SearchResult> top = new PriorityQueue<>(maxResults + 1, SearchService::compareResults);
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            IndexedDocument document = documents.get(entry.getKey());
+            top.add(new SearchResult(document.type, document.id, document.title, entry.getValue()));
+            if (top.size() > maxResults) {
+                top.poll();
+            }
+        }
+
+        while (!top.isEmpty()) {
+            results.add(top.poll());
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    public synchronized int getDocumentCount() {
+        return documents.size();
+    }
+
+    public synchronized int getTermCount() {
+        return postings.size();
+    }
+
+    // Applies a batch under one lock, so searches wait at most one batch
+    @Override
+    public synchronized void onEvents(ArrayList<DomainEvent> batch) {
+        for (DomainEvent event : batch) {
+            onEvent(event);
+        }
+    }
+
+    @Override
+    public void onEventsDropped() {
+        rebuild();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof CourseChanged) {
+            indexCourse(((CourseChanged) event).getCourse());
+        } else if (event instanceof CourseDeleted) {
+            removeCourse(((CourseDeleted) event).getCourseId());
+        } else if (event instanceof AssignmentChanged) {
+            AssignmentChanged changed = (AssignmentChanged) event;
+            if (AssignmentChanged.DELETED.equals(changed.getChangeType())) {
+                removeAssignment(changed.getAssignment().getAssignmentId());
+            } else {
+                indexAssignment(changed.getAssignment());
+            }
+        }
+    }
+
+    // Splits text into lowercase words, dropping punctuation and very common words
+    public static ArrayList<String> tokenize(String text) {
+        ArrayList<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                String token = word.toString();
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                word.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    // Lower score first, so the heap drops the weakest match; ties keep the smaller ID
+    private static int compareResults(SearchResult a, SearchResult b) {
+        int byScore = Double.compare(a.getScore(), b.getScore());
+        if (byScore != 0) {
+            return byScore;
+        }
+        return b.getId().compareTo(a.getId());
+    }
+
+    private void index(String type, String id, String title, String titleText, String bodyText) {
+        String key = documentKey(type, id);
+        remove(key);
+
+        HashMap<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String token : tokenize(titleText)) {
+            frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String token : tokenize(bodyText)) {
+            frequencies.merge(token, 1, Integer::sum);
+            length++;
+        }
+
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            HashMap<String, Integer> termPostings = postings.get(entry.getKey());
+            if (termPostings == null) {
+                termPostings = new HashMap<>();
+                postings.put(entry.getKey(), termPostings);
+            }
+            termPostings.put(key, entry.getValue());
+        }
+        documents.put(key, new IndexedDocument(type, id, title, length, frequencies.keySet()));
+        totalLength += length;
+    }
+
+    // Takes a document out of the postings of each of its own terms only
+    private void remove(String key) {
+        IndexedDocument document = documents.remove(key);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            HashMap<String, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(key);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    private static String documentKey(String type, String id) {
+        return type + ":" + id;
+    }
+
+    // What the index remembers about a document
+    private static class IndexedDocument {
+        private String type;
+        private String id;
+        private String title;
+        private int length;
+        private String[] terms;
+
+        private IndexedDocument(String type, String id, String title, int length, Set<String> terms) {
+            this.type = type;
+            this.id = id;
+            this.title = title;
+            this.length = length;
+            this.terms = terms.toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.blackboard.services;
+
+import com.blackboard.models.Session;
+import com.blackboard.models.User;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SessionManager {
+    private static final int DEFAULT_MAX_SESSIONS = 10000;
+    private static final long DEFAULT_TIME_TO_LIVE_MILLIS = 30 * 60 * 1000L; // 30 minutes
+    private static final int TOKEN_BYTES = 32;
+
+    private AuthenticationService authService;
+    private int maxSessions;
+    private long timeToLiveMillis;
+    private SecureRandom random;
+
+    // token -> session, kept in access order so the least recently used session is evicted first
+    private LinkedHashMap<String, Session> sessions;
+
+    public SessionManager(AuthenticationService authService) {
+        this(authService, DEFAULT_MAX_SESSIONS, DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    public SessionManager(AuthenticationService authService, int maxSessions, long timeToLiveMillis) {
+        this.authService = authService;
+        this.maxSessions = maxSessions;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.random = new SecureRandom();
+        this.sessions = new LinkedHashMap<String, Session>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > SessionManager.this.maxSessions;
+            }
+        };
+    }
+
+    // Checks the credentials once and returns a new session token, or null if they are invalid
+    public String login(String userId, String password) {
+        User user = authService.login(userId, password);
+        if (user == null) {
+            return null; // Invalid credentials
+        }
+
+        long now = System.currentTimeMillis();
+        String token = generateToken();
+        Session session = new Session(token, user, now, now + timeToLiveMillis);
+
+        synchronized (sessions) {
+            sessions.put(token, session);
+        }
+        return token;
+    }
+
+    // Returns the user for a token without scanning the user list, or null if the token is unknown or expired
+    public User validateToken(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        synchronized (sessions) {
+            Session session = sessions.get(token);
+            if (session == null) {
+                return null;
+            }
+
+            long now = System.currentTimeMillis();
+            if (session.getExpiresAt() <= now) {
+                sessions.remove(token);
+                return null; // Session expired
+            }
+
+            // Sliding expiry: an active session stays alive
+            session.setExpiresAt(now + timeToLiveMillis);
+            return session.getUser();
+        }
+    }
+
+    // Invalidates a single session
+    public boolean logout(String token) {
+        if (token == null) {
+            return false;
+        }
+
+        synchronized (sessions) {
+            return sessions.remove(token) != null;
+        }
+    }
+
+    // Invalidates every session of a user (used when the account is deleted or its password changes)
+    public int invalidateUser(String userId) {
+        int removed = 0;
+        synchronized (sessions) {
+            Iterator<Session> iterator = sessions.values().iterator();
+            while (iterator.hasNext()) {
+                Session session = iterator.next();
+                if (session.getUser().getUserId().equals(userId)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    // Removes all expired sessions and returns how many were removed
+    public int removeExpiredSessions() {
+        long now = System.currentTimeMillis();
+        ArrayList<String> expiredTokens = new ArrayList<>();
+
+        synchronized (sessions) {
+            for (Session session : sessions.values()) {
+                if (session.getExpiresAt() <= now) {
+                    expiredTokens.add(session.getToken());
+                }
+            }
+            for (String token : expiredTokens) {
+                sessions.remove(token);
+            }
+        }
+        return expiredTokens.size();
+    }
+
+    // Returns the number of sessions currently cached
+    public int getActiveSessionCount() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    // Generates a random, opaque token (hex encoded)
+    private String generateToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+
+        StringBuilder token = new StringBuilder(TOKEN_BYTES * 2);
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        return token.toString();
+    }
+}
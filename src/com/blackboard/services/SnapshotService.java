@@ -0,0 +1,30 @@
+package com.blackboard.services;
+
+public class SnapshotService {
+    private AuthenticationService authService;
+    private CourseService courseService;
+    private AssignmentService assignmentService;
+    private GradeService gradeService;
+
+    public SnapshotService(AuthenticationService authService, CourseService courseService,
+                           AssignmentService assignmentService, GradeService gradeService) {
+        this.authService = authService;
+        this.courseService = courseService;
+        this.assignmentService = assignmentService;
+        this.gradeService = gradeService;
+    }
+
+    // Takes a point-in-time view of users, courses, enrollments, grading policies, assignments and grades in O(1)
+    // Use it with try-with-resources so it is always released
+    public StateSnapshot openSnapshot() {
+        synchronized (VersionedStore.WRITE_LOCK) {
+            return new StateSnapshot(VersionedStore.currentVersion(),
+                    authService.getUserStore().snapshot(),
+                    courseService.getCourseStore().snapshot(),
+                    courseService.getEnrollmentStore().snapshot(),
+                    courseService.getPolicyStore().snapshot(),
+                    assignmentService.getAssignmentStore().snapshot(),
+                    gradeService.getGradeStore().snapshot());
+        }
+    }
+}
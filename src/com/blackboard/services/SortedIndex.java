@@ -0,0 +1,66 @@
+package com.blackboard.services;
+
+import com.blackboard.models.Page;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Keeps entities sorted by ID and by name for paged listings.
+// A cursor is the sort key of the last item on the previous page, so the next page starts right
+// after it even if entities were added or removed in between: nothing is skipped or shown twice,
+// and each page costs O(log n + page size) without copying the whole population.
+public class SortedIndex<T> {
+    public static final String SORT_BY_ID = "ID";
+    public static final String SORT_BY_NAME = "NAME";
+
+    private TreeMap<String, T> byId;
+    private TreeMap<String, T> byName;        // lowercase name + '\0' + id -> entity (the id breaks ties)
+    private HashMap<String, String> nameKeys; // id -> its key in byName, so renames can be undone
+
+    public SortedIndex() {
+        this.byId = new TreeMap<>();
+        this.byName = new TreeMap<>();
+        this.nameKeys = new HashMap<>();
+    }
+
+    // Adds an entity or moves it to its new name position
+    public synchronized void put(String id, String name, T entity) {
+        remove(id);
+        String nameKey = (name == null ? "" : name.toLowerCase()) + '\0' + id;
+        byId.put(id, entity);
+        byName.put(nameKey, entity);
+        nameKeys.put(id, nameKey);
+    }
+
+    public synchronized void remove(String id) {
+        String nameKey = nameKeys.remove(id);
+        if (nameKey != null) {
+            byName.remove(nameKey);
+        }
+        byId.remove(id);
+    }
+
+    // Returns up to pageSize entities after the cursor (null cursor = first page)
+    public synchronized Page<T> getPage(String sortBy, String cursor, int pageSize) {
+        TreeMap<String, T> sorted = SORT_BY_NAME.equals(sortBy) ? byName : byId;
+        Map<String, T> rest = cursor == null ? sorted : sorted.tailMap(cursor, false);
+
+        ArrayList<T> items = new ArrayList<>();
+        String lastKey = null;
+        boolean more = false;
+        for (Map.Entry<String, T> entry : rest.entrySet()) {
+            if (items.size() == pageSize) {
+                more = true;
+                break;
+            }
+            items.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        return new Page<>(items, more ? lastKey : null);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+}
@@ -0,0 +1,94 @@
+package com.blackboard.services;
+
+import com.blackboard.models.Assignment;
+import com.blackboard.models.Course;
+import com.blackboard.models.Grade;
+import com.blackboard.models.GradingPolicy;
+import com.blackboard.models.User;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// A consistent, read-only view of all service state at one point in time.
+// Close it when the report is finished so writers stop copying for it.
+public class StateSnapshot implements AutoCloseable {
+    private long version;
+    private VersionedStore.Snapshot<User> users;
+    private VersionedStore.Snapshot<Course> courses;
+    private VersionedStore.Snapshot<List<Course>> enrollments;
+    private VersionedStore.Snapshot<GradingPolicy> policies;
+    private VersionedStore.Snapshot<Assignment> assignments;
+    private VersionedStore.Snapshot<Grade> grades;
+
+    StateSnapshot(long version, VersionedStore.Snapshot<User> users,
+                  VersionedStore.Snapshot<Course> courses,
+                  VersionedStore.Snapshot<List<Course>> enrollments,
+                  VersionedStore.Snapshot<GradingPolicy> policies,
+                  VersionedStore.Snapshot<Assignment> assignments,
+                  VersionedStore.Snapshot<Grade> grades) {
+        this.version = version;
+        this.users = users;
+        this.courses = courses;
+        this.enrollments = enrollments;
+        this.policies = policies;
+        this.assignments = assignments;
+        this.grades = grades;
+    }
+
+    // The write version this snapshot was taken at
+    public long getVersion() {
+        return version;
+    }
+
+    public Collection<User> getUsers() {
+        return users.values();
+    }
+
+    public User findUserById(String userId) {
+        return users.get(userId);
+    }
+
+    public Collection<Course> getCourses() {
+        return courses.values();
+    }
+
+    public Course findCourseById(String courseId) {
+        return courses.get(courseId);
+    }
+
+    // The courses the student was enrolled in when the snapshot was taken. Use these rather than
+    // Student.getEnrolledCourses(), which is the live list. (Only IDs and ordinals are fixed; other
+    // course fields are live, except the grading policy below.)
+    public List<Course> getEnrolledCourses(String studentId) {
+        List<Course> enrolled = enrollments.get(studentId);
+        return enrolled != null ? enrolled : Collections.emptyList();
+    }
+
+    // The course's grading policy when the snapshot was taken (null for plain points)
+    public GradingPolicy getGradingPolicy(String courseId) {
+        return policies.get(courseId);
+    }
+
+    public Collection<Assignment> getAssignments() {
+        return assignments.values();
+    }
+
+    public Assignment findAssignmentById(String assignmentId) {
+        return assignments.get(assignmentId);
+    }
+
+    public Collection<Grade> getGrades() {
+        return grades.values();
+    }
+
+    // Releases the snapshot; safe to call more than once
+    @Override
+    public void close() {
+        users.release();
+        courses.release();
+        enrollments.release();
+        policies.release();
+        assignments.release();
+        grades.release();
+    }
+}
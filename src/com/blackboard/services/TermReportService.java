@@ -0,0 +1,228 @@
+package com.blackboard.services;
+
+import com.blackboard.models.Assignment;
+import com.blackboard.models.Course;
+import com.blackboard.models.Grade;
+import com.blackboard.models.Student;
+import com.blackboard.models.TermReportSummary;
+import com.blackboard.models.User;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// End-of-term job: every student's percentage and letter grade in each enrolled course, and their GPA.
+// Works from a snapshot, so it sees one consistent state while teachers keep grading.
+// 1. Each course's grading policy is compiled once; one pass over all grades then collects the
+//    points each student earned on every assignment of their enrolled courses.
+// 2. Students are split into chunks that a fork/join pool turns into report lines.
+// 3. Chunks are written to the file in order as they finish, so the report streams out
+//    while later chunks are still being computed.
+public class TermReportService {
+    private static final int CHUNK_SIZE = 512; // Students per task
+    private static final String HEADER = "studentId,name,major,gpa,courses";
+
+    // Letter grades: minimum percentage and grade points
+    private static final double[] LETTER_MINIMUMS = {90.0, 80.0, 70.0, 60.0, 0.0};
+    private static final String[] LETTERS = {"A", "B", "C", "D", "F"};
+    private static final double[] GRADE_POINTS = {4.0, 3.0, 2.0, 1.0, 0.0};
+
+    private SnapshotService snapshotService;
+    private int parallelism;
+
+    public TermReportService(SnapshotService snapshotService) {
+        this(snapshotService, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TermReportService(SnapshotService snapshotService, int parallelism) {
+        this.snapshotService = snapshotService;
+        this.parallelism = parallelism;
+    }
+
+    // Writes the report (CSV, one line per student, sorted by ID) and returns what it did
+    public TermReportSummary generateReport(String reportFile) throws IOException {
+        long start = System.nanoTime();
+        ArrayList<Student> students = new ArrayList<>();
+        HashMap<String, GradeEvaluator> evaluatorByCourse = new HashMap<>(); // Courses that have assignments
+        // Per student (by position in the sorted list): enrolled course IDs, and the points earned on
+        // every assignment of those courses in one array, each course starting at its offset
+        // (-1 if the course has no assignments)
+        String[][] courseIdsBySlot;
+        int[][] offsetsBySlot;
+        double[][] pointsBySlot;
+        int gradeCount = 0;
+
+        try (StateSnapshot snapshot = snapshotService.openSnapshot()) {
+            for (User user : snapshot.getUsers()) {
+                if (user instanceof Student) {
+                    students.add((Student) user);
+                }
+            }
+            students.sort(Comparator.comparing(User::getUserId));
+
+            // Each course's policy compiled once against its assignments, and where each assignment sits
+            HashMap<String, ArrayList<Assignment>> assignmentsByCourse = new HashMap<>();
+            for (Assignment assignment : snapshot.getAssignments()) {
+                assignmentsByCourse.computeIfAbsent(assignment.getCourseId(), id -> new ArrayList<>()).add(assignment);
+            }
+            HashMap<String, AssignmentSlot> slotByAssignment = new HashMap<>();
+            for (Course course : snapshot.getCourses()) {
+                ArrayList<Assignment> courseAssignments = assignmentsByCourse.get(course.getCourseId());
+                if (courseAssignments == null) {
+                    continue;
+                }
+                evaluatorByCourse.put(course.getCourseId(),
+                                      GradingPolicyEngine.compile(snapshot.getGradingPolicy(course.getCourseId()),
+                                                                  courseAssignments));
+                for (int i = 0; i < courseAssignments.size(); i++) {
+                    slotByAssignment.put(courseAssignments.get(i).getAssignmentId(),
+                                         new AssignmentSlot(course.getCourseId(), i));
+                }
+            }
+
+            HashMap<String, Integer> slotByStudent = new HashMap<>();
+            courseIdsBySlot = new String[students.size()][];
+            offsetsBySlot = new int[students.size()][];
+            pointsBySlot = new double[students.size()][];
+            for (int slot = 0; slot < students.size(); slot++) {
+                List<Course> enrolled = snapshot.getEnrolledCourses(students.get(slot).getUserId());
+                courseIdsBySlot[slot] = new String[enrolled.size()];
+                offsetsBySlot[slot] = new int[enrolled.size()];
+                int length = 0;
+                for (int c = 0; c < enrolled.size(); c++) {
+                    String courseId = enrolled.get(c).getCourseId();
+                    GradeEvaluator evaluator = evaluatorByCourse.get(courseId);
+                    courseIdsBySlot[slot][c] = courseId;
+                    offsetsBySlot[slot][c] = evaluator != null ? length : -1;
+                    length += evaluator != null ? evaluator.getAssignmentCount() : 0;
+                }
+                pointsBySlot[slot] = new double[length];
+                slotByStudent.put(students.get(slot).getUserId(), slot);
+            }
+
+            // Put every grade in its student's points for the course, once
+            for (Grade grade : snapshot.getGrades()) {
+                AssignmentSlot assignmentSlot = slotByAssignment.get(grade.getAssignmentId());
+                Integer slot = slotByStudent.get(grade.getStudentId());
+                if (assignmentSlot == null || slot == null) {
+                    continue; // Assignment, course or student no longer exists
+                }
+                String[] courseIds = courseIdsBySlot[slot];
+                for (int c = 0; c < courseIds.length; c++) {
+                    if (courseIds[c].equals(assignmentSlot.courseId)) {
+                        pointsBySlot[slot][offsetsBySlot[slot][c] + assignmentSlot.position] = grade.getPoints();
+                        gradeCount++;
+                        break;
+                    }
+                }
+            }
+        }
+
+        int courseGradeCount = 0;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(reportFile), StandardCharsets.UTF_8)) {
+            ArrayList<ForkJoinTask<ReportChunk>> chunks = new ArrayList<>();
+            for (int from = 0; from < students.size(); from += CHUNK_SIZE) {
+                int chunkStart = from;
+                int chunkEnd = Math.min(from + CHUNK_SIZE, students.size());
+                chunks.add(pool.submit(() -> buildChunk(students, chunkStart, chunkEnd, evaluatorByCourse,
+                                                        courseIdsBySlot, offsetsBySlot, pointsBySlot)));
+            }
+
+            writer.write(HEADER + "\n");
+            for (ForkJoinTask<ReportChunk> task : chunks) {
+                ReportChunk chunk = task.join();
+                writer.write(chunk.lines.toString());
+                courseGradeCount += chunk.courseGrades;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        return new TermReportSummary(reportFile, students.size(), courseGradeCount, gradeCount, elapsedMillis);
+    }
+
+    // Letter grade for a percentage (A is 90 and above, F below 60)
+    public static String toLetter(double percentage) {
+        return LETTERS[letterIndex(percentage)];
+    }
+
+    // Grade points for a percentage on the 4.0 scale
+    public static double toGradePoints(double percentage) {
+        return GRADE_POINTS[letterIndex(percentage)];
+    }
+
+    // Anything below the last minimum (a negative or NaN percentage) counts as F
+    private static int letterIndex(double percentage) {
+        int i = 0;
+        while (i < LETTER_MINIMUMS.length - 1 && !(percentage >= LETTER_MINIMUMS[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    // Report lines for students[from, to). Runs on the pool; only reads the grouped arrays.
+    private static ReportChunk buildChunk(ArrayList<Student> students, int from, int to,
+                                          HashMap<String, GradeEvaluator> evaluatorByCourse,
+                                          String[][] courseIdsBySlot, int[][] offsetsBySlot,
+                                          double[][] pointsBySlot) {
+        ReportChunk chunk = new ReportChunk();
+        StringBuilder courseText = new StringBuilder();
+        for (int slot = from; slot < to; slot++) {
+            Student student = students.get(slot);
+            courseText.setLength(0);
+            double gradePointTotal = 0.0;
+            int graded = 0;
+
+            for (int c = 0; c < courseIdsBySlot[slot].length; c++) {
+                String courseId = courseIdsBySlot[slot][c];
+                int offset = offsetsBySlot[slot][c];
+                if (offset < 0) {
+                    continue; // No assignments yet (or the course is gone), so no grade
+                }
+                double percentage = evaluatorByCourse.get(courseId).evaluate(pointsBySlot[slot], offset);
+                if (courseText.length() > 0) {
+                    courseText.append(';');
+                }
+                courseText.append(courseId).append(' ')
+                          .append(String.format(Locale.ROOT, "%.2f", percentage)).append(' ')
+                          .append(toLetter(percentage));
+                gradePointTotal += toGradePoints(percentage);
+                graded++;
+            }
+
+            chunk.lines.append(student.getUserId()).append(',')
+                       .append(student.getName()).append(',')
+                       .append(student.getMajor()).append(',')
+                       .append(graded > 0 ? String.format(Locale.ROOT, "%.2f", gradePointTotal / graded) : "")
+                       .append(',').append(courseText).append('\n');
+            chunk.courseGrades += graded;
+        }
+        return chunk;
+    }
+
+    // Where an assignment's points go: its course and its position in the course's evaluator
+    private static class AssignmentSlot {
+        String courseId;
+        int position;
+
+        AssignmentSlot(String courseId, int position) {
+            this.courseId = courseId;
+            this.position = position;
+        }
+    }
+
+    private static class ReportChunk {
+        StringBuilder lines = new StringBuilder();
+        int courseGrades;
+    }
+}
@@ -0,0 +1,163 @@
+package com.blackboard.services;
+
+import java.util.ArrayList;
+
+// Hierarchical timer wheel: 4 levels of 64 slots. Level 0 holds timers due within 64 ticks,
+// level 1 within 64^2 ticks, and so on. Scheduling and cancelling are O(1); a timer is moved
+// down a level at most 3 times before it fires. Not thread safe; the owner synchronizes.
+public class TimerWheel<T> {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private long tickMillis;
+    private long currentTick;
+    private Timer<T>[][] wheels;  // Each slot is a sentinel of a circular doubly linked list
+    private Timer<T> overflow;    // Timers further away than the wheel can hold
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = new Timer[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new Timer<>(0, null);
+            }
+        }
+        this.overflow = new Timer<>(0, null);
+    }
+
+    // Schedules a payload to fire at the given time; returns a handle for cancel
+    public Timer<T> schedule(long deadlineMillis, T payload) {
+        Timer<T> timer = new Timer<>(deadlineMillis / tickMillis, payload);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    // Cancels a timer in O(1); returns false if it already fired or was cancelled
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.next == null) {
+            return false;
+        }
+        timer.unlink();
+        size--;
+        return true;
+    }
+
+    // Moves time forward and returns the payloads of every timer that became due
+    public ArrayList<T> advanceTo(long nowMillis) {
+        ArrayList<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            Timer<T> slot = wheels[0][(int) (currentTick & SLOT_MASK)];
+            while (slot.next != slot) {
+                Timer<T> timer = slot.next;
+                timer.unlink();
+                size--;
+                expired.add(timer.payload);
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    // When a lower level wraps around, the matching slot of the level above is spread out below it
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            long lowerBits = currentTick & ((1L << (SLOT_BITS * level)) - 1);
+            if (lowerBits != 0) {
+                return;
+            }
+            int index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            replaceAll(wheels[level][index]);
+            if (level == LEVELS - 1) {
+                replaceAll(overflow);
+            }
+        }
+    }
+
+    private void replaceAll(Timer<T> slot) {
+        Timer<T> first = slot.next;
+        slot.next = slot;
+        slot.previous = slot;
+
+        Timer<T> timer = first;
+        while (timer != slot) {
+            Timer<T> next = timer.next;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    // Puts a timer in the slot matching how far away its deadline is
+    private void place(Timer<T> timer) {
+        long deadlineTick = timer.deadlineTick;
+        long delta = deadlineTick - currentTick;
+
+        if (delta <= 0) {
+            // Already due: fire on the next tick
+            timer.linkBefore(wheels[0][(int) ((currentTick + 1) & SLOT_MASK)]);
+            return;
+        }
+
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < (1L << (SLOT_BITS * (level + 1)))) {
+                int index = (int) ((deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                timer.linkBefore(wheels[level][index]);
+                return;
+            }
+        }
+        timer.linkBefore(overflow);
+    }
+
+    // A scheduled timer (also used as the list sentinel of each slot)
+    public static class Timer<T> {
+        private long deadlineTick;
+        private T payload;
+        private Timer<T> previous;
+        private Timer<T> next;
+
+        private Timer(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+            if (payload == null) {
+                // Sentinel: an empty circular list
+                this.previous = this;
+                this.next = this;
+            }
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        private void linkBefore(Timer<T> sentinel) {
+            previous = sentinel.previous;
+            next = sentinel;
+            sentinel.previous.next = this;
+            sentinel.previous = this;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = null;
+            next = null;
+        }
+    }
+}
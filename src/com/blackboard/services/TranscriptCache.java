@@ -0,0 +1,298 @@
+package com.blackboard.services;
+
+import com.blackboard.events.AssignmentChanged;
+import com.blackboard.events.CourseChanged;
+import com.blackboard.events.CourseDeleted;
+import com.blackboard.events.DomainEvent;
+import com.blackboard.events.EventListener;
+import com.blackboard.events.GradeDeleted;
+import com.blackboard.events.GradeRecorded;
+import com.blackboard.events.StudentEnrolled;
+import com.blackboard.events.UserDeleted;
+import com.blackboard.models.Assignment;
+import com.blackboard.models.Course;
+import com.blackboard.models.Grade;
+import com.blackboard.models.Student;
+import com.blackboard.models.Transcript;
+import com.blackboard.models.TranscriptRow;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+// Caches each student's resolved grade rows and course percentages.
+// Listens to the event bus: grade and enrollment changes drop the student's entry, assignment and
+// course changes patch the cached entries they affect in place of dropping them.
+public class TranscriptCache implements EventListener {
+    private static final int DEFAULT_MAX_ENTRIES = 2000;
+
+    private AssignmentService assignmentService;
+    private GradeService gradeService;
+    private int maxEntries;
+
+    // studentId -> transcript, in access order so the least recently used one is evicted
+    private LinkedHashMap<String, Transcript> transcripts;
+    // courseId -> IDs of cached students whose transcript includes that course
+    private HashMap<String, HashSet<String>> cachedStudentsByCourse;
+    private long hits;
+    private long misses;
+
+    public TranscriptCache(AssignmentService assignmentService, GradeService gradeService) {
+        this(assignmentService, gradeService, DEFAULT_MAX_ENTRIES);
+    }
+
+    public TranscriptCache(AssignmentService assignmentService, GradeService gradeService, int maxEntries) {
+        this.assignmentService = assignmentService;
+        this.gradeService = gradeService;
+        this.maxEntries = maxEntries;
+        this.cachedStudentsByCourse = new HashMap<>();
+        this.transcripts = new LinkedHashMap<String, Transcript>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Transcript> eldest) {
+                if (size() > TranscriptCache.this.maxEntries) {
+                    unindexTranscript(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Returns the student's transcript, building it only if it isn't cached
+    public synchronized Transcript getTranscript(Student student) {
+        Transcript transcript = transcripts.get(student.getUserId());
+        if (transcript != null) {
+            hits++;
+            return transcript;
+        }
+
+        misses++;
+        transcript = buildTranscript(student);
+        transcripts.put(student.getUserId(), transcript);
+        indexTranscript(transcript);
+        return transcript;
+    }
+
+    // Drops one student's transcript
+    public synchronized void invalidateStudent(String studentId) {
+        Transcript transcript = transcripts.remove(studentId);
+        if (transcript != null) {
+            unindexTranscript(transcript);
+        }
+    }
+
+    // Drops the transcripts of every cached student that has rows in this course
+    public synchronized void invalidateCourse(String courseId) {
+        HashSet<String> students = cachedStudentsByCourse.remove(courseId);
+        if (students == null) {
+            return;
+        }
+        for (String studentId : students) {
+            invalidateStudent(studentId);
+        }
+    }
+
+    public synchronized void clear() {
+        transcripts.clear();
+        cachedStudentsByCourse.clear();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof GradeRecorded) {
+            invalidateStudent(((GradeRecorded) event).getStudentId());
+        } else if (event instanceof GradeDeleted) {
+            invalidateStudent(((GradeDeleted) event).getStudentId());
+        } else if (event instanceof StudentEnrolled) {
+            invalidateStudent(((StudentEnrolled) event).getStudentId());
+        } else if (event instanceof AssignmentChanged) {
+            assignmentChanged((AssignmentChanged) event);
+        } else if (event instanceof CourseChanged) {
+            courseChanged(((CourseChanged) event).getCourse().getCourseId()); // e.g. a new grading policy
+        } else if (event instanceof CourseDeleted) {
+            invalidateCourse(((CourseDeleted) event).getCourseId());
+        } else if (event instanceof UserDeleted) {
+            invalidateStudent(((UserDeleted) event).getUserId());
+        }
+    }
+
+    public synchronized int size() {
+        return transcripts.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // An assignment was created, edited, moved or deleted: its row is patched into the cached
+    // transcripts with rows in its old or new course, using the assignment's grade list, and only
+    // those courses' percentages are recomputed, one batch per course. Everything else in the
+    // transcripts is kept, so a change in a 400-student course costs about 400 row patches.
+    // The row comes from the assignment as it is now, not from the event: events are published
+    // after the service lock is released, so two changes can arrive in the other order.
+    private synchronized void assignmentChanged(AssignmentChanged changed) {
+        String assignmentId = changed.getAssignment().getAssignmentId();
+        Assignment assignment = assignmentService.findAssignmentById(assignmentId); // Null: deleted
+        String courseId = (assignment != null) ? assignment.getCourseId() : null;
+
+        LinkedHashSet<String> courseIds = new LinkedHashSet<>();
+        courseIds.add(changed.getPreviousCourseId());
+        courseIds.add(changed.getAssignment().getCourseId());
+        if (courseId != null) {
+            courseIds.add(courseId);
+        }
+        HashSet<String> affected = new HashSet<>();
+        for (String id : courseIds) {
+            addCachedStudents(affected, id);
+        }
+        if (affected.isEmpty()) {
+            return;
+        }
+
+        HashMap<String, Grade> gradeByStudent = new HashMap<>();
+        if (assignment != null) {
+            for (Grade grade : gradeService.getGradesForAssignment(assignmentId)) {
+                gradeByStudent.put(grade.getStudentId(), grade);
+            }
+        }
+
+        for (String studentId : affected) {
+            Transcript transcript = transcripts.get(studentId);
+            Grade grade = gradeByStudent.get(studentId);
+            TranscriptRow row = null;
+            if (assignment != null && (transcript.isEnrolledIn(courseId) || grade != null)) {
+                row = toRow(assignment, grade);
+            }
+            for (String id : courseIds) {
+                // Drops the row from every course but the assignment's current one
+                transcript = transcript.withRowReplaced(id, assignmentId, id.equals(courseId) ? row : null);
+            }
+            replaceTranscript(transcript);
+        }
+        for (String id : courseIds) {
+            recalculateCourse(id, affected);
+        }
+    }
+
+    // The course's grading policy (or something else about it) changed: recompute its percentage
+    // in the cached transcripts, leaving the rows alone
+    private synchronized void courseChanged(String courseId) {
+        HashSet<String> affected = new HashSet<>();
+        addCachedStudents(affected, courseId);
+        for (String studentId : affected) {
+            replaceTranscript(transcripts.get(studentId).copy());
+        }
+        recalculateCourse(courseId, affected);
+    }
+
+    // Sets the course's percentage in the transcripts of the given students that are enrolled in it,
+    // computing them as one batch. Only call with transcripts this thread just copied.
+    private void recalculateCourse(String courseId, Collection<String> studentIds) {
+        ArrayList<String> enrolled = new ArrayList<>();
+        for (String studentId : studentIds) {
+            if (transcripts.get(studentId).isEnrolledIn(courseId)) {
+                enrolled.add(studentId);
+            }
+        }
+        if (enrolled.isEmpty()) {
+            return;
+        }
+
+        ArrayList<Assignment> courseAssignments = assignmentService.getAssignmentsForCourse(courseId);
+        double[] percentages = gradeService.calculateFinalGradesForCourse(enrolled, courseId, courseAssignments);
+        for (int i = 0; i < enrolled.size(); i++) {
+            Transcript transcript = transcripts.get(enrolled.get(i));
+            if (courseAssignments.isEmpty()) {
+                transcript.clearCoursePercentage(courseId); // Same as buildTranscript: no assignments, no grade
+            } else {
+                transcript.setCoursePercentage(courseId, percentages[i]);
+            }
+        }
+    }
+
+    private void addCachedStudents(HashSet<String> studentIds, String courseId) {
+        HashSet<String> students = cachedStudentsByCourse.get(courseId);
+        if (students != null) {
+            studentIds.addAll(students);
+        }
+    }
+
+    // Swaps in an updated copy of a cached transcript
+    private void replaceTranscript(Transcript transcript) {
+        Transcript previous = transcripts.put(transcript.getStudentId(), transcript);
+        if (previous != null) {
+            unindexTranscript(previous);
+        }
+        indexTranscript(transcript);
+    }
+
+    // Resolves every row once: enrolled courses with all their assignments, plus any other graded work
+    private Transcript buildTranscript(Student student) {
+        Transcript transcript = new Transcript(student.getUserId());
+        HashSet<String> coveredAssignments = new HashSet<>();
+
+        for (Course course : student.getEnrolledCourses()) {
+            transcript.addEnrolledCourse(course.getCourseId());
+            ArrayList<Assignment> courseAssignments = assignmentService.getAssignmentsForCourse(course.getCourseId());
+            for (Assignment assignment : courseAssignments) {
+                Grade grade = gradeService.getGradeForStudentAndAssignment(student.getUserId(),
+                                                                           assignment.getAssignmentId());
+                transcript.addRow(toRow(assignment, grade));
+                coveredAssignments.add(assignment.getAssignmentId());
+            }
+            if (!courseAssignments.isEmpty()) {
+                transcript.setCoursePercentage(course.getCourseId(),
+                        gradeService.calculateFinalGradeForCourse(student.getUserId(),
+                                                                  course.getCourseId(), courseAssignments));
+            }
+        }
+
+        // Grades for assignments outside the current enrollments still show up in "My Grades"
+        for (Grade grade : gradeService.getGradesForStudent(student.getUserId())) {
+            if (!coveredAssignments.contains(grade.getAssignmentId())) {
+                Assignment assignment = assignmentService.findAssignmentById(grade.getAssignmentId());
+                if (assignment != null) {
+                    transcript.addRow(toRow(assignment, grade));
+                }
+            }
+        }
+        return transcript;
+    }
+
+    private TranscriptRow toRow(Assignment assignment, Grade grade) {
+        return new TranscriptRow(assignment.getCourseId(), assignment.getAssignmentId(),
+                                 assignment.getTitle(), assignment.getDueDate(),
+                                 assignment.getMaxPoints(), grade != null,
+                                 grade != null ? grade.getPoints() : 0.0);
+    }
+
+    private void indexTranscript(Transcript transcript) {
+        for (String courseId : transcript.getCourseIds()) {
+            HashSet<String> students = cachedStudentsByCourse.get(courseId);
+            if (students == null) {
+                students = new HashSet<>();
+                cachedStudentsByCourse.put(courseId, students);
+            }
+            students.add(transcript.getStudentId());
+        }
+    }
+
+    private void unindexTranscript(Transcript transcript) {
+        for (String courseId : transcript.getCourseIds()) {
+            HashSet<String> students = cachedStudentsByCourse.get(courseId);
+            if (students != null) {
+                students.remove(transcript.getStudentId());
+                if (students.isEmpty()) {
+                    cachedStudentsByCourse.remove(courseId);
+                }
+            }
+        }
+    }
+}
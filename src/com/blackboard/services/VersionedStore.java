@@ -0,0 +1,163 @@
+package com.blackboard.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Insertion-ordered id -> entity store with copy-on-write snapshots.
+// Taking a snapshot is O(1): it just shares the current map. The first write after a
+// snapshot copies the map once, so open snapshots keep seeing the old version while
+// writers continue on the new one.
+// WRITE_LOCK is only taken by writes and snapshots. Reads take this store's read lock, which
+// waits only for a single put or remove on this store, never for the copy: the copy is made
+// while reads of the map it copies carry on, and then swapped in.
+public class VersionedStore<T> {
+    // One lock for every store, so a snapshot of several stores is a single point in time
+    static final Object WRITE_LOCK = new Object();
+    private static volatile long version = 0; // Only changed under WRITE_LOCK
+
+    private volatile LinkedHashMap<String, T> current; // Only replaced under WRITE_LOCK
+    private final ReentrantReadWriteLock mapLock = new ReentrantReadWriteLock(); // Guards changes to current
+    private int openSnapshots; // Snapshots still reading the current map (guarded by WRITE_LOCK)
+
+    public VersionedStore() {
+        this.current = new LinkedHashMap<>();
+    }
+
+    // Returns the entity with this id, or null
+    public T get(String id) {
+        mapLock.readLock().lock();
+        try {
+            return current.get(id);
+        } finally {
+            mapLock.readLock().unlock();
+        }
+    }
+
+    public boolean containsId(String id) {
+        mapLock.readLock().lock();
+        try {
+            return current.containsKey(id);
+        } finally {
+            mapLock.readLock().unlock();
+        }
+    }
+
+    // Adds or replaces the entity with this id
+    public void put(String id, T entity) {
+        synchronized (WRITE_LOCK) {
+            prepareWrite();
+            mapLock.writeLock().lock();
+            try {
+                current.put(id, entity);
+            } finally {
+                mapLock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Removes the entity with this id and returns it, or null if there was none
+    public T remove(String id) {
+        synchronized (WRITE_LOCK) {
+            if (!current.containsKey(id)) { // Writers are the only ones changing the map, so no read lock
+                return null;
+            }
+            prepareWrite();
+            mapLock.writeLock().lock();
+            try {
+                return current.remove(id);
+            } finally {
+                mapLock.writeLock().unlock();
+            }
+        }
+    }
+
+    public int size() {
+        mapLock.readLock().lock();
+        try {
+            return current.size();
+        } finally {
+            mapLock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Returns a copy of the current values in insertion order
+    public ArrayList<T> toList() {
+        mapLock.readLock().lock();
+        try {
+            return new ArrayList<>(current.values());
+        } finally {
+            mapLock.readLock().unlock();
+        }
+    }
+
+    // Returns a read-only view of the current version and pins it until the snapshot is released
+    // Callers must hold WRITE_LOCK when taking snapshots of several stores together
+    Snapshot<T> snapshot() {
+        synchronized (WRITE_LOCK) {
+            openSnapshots++;
+            return new Snapshot<>(this, current);
+        }
+    }
+
+    // Returns the global version (incremented by every write to any store)
+    static long currentVersion() {
+        return version;
+    }
+
+    // Copies the map if a snapshot is reading it, so the snapshot never sees this write.
+    // Caller holds WRITE_LOCK, so nothing changes the map while it is copied and reads go on;
+    // a reader still holding the old map is fine, since from here on only snapshots use it.
+    private void prepareWrite() {
+        version++;
+        if (openSnapshots > 0) {
+            current = new LinkedHashMap<>(current);
+            openSnapshots = 0; // Old snapshots now own the old map alone
+        }
+    }
+
+    private void release(LinkedHashMap<String, T> map) {
+        synchronized (WRITE_LOCK) {
+            if (map == current && openSnapshots > 0) {
+                openSnapshots--;
+            }
+        }
+    }
+
+    // A frozen version of one store
+    public static class Snapshot<T> {
+        private VersionedStore<T> store;
+        private LinkedHashMap<String, T> map;
+        private boolean released;
+
+        private Snapshot(VersionedStore<T> store, LinkedHashMap<String, T> map) {
+            this.store = store;
+            this.map = map;
+        }
+
+        public T get(String id) {
+            return map.get(id);
+        }
+
+        public Collection<T> values() {
+            return Collections.unmodifiableCollection(map.values());
+        }
+
+        public int size() {
+            return map.size();
+        }
+
+        void release() {
+            if (!released) {
+                released = true;
+                store.release(map);
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.blackboard.tools;
+
+import com.blackboard.services.DataPersistenceService;
+import com.blackboard.services.IdAllocator;
+import com.blackboard.utils.PasswordHasher;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+// Writes a synthetic institution into data/*.txt, in the same format DataPersistenceService reads.
+// The same seed and sizes always give the same files.
+//
+// Usage: java -cp bin com.blackboard.tools.DatasetGenerator [--option=value ...]
+//   --out=data/                  output directory
+//   --seed=42
+//   --students=50000
+//   --courses=2000
+//   --teachers=400
+//   --courses-per-student=5
+//   --assignments-per-course=20
+//   --graded-fraction=0.9        share of (student, assignment) pairs that have a grade
+//   --zipf=1.0                   course popularity skew (0 = uniform, higher = a few huge courses)
+//   --mean-score=0.75            average grade as a fraction of max points
+//
+// Every generated user has the password "password" (ADMIN001 keeps "admin123"). The hash is
+// computed once and shared, so generating users costs nothing.
+public class DatasetGenerator {
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final String PASSWORD = "password";
+    private static final LocalDate TERM_START = LocalDate.of(2025, 9, 1);
+
+    private static final String[] FIRST_NAMES = {"Adam", "Lina", "Omar", "Sara", "Yusuf", "Maya", "Karim", "Nour",
+            "James", "Emma", "Liam", "Olivia", "Noah", "Ava", "Lucas", "Mia", "Ethan", "Zara", "Hugo", "Ines"};
+    private static final String[] LAST_NAMES = {"Saleh", "Haddad", "Khalil", "Nasser", "Smith", "Garcia", "Chen",
+            "Muller", "Rossi", "Silva", "Kim", "Novak", "Dubois", "Larsen", "Okafor", "Tanaka", "Ivanova", "Cohen"};
+    private static final String[] MAJORS = {"CS", "BBA", "Engineering", "Mathematics", "Physics", "Biology",
+            "Economics", "Psychology", "History", "Design"};
+    private static final String[] SUBJECTS = {"Programming", "Data Structures", "Algorithms", "Databases",
+            "Networks", "Operating Systems", "Calculus", "Linear Algebra", "Statistics", "Microeconomics",
+            "Accounting", "Marketing", "Organic Chemistry", "Genetics", "Mechanics", "Thermodynamics",
+            "World History", "Cognitive Psychology", "Graphic Design", "Machine Learning"};
+    private static final String[] LEVELS = {"Introduction to", "Foundations of", "Applied", "Advanced",
+            "Topics in", "Seminar in"};
+    private static final String[] DESCRIPTION_WORDS = {"theory", "practice", "projects", "lab", "exams",
+            "essays", "teamwork", "case", "studies", "proofs", "modeling", "analysis", "design", "research",
+            "reading", "problem", "solving", "fieldwork", "presentations", "coding"};
+    private static final String[] ASSIGNMENT_KINDS = {"Homework", "Quiz", "Lab", "Essay", "Project",
+            "Midterm", "Problem Set", "Presentation"};
+    private static final double[] MAX_POINTS = {10.0, 20.0, 50.0, 100.0};
+
+    private long seed = 42L;
+    private int students = 50000;
+    private int courses = 2000;
+    private int teachers = 400;
+    private int coursesPerStudent = 5;
+    private int assignmentsPerCourse = 20;
+    private double gradedFraction = 0.9;
+    private double zipfExponent = 1.0;
+    private double meanScore = 0.75;
+    private String outputDir = DataPersistenceService.DEFAULT_DATA_DIR;
+
+    private Random random;
+    private int[][] enrollments;     // student -> course indexes
+    private int[] enrollmentCounts;  // course -> number of students
+    private double[] maxPoints;      // course * assignmentsPerCourse + a -> max points
+    private String[] courseIds;
+    private String[] assignmentIds;  // course * assignmentsPerCourse + a -> ID
+    private long bytesWritten;
+
+    public static void main(String[] args) throws IOException {
+        DatasetGenerator generator = new DatasetGenerator();
+        for (String arg : args) {
+            generator.applyOption(arg);
+        }
+        generator.generate();
+    }
+
+    // Writes every file; returns the number of grade rows written
+    public long generate() throws IOException {
+        if (courses < 1 || teachers < 1 || coursesPerStudent > courses) {
+            throw new IllegalArgumentException("Need at least one course and teacher, and no more "
+                    + "courses per student than courses");
+        }
+        long start = System.nanoTime();
+        random = new Random(seed);
+        Path dir = Paths.get(outputDir);
+        Files.createDirectories(dir);
+
+        String passwordHash = PasswordHasher.hash(PASSWORD, PasswordHasher.MIN_ITERATIONS);
+        String adminHash = PasswordHasher.hash("admin123", PasswordHasher.MIN_ITERATIONS);
+
+        pickEnrollments();
+        writeUsers(dir.resolve(DataPersistenceService.USERS_FILE), passwordHash, adminHash);
+        writeCourses(dir.resolve(DataPersistenceService.COURSES_FILE));
+        writeEnrollments(dir.resolve(DataPersistenceService.ENROLLMENTS_FILE));
+        writeAssignments(dir.resolve(DataPersistenceService.ASSIGNMENTS_FILE));
+        long gradeCount = writeGrades(dir.resolve(DataPersistenceService.GRADES_FILE));
+        writeIds(dir.resolve(DataPersistenceService.IDS_FILE), gradeCount);
+
+        long millis = (System.nanoTime() - start) / 1000000;
+        System.out.println("Generated " + students + " students, " + teachers + " teachers, " + courses
+                + " courses, " + (long) courses * assignmentsPerCourse + " assignments and " + gradeCount
+                + " grades in " + dir.toAbsolutePath());
+        System.out.println(String.format("Wrote %.1f MB in %d ms", bytesWritten / (1024.0 * 1024.0), millis));
+        return gradeCount;
+    }
+
+    // Parses one --name=value argument
+    public void applyOption(String arg) {
+        int equals = arg.indexOf('=');
+        if (!arg.startsWith("--") || equals < 0) {
+            throw new IllegalArgumentException("Expected --option=value but got: " + arg);
+        }
+        String name = arg.substring(2, equals);
+        String value = arg.substring(equals + 1);
+        switch (name) {
+            case "out":
+                outputDir = value;
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "students":
+                students = Integer.parseInt(value);
+                break;
+            case "courses":
+                courses = Integer.parseInt(value);
+                break;
+            case "teachers":
+                teachers = Integer.parseInt(value);
+                break;
+            case "courses-per-student":
+                coursesPerStudent = Integer.parseInt(value);
+                break;
+            case "assignments-per-course":
+                assignmentsPerCourse = Integer.parseInt(value);
+                break;
+            case "graded-fraction":
+                gradedFraction = Double.parseDouble(value);
+                break;
+            case "zipf":
+                zipfExponent = Double.parseDouble(value);
+                break;
+            case "mean-score":
+                meanScore = Double.parseDouble(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: --" + name);
+        }
+    }
+
+    // Each student draws distinct courses from a Zipf distribution over course popularity
+    private void pickEnrollments() {
+        double[] cumulative = new double[courses];
+        double total = 0;
+        for (int c = 0; c < courses; c++) {
+            total += 1.0 / Math.pow(c + 1, zipfExponent);
+            cumulative[c] = total;
+        }
+
+        enrollments = new int[students][];
+        enrollmentCounts = new int[courses];
+        for (int s = 0; s < students; s++) {
+            int[] picked = new int[coursesPerStudent];
+            int count = 0;
+            while (count < coursesPerStudent) {
+                int course = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                course = course < 0 ? Math.min(-course - 1, courses - 1) : course;
+                if (!contains(picked, count, course)) {
+                    picked[count++] = course;
+                    enrollmentCounts[course]++;
+                }
+            }
+            enrollments[s] = picked;
+        }
+
+        // IDs are built once here, not once per row
+        courseIds = new String[courses];
+        maxPoints = new double[courses * assignmentsPerCourse];
+        assignmentIds = new String[courses * assignmentsPerCourse];
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = String.format("C%04d", c + 1);
+            for (int a = 0; a < assignmentsPerCourse; a++) {
+                maxPoints[c * assignmentsPerCourse + a] = MAX_POINTS[random.nextInt(MAX_POINTS.length)];
+                assignmentIds[c * assignmentsPerCourse + a] = courseIds[c] + "-A" + (a + 1);
+            }
+        }
+    }
+
+    private void writeUsers(Path file, String passwordHash, String adminHash) throws IOException {
+        try (Writer out = open(file)) {
+            StringBuilder line = new StringBuilder(128);
+            line.append("ADMIN001,").append(adminHash).append(",System Administrator,ADMIN\n");
+            flush(out, line);
+            for (int t = 0; t < teachers; t++) {
+                line.append(teacherId(t)).append(',').append(passwordHash).append(',');
+                appendName(line);
+                line.append(",TEACHER,").append(MAJORS[random.nextInt(MAJORS.length)]).append('\n');
+                flush(out, line);
+            }
+            for (int s = 0; s < students; s++) {
+                line.append(studentId(s)).append(',').append(passwordHash).append(',');
+                appendName(line);
+                line.append(",STUDENT,").append(MAJORS[random.nextInt(MAJORS.length)]).append('\n');
+                flush(out, line);
+            }
+        }
+    }
+
+    private void writeCourses(Path file) throws IOException {
+        try (Writer out = open(file)) {
+            StringBuilder line = new StringBuilder(256);
+            for (int c = 0; c < courses; c++) {
+                // Room for everyone enrolled plus a little slack, so the data passes the capacity check
+                int capacity = Math.max(30, enrollmentCounts[c] + enrollmentCounts[c] / 10);
+                line.append(courseIds[c]).append(',')
+                    .append(LEVELS[random.nextInt(LEVELS.length)]).append(' ')
+                    .append(SUBJECTS[c % SUBJECTS.length]).append(' ').append(100 + c / SUBJECTS.length).append(',');
+                for (int w = 0; w < 6; w++) {
+                    line.append(w == 0 ? "" : " ").append(DESCRIPTION_WORDS[random.nextInt(DESCRIPTION_WORDS.length)]);
+                }
+                line.append(',').append(teacherId(c % teachers)).append(',').append(capacity).append('\n');
+                flush(out, line);
+            }
+        }
+    }
+
+    private void writeEnrollments(Path file) throws IOException {
+        try (Writer out = open(file)) {
+            StringBuilder line = new StringBuilder(64);
+            for (int s = 0; s < students; s++) {
+                for (int course : enrollments[s]) {
+                    line.append(studentId(s)).append(',').append(courseIds[course]).append('\n');
+                    flush(out, line);
+                }
+            }
+        }
+    }
+
+    private void writeAssignments(Path file) throws IOException {
+        try (Writer out = open(file)) {
+            StringBuilder line = new StringBuilder(160);
+            for (int c = 0; c < courses; c++) {
+                for (int a = 0; a < assignmentsPerCourse; a++) {
+                    // Spread over a 15-week term, roughly in order
+                    LocalDate due = TERM_START.plusDays((long) a * 105 / assignmentsPerCourse + random.nextInt(4));
+                    line.append(assignmentIds[c * assignmentsPerCourse + a]).append(',').append(courseIds[c]).append(',')
+                        .append(ASSIGNMENT_KINDS[random.nextInt(ASSIGNMENT_KINDS.length)]).append(' ').append(a + 1)
+                        .append(',').append(DESCRIPTION_WORDS[random.nextInt(DESCRIPTION_WORDS.length)])
+                        .append(' ').append(DESCRIPTION_WORDS[random.nextInt(DESCRIPTION_WORDS.length)])
+                        .append(',').append(due).append(',').append(maxPoints[c * assignmentsPerCourse + a])
+                        .append('\n');
+                    flush(out, line);
+                }
+            }
+        }
+    }
+
+    private long writeGrades(Path file) throws IOException {
+        long gradeNumber = 0;
+        try (Writer out = open(file)) {
+            StringBuilder line = new StringBuilder(64);
+            for (int s = 0; s < students; s++) {
+                String studentId = studentId(s);
+                // Each student has their own ability, so course averages look like real classes
+                double ability = meanScore + random.nextGaussian() * 0.1;
+                for (int course : enrollments[s]) {
+                    for (int a = 0; a < assignmentsPerCourse; a++) {
+                        if (random.nextDouble() >= gradedFraction) {
+                            continue;
+                        }
+                        double max = maxPoints[course * assignmentsPerCourse + a];
+                        double score = Math.max(0.0, Math.min(1.0, ability + random.nextGaussian() * 0.12));
+                        double points = Math.round(score * max * 2) / 2.0; // Half points
+                        line.append('G').append(++gradeNumber).append(',').append(studentId).append(',')
+                            .append(assignmentIds[course * assignmentsPerCourse + a]).append(',')
+                            .append(points).append('\n');
+                        flush(out, line);
+                    }
+                }
+            }
+        }
+        return gradeNumber;
+    }
+
+    // So IDs handed out later by the application don't collide with the generated ones
+    private void writeIds(Path file, long gradeCount) throws IOException {
+        try (Writer out = open(file)) {
+            StringBuilder line = new StringBuilder();
+            line.append(IdAllocator.STUDENT).append(',').append(students).append('\n');
+            line.append(IdAllocator.GRADE).append(',').append(gradeCount).append('\n');
+            flush(out, line);
+        }
+    }
+
+    // A large buffer over an NIO channel stream keeps the writes sequential and few
+    private Writer open(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+                                  WRITE_BUFFER_SIZE);
+    }
+
+    private void flush(Writer out, StringBuilder line) throws IOException {
+        out.append(line);
+        bytesWritten += line.length(); // All ASCII, so characters = bytes
+        line.setLength(0);
+    }
+
+    private void appendName(StringBuilder line) {
+        line.append(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]).append(' ')
+            .append(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+    }
+
+    // Same shape as AuthenticationService.generateStudentId
+    private static String studentId(int index) {
+        return String.format("STUDENT%03d", index + 1);
+    }
+
+    private static String teacherId(int index) {
+        return String.format("T%04d", index + 1);
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
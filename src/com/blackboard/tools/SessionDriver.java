@@ -0,0 +1,547 @@
+package com.blackboard.tools;
+
+import com.blackboard.events.AsyncSubscription;
+import com.blackboard.events.EventBus;
+import com.blackboard.models.*;
+import com.blackboard.monitoring.LatencyHistogram;
+import com.blackboard.services.*;
+import com.blackboard.views.AdminMenu;
+import com.blackboard.views.MenuActionListener;
+import com.blackboard.views.StudentMenu;
+import com.blackboard.views.TeacherMenu;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs admin, teacher and student sessions against the real menus without a console, many at once,
+// and reports throughput and latency for each kind of menu action. The input of each session is
+// either read from a script or generated at random from the loaded data; the menu output is thrown away.
+// Data is loaded from --data and never saved back.
+//
+// Usage: java -cp bin com.blackboard.tools.SessionDriver [--option=value ...]
+//   --data=data/                   data directory to load, e.g. one written by DatasetGenerator
+//   --sessions=8                   sessions running at the same time
+//   --rounds=20                    sessions each of those runs one after another
+//   --actions=30                   menu actions per random session
+//   --seed=42
+//   --roles=ADMIN,TEACHER,STUDENT  who random sessions log in as (picked 1:3:6)
+//   --password=password            password of every random teacher and student
+//   --admin-password=admin123
+//   --script=sessions.txt          replay these sessions (in turn) instead of random ones
+//
+// A script has one "login <userId> <password>" line per session, followed by the lines to type into
+// that session's menu, ending with the menu's logout choice. Lines starting with # are ignored.
+public class SessionDriver {
+    private static final String ADMIN = "ADMIN";
+    private static final String TEACHER = "TEACHER";
+    private static final String STUDENT = "STUDENT";
+    private static final int ADMIN_WEIGHT = 1;
+    private static final int TEACHER_WEIGHT = 3;
+    private static final int STUDENT_WEIGHT = 6;
+    private static final int LIST_PAGE_SIZE = 20; // Same as AdminMenu, to know when it asks for the next page
+
+    // "menu choice" -> name shown in the report
+    private static final HashMap<String, String> ACTION_NAMES = new HashMap<>();
+
+    static {
+        String[] admin = {"create student", "update student", "delete student", "create teacher",
+                "update teacher", "delete teacher", "create course", "delete course", "assign teacher",
+                "enroll student", "view all students", "view all teachers", "view all courses", "search",
+                "system stats", "term report", "integrity check", "logout"};
+        String[] teacher = {"view my courses", "view students in course", "create assignment", "enter grade",
+                "view assignments for course", "batch grade", "view course standings", "set grading policy",
+                "set assignment category", "logout"};
+        String[] student = {"view my courses", "view assignments for course", "view my grades",
+                "view final grade", "view upcoming deadlines", "view reminders", "search courses",
+                "view class rank", "logout"};
+        addActionNames(ADMIN, admin);
+        addActionNames(TEACHER, teacher);
+        addActionNames(STUDENT, student);
+    }
+
+    private String dataDir = DataPersistenceService.DEFAULT_DATA_DIR;
+    private int sessions = 8;
+    private int rounds = 20;
+    private int actionsPerSession = 30;
+    private long seed = 42L;
+    private List<String> roles = Arrays.asList(ADMIN, TEACHER, STUDENT);
+    private String password = "password";
+    private String adminPassword = "admin123";
+    private String scriptFile;
+
+    private AuthenticationService authService;
+    private CourseService courseService;
+    private AssignmentService assignmentService;
+    private GradeService gradeService;
+    private SessionManager sessionManager;
+    private SnapshotService snapshotService;
+    private SearchService searchService;
+    private CascadeDeleteService cascadeDeleteService;
+    private IntegrityChecker integrityChecker;
+    private CourseRankIndex rankIndex;
+    private TranscriptCache transcriptCache;
+    private EventBus eventBus;
+    private ReminderOutbox reminderOutbox;
+
+    // What random sessions pick from
+    private ArrayList<User> admins = new ArrayList<>();
+    private ArrayList<Teacher> teachers = new ArrayList<>(); // Only those with at least one course
+    private ArrayList<Student> students = new ArrayList<>();
+    private ArrayList<Course> courses = new ArrayList<>();
+    private ArrayList<String> searchWords = new ArrayList<>();
+    private ArrayList<ScriptedSession> script;
+
+    // Action name -> latencies, filled in by every session thread
+    private ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private AtomicLong completedSessions = new AtomicLong();
+    private AtomicLong failedLogins = new AtomicLong();
+    private AtomicLong unfinishedSessions = new AtomicLong();
+    private AtomicLong failedSessions = new AtomicLong();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SessionDriver driver = new SessionDriver();
+        for (String arg : args) {
+            driver.applyOption(arg);
+        }
+        driver.setUp();
+        driver.run();
+    }
+
+    // Parses one --name=value argument
+    public void applyOption(String arg) {
+        int equals = arg.indexOf('=');
+        if (!arg.startsWith("--") || equals < 0) {
+            throw new IllegalArgumentException("Expected --option=value but got: " + arg);
+        }
+        String name = arg.substring(2, equals);
+        String value = arg.substring(equals + 1);
+        switch (name) {
+            case "data":
+                dataDir = value;
+                break;
+            case "sessions":
+                sessions = Integer.parseInt(value);
+                break;
+            case "rounds":
+                rounds = Integer.parseInt(value);
+                break;
+            case "actions":
+                actionsPerSession = Integer.parseInt(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "roles":
+                roles = Arrays.asList(value.toUpperCase().split(","));
+                break;
+            case "password":
+                password = value;
+                break;
+            case "admin-password":
+                adminPassword = value;
+                break;
+            case "script":
+                scriptFile = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: --" + name);
+        }
+    }
+
+    // Loads the data and wires the services the same way Main does
+    public void setUp() throws IOException {
+        IdAllocator idAllocator = new IdAllocator();
+        authService = new AuthenticationService(idAllocator);
+        courseService = new CourseService();
+        assignmentService = new AssignmentService();
+        gradeService = new GradeService(idAllocator);
+        sessionManager = new SessionManager(authService);
+
+        eventBus = new EventBus();
+        courseService.setEventBus(eventBus);
+        assignmentService.setEventBus(eventBus);
+        gradeService.setEventBus(eventBus);
+        // Same split as Main: policies and transcripts synchronous, derived indexes async
+        GradingPolicyEngine policyEngine = new GradingPolicyEngine(courseService);
+        gradeService.setPolicyEngine(policyEngine);
+        eventBus.subscribe(policyEngine);
+        transcriptCache = new TranscriptCache(assignmentService, gradeService);
+        eventBus.subscribe(transcriptCache);
+        searchService = new SearchService(courseService, assignmentService);
+        eventBus.subscribeAsync("search", searchService);
+        rankIndex = new CourseRankIndex(courseService, assignmentService, gradeService);
+        eventBus.subscribeAsync("ranks", rankIndex);
+        reminderOutbox = new ReminderOutbox();
+        snapshotService = new SnapshotService(authService, courseService, assignmentService, gradeService);
+        cascadeDeleteService = new CascadeDeleteService(authService, courseService, assignmentService,
+                                                        gradeService, null); // Sessions never save
+        cascadeDeleteService.setEventBus(eventBus);
+        integrityChecker = new IntegrityChecker(authService, courseService, assignmentService, gradeService, null);
+        integrityChecker.setEventBus(eventBus);
+
+        long start = System.nanoTime();
+        DataPersistenceService persistenceService = new DataPersistenceService(
+            authService, courseService, assignmentService, gradeService, idAllocator, dataDir);
+        persistenceService.loadAllData();
+        idAllocator.setReservationWriter(null); // Sessions may create grades; keep ids.txt as it is
+        searchService.rebuild();
+        System.out.println(String.format("Loaded %s in %d ms", Paths.get(dataDir).toAbsolutePath(),
+                                         (System.nanoTime() - start) / 1000000));
+
+        if (scriptFile != null) {
+            script = readScript(scriptFile);
+            if (script.isEmpty()) {
+                throw new IllegalArgumentException("No sessions in " + scriptFile);
+            }
+        } else {
+            collectRandomChoices();
+        }
+    }
+
+    // Runs every session and prints the report
+    public void run() throws InterruptedException {
+        // Random input is generated up front so it isn't part of the measurement
+        ArrayList<ScriptedSession> planned = new ArrayList<>();
+        for (int n = 0; n < sessions * rounds; n++) {
+            planned.add((script != null) ? script.get(n % script.size()) : randomSession(new Random(seed + n)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(sessions);
+        long start = System.nanoTime();
+        for (int w = 0; w < sessions; w++) {
+            List<ScriptedSession> mine = planned.subList(w * rounds, (w + 1) * rounds);
+            pool.execute(() -> {
+                for (ScriptedSession session : mine) {
+                    runSession(session);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        // The async indexes' catch-up work counts towards the run
+        for (AsyncSubscription subscription : eventBus.getAsyncSubscriptions()) {
+            subscription.awaitDrained(Long.MAX_VALUE / 2);
+        }
+        printReport(System.nanoTime() - start);
+        eventBus.shutdown();
+    }
+
+    // Logs in, runs the menu for the user's role until the input runs out or the user logs out, and logs out
+    private void runSession(ScriptedSession session) {
+        long start = System.nanoTime();
+        String token = sessionManager.login(session.userId, session.password);
+        histogramFor("login").record(System.nanoTime() - start);
+        if (token == null) {
+            failedLogins.incrementAndGet();
+            return;
+        }
+
+        User user = sessionManager.validateToken(token);
+        Scanner scanner = new Scanner(String.join("\n", session.input) + "\n");
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        MenuActionListener listener = (menu, choice, elapsedNanos) ->
+                histogramFor(actionName(menu, choice)).record(elapsedNanos);
+        try {
+            if (user.getRole().equals(ADMIN)) {
+                AdminMenu menu = new AdminMenu(scanner, out, authService, courseService, sessionManager,
+                                               snapshotService, searchService, cascadeDeleteService,
+                                               integrityChecker);
+                menu.setActionListener(listener);
+                menu.displayMenu();
+            } else if (user.getRole().equals(TEACHER)) {
+                TeacherMenu menu = new TeacherMenu(scanner, out, (Teacher) user, authService, courseService,
+                                                   assignmentService, gradeService, rankIndex);
+                menu.setActionListener(listener);
+                menu.displayMenu();
+            } else {
+                StudentMenu menu = new StudentMenu(scanner, out, (Student) user, courseService, assignmentService,
+                                                   gradeService, transcriptCache, reminderOutbox, searchService,
+                                                   rankIndex);
+                menu.setActionListener(listener);
+                menu.displayMenu();
+            }
+            completedSessions.incrementAndGet();
+        } catch (NoSuchElementException e) {
+            unfinishedSessions.incrementAndGet(); // The script ended before the logout choice
+        } catch (RuntimeException e) {
+            if (failedSessions.incrementAndGet() == 1) {
+                System.err.println("Session of " + session.userId + " failed: " + e);
+            }
+        } finally {
+            sessionManager.logout(token);
+        }
+    }
+
+    private LatencyHistogram histogramFor(String action) {
+        LatencyHistogram histogram = latencies.get(action);
+        if (histogram == null) {
+            histogram = latencies.computeIfAbsent(action, name -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    private void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long actions = 0;
+        TreeMap<String, LatencyHistogram> sorted = new TreeMap<>(latencies);
+        for (Map.Entry<String, LatencyHistogram> entry : sorted.entrySet()) {
+            if (!entry.getKey().equals("login")) {
+                actions += entry.getValue().getCount();
+            }
+        }
+
+        long sessionCount = (long) sessions * rounds;
+        System.out.println(String.format("Ran %d sessions (%d at a time) in %.2f s: %d menu actions, %.0f actions/s",
+                                         sessionCount, sessions, seconds, actions, actions / seconds));
+        System.out.println(String.format("Completed %d, failed logins %d, script ran out %d, errors %d",
+                                         completedSessions.get(), failedLogins.get(), unfinishedSessions.get(),
+                                         failedSessions.get()));
+        for (AsyncSubscription subscription : eventBus.getAsyncSubscriptions()) {
+            System.out.println(String.format("Event subscriber %s: %d delivered, %d dropped (%d discarded by resyncs)",
+                                             subscription.getName(), subscription.getDeliveredCount(),
+                                             subscription.getDroppedCount(), subscription.getDiscardedCount()));
+        }
+        System.out.println();
+        System.out.println(String.format("%-40s %9s %9s %10s %10s %10s %10s %12s", "Action (times in microseconds)",
+                                         "Count", "Per sec", "Mean", "p50", "p90", "p99", "Max"));
+        for (Map.Entry<String, LatencyHistogram> entry : sorted.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            System.out.println(String.format("%-40s %9d %9.0f %10.1f %10.1f %10.1f %10.1f %12.1f",
+                                             entry.getKey(), histogram.getCount(), histogram.getCount() / seconds,
+                                             histogram.getMeanNanos() / 1000.0,
+                                             histogram.getPercentileNanos(0.50) / 1000.0,
+                                             histogram.getPercentileNanos(0.90) / 1000.0,
+                                             histogram.getPercentileNanos(0.99) / 1000.0,
+                                             histogram.getMaxNanos() / 1000.0));
+        }
+    }
+
+    // Reads "login <userId> <password>" blocks
+    private static ArrayList<ScriptedSession> readScript(String file) throws IOException {
+        ArrayList<ScriptedSession> sessions = new ArrayList<>();
+        ScriptedSession current = null;
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            if (line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("login ")) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Expected login <userId> <password> but got: " + line);
+                }
+                current = new ScriptedSession(parts[1], parts[2]);
+                sessions.add(current);
+            } else if (current != null) {
+                current.input.add(line);
+            } else if (!line.trim().isEmpty()) {
+                throw new IllegalArgumentException("Menu input before the first login line: " + line);
+            }
+        }
+        return sessions;
+    }
+
+    // Snapshot of the users, courses and words random sessions choose from
+    private void collectRandomChoices() {
+        for (User user : authService.getAllUsers()) {
+            if (user.getRole().equals(ADMIN)) {
+                admins.add(user);
+            } else if (user.getRole().equals(STUDENT)) {
+                students.add((Student) user);
+            } else if (user.getRole().equals(TEACHER)
+                       && !courseService.getCoursesForTeacher(user.getUserId()).isEmpty()) {
+                teachers.add((Teacher) user);
+            }
+        }
+        courses.addAll(courseService.getAllCourses());
+        for (Course course : courses) {
+            for (String word : SearchService.tokenize(course.getCourseName())) {
+                if (searchWords.size() < 1000 && !searchWords.contains(word)) {
+                    searchWords.add(word);
+                }
+            }
+        }
+        if (courses.isEmpty() || searchWords.isEmpty()) {
+            throw new IllegalArgumentException("Random sessions need some courses; generate data with DatasetGenerator");
+        }
+    }
+
+    private ScriptedSession randomSession(Random random) {
+        String role = pickRole(random);
+        ScriptedSession session;
+        if (role.equals(ADMIN)) {
+            User admin = admins.get(random.nextInt(admins.size()));
+            session = new ScriptedSession(admin.getUserId(), adminPassword);
+            for (int i = 0; i < actionsPerSession; i++) {
+                addAdminAction(session.input, random);
+            }
+            session.input.add("18");
+        } else if (role.equals(TEACHER)) {
+            Teacher teacher = teachers.get(random.nextInt(teachers.size()));
+            session = new ScriptedSession(teacher.getUserId(), password);
+            ArrayList<Course> taught = courseService.getCoursesForTeacher(teacher.getUserId());
+            for (int i = 0; i < actionsPerSession; i++) {
+                addTeacherAction(session.input, random, taught.get(random.nextInt(taught.size())));
+            }
+            session.input.add("10");
+        } else {
+            Student student = students.get(random.nextInt(students.size()));
+            session = new ScriptedSession(student.getUserId(), password);
+            ArrayList<Course> enrolled = courseService.getCoursesForStudent(student);
+            for (int i = 0; i < actionsPerSession; i++) {
+                Course course = enrolled.isEmpty() ? randomCourse(random) : enrolled.get(random.nextInt(enrolled.size()));
+                addStudentAction(session.input, random, course);
+            }
+            session.input.add("9");
+        }
+        return session;
+    }
+
+    // Picks a role by weight, among the allowed roles that have someone to log in as
+    private String pickRole(Random random) {
+        int[] weights = {roles.contains(ADMIN) && !admins.isEmpty() ? ADMIN_WEIGHT : 0,
+                         roles.contains(TEACHER) && !teachers.isEmpty() ? TEACHER_WEIGHT : 0,
+                         roles.contains(STUDENT) && !students.isEmpty() ? STUDENT_WEIGHT : 0};
+        int total = weights[0] + weights[1] + weights[2];
+        if (total == 0) {
+            throw new IllegalArgumentException("No users to log in as for roles " + roles);
+        }
+        int pick = random.nextInt(total);
+        if (pick < weights[0]) {
+            return ADMIN;
+        }
+        return pick < weights[0] + weights[1] ? TEACHER : STUDENT;
+    }
+
+    // Listings, search, stats and enrollments (accounts and courses are left alone)
+    private void addAdminAction(ArrayList<String> input, Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                input.add("10");
+                input.add(randomCourse(random).getCourseId());
+                input.add(students.get(random.nextInt(students.size())).getUserId());
+                break;
+            case 1:
+                addListing(input, random, "11", authService.getUsersPage(STUDENT, SortedIndex.SORT_BY_ID, null,
+                                                                         LIST_PAGE_SIZE).hasMore());
+                break;
+            case 2:
+                addListing(input, random, "12", authService.getUsersPage(TEACHER, SortedIndex.SORT_BY_ID, null,
+                                                                         LIST_PAGE_SIZE).hasMore());
+                break;
+            case 3:
+                addListing(input, random, "13", courseService.getCoursesPage(SortedIndex.SORT_BY_ID, null,
+                                                                             LIST_PAGE_SIZE).hasMore());
+                break;
+            case 4:
+                input.add("14");
+                input.add(randomWord(random));
+                break;
+            default:
+                input.add("15");
+        }
+    }
+
+    // A listing in either order; the first page only, so the session stays short
+    private void addListing(ArrayList<String> input, Random random, String choice, boolean hasMorePages) {
+        input.add(choice);
+        input.add(random.nextBoolean() ? "1" : "2");
+        if (hasMorePages) {
+            input.add("q");
+        }
+    }
+
+    // Everything but creating assignments and batch grading
+    private void addTeacherAction(ArrayList<String> input, Random random, Course course) {
+        switch (random.nextInt(5)) {
+            case 0:
+                input.add("1");
+                break;
+            case 1:
+                input.add("2");
+                input.add(course.getCourseId());
+                break;
+            case 2:
+                input.add("5");
+                input.add(course.getCourseId());
+                break;
+            case 3:
+                ArrayList<String> classList = courseService.getStudentIdsInCourse(course.getCourseId());
+                input.add("7");
+                input.add(course.getCourseId());
+                if (!classList.isEmpty()) {
+                    input.add(classList.get(random.nextInt(classList.size())));
+                }
+                break;
+            default:
+                ArrayList<Assignment> assignments = assignmentService.getAssignmentsForCourse(course.getCourseId());
+                ArrayList<String> roster = courseService.getStudentIdsInCourse(course.getCourseId());
+                if (assignments.isEmpty() || roster.isEmpty()) {
+                    input.add("1");
+                    break;
+                }
+                Assignment assignment = assignments.get(random.nextInt(assignments.size()));
+                input.add("4");
+                input.add(assignment.getAssignmentId());
+                input.add(roster.get(random.nextInt(roster.size())));
+                input.add(String.valueOf(random.nextInt((int) assignment.getMaxPoints() + 1)));
+        }
+    }
+
+    private void addStudentAction(ArrayList<String> input, Random random, Course course) {
+        int choice = 1 + random.nextInt(8);
+        input.add(String.valueOf(choice));
+        if (choice == 2 || choice == 4 || choice == 8) {
+            input.add(course.getCourseId());
+        } else if (choice == 7) {
+            input.add(randomWord(random));
+        }
+    }
+
+    private Course randomCourse(Random random) {
+        return courses.get(random.nextInt(courses.size()));
+    }
+
+    private String randomWord(Random random) {
+        return searchWords.get(random.nextInt(searchWords.size()));
+    }
+
+    private static void addActionNames(String menu, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            ACTION_NAMES.put(menu + " " + (i + 1), menu.toLowerCase() + ": " + names[i]);
+        }
+    }
+
+    private static String actionName(String menu, String choice) {
+        String name = ACTION_NAMES.get(menu + " " + choice);
+        return (name != null) ? name : menu.toLowerCase() + ": invalid choice";
+    }
+
+    // Who logs in and what they type
+    private static class ScriptedSession {
+        final String userId;
+        final String password;
+        final ArrayList<String> input = new ArrayList<>();
+
+        ScriptedSession(String userId, String password) {
+            this.userId = userId;
+            this.password = password;
+        }
+    }
+}
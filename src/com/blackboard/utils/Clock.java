@@ -0,0 +1,6 @@
+package com.blackboard.utils;
+
+// Source of the current time, so time-based code can run on a simulated clock in tests
+public interface Clock {
+    long currentTimeMillis();
+}
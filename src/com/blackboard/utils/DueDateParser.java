@@ -0,0 +1,42 @@
+package com.blackboard.utils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+public class DueDateParser {
+    // Returned when a due date can't be parsed
+    public static final long UNKNOWN = -1L;
+
+    // Strict, like the date-only format, so "2024-02-30 10:00" is rejected instead of moved to Feb 29
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    // Parses "2024-12-15" (due at the end of that day) or "2024-12-15 17:00" into epoch milliseconds
+    public static long parse(String dueDate) {
+        if (dueDate == null) {
+            return UNKNOWN;
+        }
+        String text = dueDate.trim();
+
+        try {
+            if (text.length() > 10) {
+                LocalDateTime dateTime = LocalDateTime.parse(text, DATE_TIME);
+                return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+            LocalDate date = LocalDate.parse(text);
+            return date.atTime(LocalTime.of(23, 59)).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN;
+        }
+    }
+
+    // Checks if a due date is in one of the supported formats
+    public static boolean isValid(String dueDate) {
+        return parse(dueDate) != UNKNOWN;
+    }
+}
@@ -0,0 +1,107 @@
+package com.blackboard.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "PBKDF2";
+    private static final String SEPARATOR = "$";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    // Bounds for the hardware-tuned iteration count
+    public static final int MIN_ITERATIONS = 50000;
+    public static final int MAX_ITERATIONS = 1000000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Hashes a password with a new random salt
+    // Stored format: PBKDF2$iterations$salt$hash (no commas, so it fits in users.txt)
+    public static String hash(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + SEPARATOR + iterations + SEPARATOR +
+               encoder.encodeToString(salt) + SEPARATOR + encoder.encodeToString(hash);
+    }
+
+    // Checks a password against a stored hash in constant time
+    public static boolean verify(String password, String storedHash) {
+        if (password == null || !isHashed(storedHash)) {
+            return false;
+        }
+
+        String[] parts = storedHash.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] salt = decoder.decode(parts[2]);
+            byte[] expected = decoder.decode(parts[3]);
+            byte[] actual = pbkdf2(password, salt, iterations);
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false; // Corrupt hash
+        }
+    }
+
+    // Checks if a stored password is already hashed (rows written before hashing are plaintext)
+    public static boolean isHashed(String storedPassword) {
+        return storedPassword != null && storedPassword.startsWith(PREFIX + SEPARATOR);
+    }
+
+    // Returns the iteration count of a stored hash, or 0 if it is not a hash
+    public static int getIterations(String storedHash) {
+        if (!isHashed(storedHash)) {
+            return 0;
+        }
+        String[] parts = storedHash.split("\\$");
+        if (parts.length != 4 || !InputValidator.isValidInteger(parts[1])) {
+            return 0;
+        }
+        return Integer.parseInt(parts[1]);
+    }
+
+    // Finds the iteration count that makes one hash take about targetMillis on this machine
+    public static int calibrateIterations(long targetMillis) {
+        int sampleIterations = 20000;
+        byte[] salt = new byte[SALT_BYTES];
+
+        pbkdf2("warmup", salt, sampleIterations); // Let the JIT compile the hashing code first
+        long start = System.nanoTime();
+        pbkdf2("calibration", salt, sampleIterations);
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+        long iterations = (targetMillis * 1000000L * sampleIterations) / elapsedNanos;
+        if (iterations < MIN_ITERATIONS) {
+            return MIN_ITERATIONS;
+        }
+        if (iterations > MAX_ITERATIONS) {
+            return MAX_ITERATIONS;
+        }
+        return (int) iterations;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance(ALGORITHM);
+            return factory.generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException("PBKDF2 is not available: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.blackboard.utils;
+
+// A clock that only moves when told to
+public class SimulatedClock implements Clock {
+    private long now;
+
+    public SimulatedClock(long startMillis) {
+        this.now = startMillis;
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return now;
+    }
+
+    public synchronized void advance(long millis) {
+        now += millis;
+    }
+
+    public synchronized void setTime(long millis) {
+        now = millis;
+    }
+}
@@ -0,0 +1,30 @@
+package com.blackboard.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps one shared copy of strings that repeat across many objects: IDs used as references
+// (every grade of a student holds that student's ID), majors and departments. Every row read from
+// a file is a new String, so without this 4.5 million grades would carry 9 million ID copies.
+// Entries stay for the life of the program, so only pool values from a limited set (IDs, majors,
+// departments), never free text like names, titles or passwords.
+public class StringPool {
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+
+    // Returns the shared copy of value (value itself the first time it is seen)
+    public static String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = POOL.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        existing = POOL.putIfAbsent(value, value);
+        return (existing != null) ? existing : value;
+    }
+
+    // Number of distinct strings held
+    public static int size() {
+        return POOL.size();
+    }
+}
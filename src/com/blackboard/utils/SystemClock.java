@@ -0,0 +1,8 @@
+package com.blackboard.utils;
+
+public class SystemClock implements Clock {
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -1,46 +1,89 @@
 package com.blackboard.views;
 
 import com.blackboard.models.*;
+import com.blackboard.monitoring.MenuActionEvent;
+import com.blackboard.monitoring.OperationMetrics;
+import com.blackboard.monitoring.OperationStats;
 import com.blackboard.services.*;
 import com.blackboard.utils.InputValidator;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Scanner;
 
 public class AdminMenu {
+    private static final int SEARCH_RESULTS_SHOWN = 10;
+    private static final int PICK_LIST_SIZE = 10;
+    private static final int LIST_PAGE_SIZE = 20;
+    private static final String DEFAULT_REPORT_FILE = "term_report.csv";
+    private static final int INTEGRITY_EXAMPLES_SHOWN = 3;
+    
     private Scanner scanner;
+    private PrintStream out;
     private AuthenticationService authService;
     private CourseService courseService;
+    private SessionManager sessionManager;
+    private SnapshotService snapshotService;
+    private SearchService searchService;
+    private CascadeDeleteService cascadeDeleteService;
+    private IntegrityChecker integrityChecker;
+    private MenuActionListener actionListener; // Optional
     
     public AdminMenu(Scanner scanner, AuthenticationService authService, 
-                    CourseService courseService) {
+                    CourseService courseService, SessionManager sessionManager,
+                    SnapshotService snapshotService, SearchService searchService,
+                    CascadeDeleteService cascadeDeleteService, IntegrityChecker integrityChecker) {
+        this(scanner, System.out, authService, courseService, sessionManager, snapshotService, searchService,
+             cascadeDeleteService, integrityChecker);
+    }
+    
+    // Reads from scanner and writes to out, so the menu can run without a console
+    public AdminMenu(Scanner scanner, PrintStream out, AuthenticationService authService, 
+                    CourseService courseService, SessionManager sessionManager,
+                    SnapshotService snapshotService, SearchService searchService,
+                    CascadeDeleteService cascadeDeleteService, IntegrityChecker integrityChecker) {
         this.scanner = scanner;
+        this.out = out;
         this.authService = authService;
         this.courseService = courseService;
+        this.sessionManager = sessionManager;
+        this.snapshotService = snapshotService;
+        this.searchService = searchService;
+        this.cascadeDeleteService = cascadeDeleteService;
+        this.integrityChecker = integrityChecker;
     }
     
     public void displayMenu() {
         boolean running = true;
         
         while (running) {
-            System.out.println("\n=== ADMIN MENU ===");
-            System.out.println("1. Create Student Account");
-            System.out.println("2. Update Student Account");
-            System.out.println("3. Delete Student Account");
-            System.out.println("4. Create Teacher Account");
-            System.out.println("5. Update Teacher Account");
-            System.out.println("6. Delete Teacher Account");
-            System.out.println("7. Create Course");
-            System.out.println("8. Delete Course");
-            System.out.println("9. Assign Teacher to Course");
-            System.out.println("10. Enroll Student in Course");
-            System.out.println("11. View All Students");
-            System.out.println("12. View All Teachers");
-            System.out.println("13. View All Courses");
-            System.out.println("14. Logout");
-            System.out.print("Enter your choice: ");
+            out.println("\n=== ADMIN MENU ===");
+            out.println("1. Create Student Account");
+            out.println("2. Update Student Account");
+            out.println("3. Delete Student Account");
+            out.println("4. Create Teacher Account");
+            out.println("5. Update Teacher Account");
+            out.println("6. Delete Teacher Account");
+            out.println("7. Create Course");
+            out.println("8. Delete Course");
+            out.println("9. Assign Teacher to Course");
+            out.println("10. Enroll Student in Course");
+            out.println("11. View All Students");
+            out.println("12. View All Teachers");
+            out.println("13. View All Courses");
+            out.println("14. Search Courses and Assignments");
+            out.println("15. System Stats");
+            out.println("16. Run Term GPA Report");
+            out.println("17. Check Data Integrity");
+            out.println("18. Logout");
+            out.print("Enter your choice: ");
             
             String choice = scanner.nextLine().trim();
+            long start = System.nanoTime();
             
+            // Recorded by Java Flight Recorder when it is running (free otherwise)
+            MenuActionEvent action = new MenuActionEvent("ADMIN", choice, null);
             switch (choice) {
                 case "1":
                     createStudent();
@@ -82,463 +125,624 @@ public class AdminMenu {
                     viewAllCourses();
                     break;
                 case "14":
+                    searchCoursesAndAssignments();
+                    break;
+                case "15":
+                    viewSystemStats();
+                    break;
+                case "16":
+                    runTermReport();
+                    break;
+                case "17":
+                    checkDataIntegrity();
+                    break;
+                case "18":
                     running = false;
-                    System.out.println("Logging out...");
+                    out.println("Logging out...");
                     break;
                 default:
-                    System.out.println("Invalid choice. Please try again.");
+                    out.println("Invalid choice. Please try again.");
+            }
+            action.commit();
+            if (actionListener != null) {
+                actionListener.actionCompleted("ADMIN", choice, System.nanoTime() - start);
             }
         }
     }
     
+    public void setActionListener(MenuActionListener actionListener) {
+        this.actionListener = actionListener;
+    }
+    
     private void createStudent() {
-        System.out.println("\n--- Create Student Account ---");
+        out.println("\n--- Create Student Account ---");
         
-        // Automatically generate student ID
-        String userId = generateStudentId();
-        System.out.println("Generated Student ID: " + userId);
-        
-        System.out.print("Enter Password: ");
+        out.print("Enter Password: ");
         String password = scanner.nextLine().trim();
         
         if (!InputValidator.isValidPassword(password)) {
-            System.out.println("Error: Password must be at least 3 characters.");
+            out.println("Error: Password must be at least 3 characters.");
             return;
         }
         
-        System.out.print("Enter Name: ");
+        out.print("Enter Name: ");
         String name = scanner.nextLine().trim();
         
         if (!InputValidator.isNotEmpty(name)) {
-            System.out.println("Error: Name cannot be empty.");
+            out.println("Error: Name cannot be empty.");
             return;
         }
         
-        System.out.print("Enter Major: ");
+        out.print("Enter Major: ");
         String major = scanner.nextLine().trim();
         
         if (!InputValidator.isNotEmpty(major)) {
-            System.out.println("Error: Major cannot be empty.");
+            out.println("Error: Major cannot be empty.");
             return;
         }
         
+        // Generated only now, so a cancelled or invalid creation doesn't use up an ID
+        String userId = authService.generateStudentId();
         Student student = new Student(userId, password, name, major);
         authService.addUser(student);
-        System.out.println("Student account created successfully!");
-    }
-    
-    // Generates the next sequential student ID based on number of students
-    private String generateStudentId() {
-        // Count all students
-        int studentCount = 0;
-        int maxNumber = 0;
-        
-        for (User user : authService.getAllUsers()) {
-            if (user instanceof Student) {
-                studentCount++;
-                String userId = user.getUserId();
-                // Check if ID follows STUDENT### pattern
-                if (userId.startsWith("STUDENT")) {
-                    try {
-                        String numberPart = userId.substring(7); // After "STUDENT"
-                        int number = Integer.parseInt(numberPart);
-                        if (number > maxNumber) {
-                            maxNumber = number;
-                        }
-                    } catch (NumberFormatException e) {
-                        // Not a numbered STUDENT ID, ignore
-                    }
-                }
-            }
-        }
-        
-        // Use the next number (max of studentCount or maxNumber found, then add 1)
-        int nextNumber = Math.max(studentCount, maxNumber) + 1;
-        
-        // Format as STUDENT001, STUDENT002, etc. (3 digits)
-        return String.format("STUDENT%03d", nextNumber);
+        out.println("Student account created successfully!");
+        out.println("Generated Student ID: " + userId);
     }
     
     private void createTeacher() {
-        System.out.println("\n--- Create Teacher Account ---");
-        System.out.print("Enter User ID: ");
+        out.println("\n--- Create Teacher Account ---");
+        out.print("Enter User ID: ");
         String userId = scanner.nextLine().trim();
         
         if (!InputValidator.isValidUserId(userId)) {
-            System.out.println("Error: User ID cannot be empty.");
+            out.println("Error: User ID cannot be empty.");
             return;
         }
         
         if (authService.findUserById(userId) != null) {
-            System.out.println("Error: User ID already exists.");
+            out.println("Error: User ID already exists.");
             return;
         }
         
-        System.out.print("Enter Password: ");
+        out.print("Enter Password: ");
         String password = scanner.nextLine().trim();
         
         if (!InputValidator.isValidPassword(password)) {
-            System.out.println("Error: Password must be at least 3 characters.");
+            out.println("Error: Password must be at least 3 characters.");
             return;
         }
         
-        System.out.print("Enter Name: ");
+        out.print("Enter Name: ");
         String name = scanner.nextLine().trim();
         
         if (!InputValidator.isNotEmpty(name)) {
-            System.out.println("Error: Name cannot be empty.");
+            out.println("Error: Name cannot be empty.");
             return;
         }
         
-        System.out.print("Enter Department: ");
+        out.print("Enter Department: ");
         String department = scanner.nextLine().trim();
         
         if (!InputValidator.isNotEmpty(department)) {
-            System.out.println("Error: Department cannot be empty.");
+            out.println("Error: Department cannot be empty.");
             return;
         }
         
         Teacher teacher = new Teacher(userId, password, name, department);
         authService.addUser(teacher);
-        System.out.println("Teacher account created successfully!");
+        out.println("Teacher account created successfully!");
     }
     
     private void createCourse() {
-        System.out.println("\n--- Create Course ---");
-        System.out.print("Enter Course ID: ");
+        out.println("\n--- Create Course ---");
+        out.print("Enter Course ID: ");
         String courseId = scanner.nextLine().trim();
         
         if (!InputValidator.isValidCourseId(courseId)) {
-            System.out.println("Error: Course ID cannot be empty.");
+            out.println("Error: Course ID cannot be empty.");
             return;
         }
         
         if (courseService.findCourseById(courseId) != null) {
-            System.out.println("Error: Course ID already exists.");
+            out.println("Error: Course ID already exists.");
             return;
         }
         
-        System.out.print("Enter Course Name: ");
+        out.print("Enter Course Name: ");
         String courseName = scanner.nextLine().trim();
         
         if (!InputValidator.isNotEmpty(courseName)) {
-            System.out.println("Error: Course name cannot be empty.");
+            out.println("Error: Course name cannot be empty.");
             return;
         }
         
-        System.out.print("Enter Description: ");
+        out.print("Enter Description: ");
         String description = scanner.nextLine().trim();
         
-        System.out.print("Enter Teacher ID: ");
+        out.print("Enter Teacher ID: ");
         String teacherId = scanner.nextLine().trim();
         
         User teacher = authService.findUserById(teacherId);
         if (teacher == null || !teacher.getRole().equals("TEACHER")) {
-            System.out.println("Error: Teacher not found.");
+            out.println("Error: Teacher not found.");
             return;
         }
         
-        System.out.print("Enter Capacity: ");
+        out.print("Enter Capacity: ");
         String capacityInput = scanner.nextLine().trim();
         
         if (!InputValidator.isValidInteger(capacityInput)) {
-            System.out.println("Error: Please enter a valid number.");
+            out.println("Error: Please enter a valid number.");
             return;
         }
         
         int capacity = Integer.parseInt(capacityInput);
         
         if (!InputValidator.isValidCapacity(capacity)) {
-            System.out.println("Error: Capacity must be greater than 0.");
+            out.println("Error: Capacity must be greater than 0.");
             return;
         }
         
         Course course = courseService.createCourse(courseId, courseName, description, teacherId, capacity);
         if (course != null) {
-            System.out.println("Course created successfully!");
+            out.println("Course created successfully!");
         } else {
-            System.out.println("Error: Failed to create course.");
+            out.println("Error: Failed to create course.");
         }
     }
     
     private void assignTeacherToCourse() {
-        System.out.println("\n--- Assign Teacher to Course ---");
-        System.out.print("Enter Course ID: ");
+        out.println("\n--- Assign Teacher to Course ---");
+        out.print("Enter Course ID: ");
         String courseId = scanner.nextLine().trim();
         
         Course course = courseService.findCourseById(courseId);
         if (course == null) {
-            System.out.println("Error: Course not found.");
+            out.println("Error: Course not found.");
             return;
         }
         
-        System.out.print("Enter Teacher ID: ");
+        out.print("Enter Teacher ID: ");
         String teacherId = scanner.nextLine().trim();
         
         User user = authService.findUserById(teacherId);
         if (user == null || !user.getRole().equals("TEACHER")) {
-            System.out.println("Error: Teacher not found.");
+            out.println("Error: Teacher not found.");
             return;
         }
         
         Teacher teacher = (Teacher) user;
         
         if (courseService.assignTeacherToCourse(courseId, teacher)) {
-            System.out.println("Teacher assigned to course successfully!");
+            out.println("Teacher assigned to course successfully!");
         } else {
-            System.out.println("Error: Failed to assign teacher.");
+            out.println("Error: Failed to assign teacher.");
         }
     }
     
     private void enrollStudentInCourse() {
-        System.out.println("\n--- Enroll Student in Course ---");
-        System.out.print("Enter Course ID: ");
+        out.println("\n--- Enroll Student in Course ---");
+        out.print("Enter Course ID: ");
         String courseId = scanner.nextLine().trim();
         
         Course course = courseService.findCourseById(courseId);
         if (course == null) {
-            System.out.println("Error: Course not found.");
+            out.println("Error: Course not found.");
             return;
         }
         
-        System.out.print("Enter Student ID: ");
+        out.print("Enter Student ID: ");
         String studentId = scanner.nextLine().trim();
         
         User user = authService.findUserById(studentId);
         if (user == null || !user.getRole().equals("STUDENT")) {
-            System.out.println("Error: Student not found.");
+            out.println("Error: Student not found.");
             return;
         }
         
         Student student = (Student) user;
-        ArrayList<Student> allStudents = new ArrayList<>();
-        for (User u : authService.getAllUsers()) {
-            if (u instanceof Student) {
-                allStudents.add((Student) u);
-            }
-        }
         
-        if (courseService.enrollStudentInCourse(courseId, student, allStudents)) {
-            System.out.println("Student enrolled in course successfully!");
+        if (courseService.enrollStudentInCourse(courseId, student)) {
+            out.println("Student enrolled in course successfully!");
         } else {
-            System.out.println("Error: Failed to enroll student. Course may be full or student already enrolled.");
+            out.println("Error: Failed to enroll student. Course may be full or student already enrolled.");
         }
     }
     
     private void viewAllStudents() {
-        System.out.println("\n--- All Students ---");
-        ArrayList<User> users = authService.getAllUsers();
-        boolean found = false;
-        
-        for (User user : users) {
-            if (user instanceof Student) {
+        out.println("\n--- All Students ---");
+        String sortBy = readSortOrder();
+        String cursor = null;
+        
+        do {
+            Page<User> page = authService.getUsersPage("STUDENT", sortBy, cursor, LIST_PAGE_SIZE);
+            if (page.getItems().isEmpty() && cursor == null) {
+                out.println("No students found.");
+                return;
+            }
+            for (User user : page.getItems()) {
                 Student student = (Student) user;
-                System.out.println("ID: " + student.getUserId() + 
+                out.println("ID: " + student.getUserId() + 
                                   ", Name: " + student.getName() + 
                                   ", Major: " + student.getMajor());
-                found = true;
             }
-        }
-        
-        if (!found) {
-            System.out.println("No students found.");
-        }
+            cursor = page.getNextCursor();
+        } while (cursor != null && askForNextPage());
     }
     
     private void viewAllTeachers() {
-        System.out.println("\n--- All Teachers ---");
-        ArrayList<User> users = authService.getAllUsers();
-        boolean found = false;
-        
-        for (User user : users) {
-            if (user instanceof Teacher) {
+        out.println("\n--- All Teachers ---");
+        String sortBy = readSortOrder();
+        String cursor = null;
+        
+        do {
+            Page<User> page = authService.getUsersPage("TEACHER", sortBy, cursor, LIST_PAGE_SIZE);
+            if (page.getItems().isEmpty() && cursor == null) {
+                out.println("No teachers found.");
+                return;
+            }
+            for (User user : page.getItems()) {
                 Teacher teacher = (Teacher) user;
-                System.out.println("ID: " + teacher.getUserId() + 
+                out.println("ID: " + teacher.getUserId() + 
                                   ", Name: " + teacher.getName() + 
                                   ", Department: " + teacher.getDepartment());
-                found = true;
             }
-        }
-        
-        if (!found) {
-            System.out.println("No teachers found.");
-        }
+            cursor = page.getNextCursor();
+        } while (cursor != null && askForNextPage());
     }
     
     private void updateStudent() {
-        System.out.println("\n--- Update Student Account ---");
-        System.out.print("Enter Student ID: ");
-        String userId = scanner.nextLine().trim();
-        
-        User user = authService.findUserById(userId);
-        if (user == null || !user.getRole().equals("STUDENT")) {
-            System.out.println("Error: Student not found.");
+        out.println("\n--- Update Student Account ---");
+        User user = pickUser("STUDENT", "Student");
+        if (user == null) {
             return;
         }
+        String userId = user.getUserId();
         
         Student student = (Student) user;
         
-        System.out.print("Enter New Password (or press Enter to keep current): ");
+        out.print("Enter New Password (or press Enter to keep current): ");
         String password = scanner.nextLine().trim();
-        if (!password.isEmpty()) {
-            if (!InputValidator.isValidPassword(password)) {
-                System.out.println("Error: Password must be at least 3 characters.");
-                return;
-            }
-            student.setPassword(password);
+        if (!password.isEmpty() && !InputValidator.isValidPassword(password)) {
+            out.println("Error: Password must be at least 3 characters.");
+            return;
         }
         
-        System.out.print("Enter New Name (or press Enter to keep current): ");
+        out.print("Enter New Name (or press Enter to keep current): ");
         String name = scanner.nextLine().trim();
-        if (!name.isEmpty()) {
-            student.setName(name);
-        }
         
-        System.out.print("Enter New Major (or press Enter to keep current): ");
+        out.print("Enter New Major (or press Enter to keep current): ");
         String major = scanner.nextLine().trim();
-        if (!major.isEmpty()) {
-            student.setMajor(major);
-        }
         
-        if (authService.updateUser(student)) {
-            System.out.println("Student account updated successfully!");
+        // The stored student is left alone until the service has hashed the new password
+        Student updated = new Student(userId, password.isEmpty() ? student.getPassword() : password,
+                                      name.isEmpty() ? student.getName() : name,
+                                      major.isEmpty() ? student.getMajor() : major);
+        if (authService.updateUser(updated)) {
+            if (!password.isEmpty()) {
+                sessionManager.invalidateUser(userId); // Old sessions must log in again
+            }
+            out.println("Student account updated successfully!");
         } else {
-            System.out.println("Error: Failed to update student account.");
+            out.println("Error: Failed to update student account.");
         }
     }
     
     private void deleteStudent() {
-        System.out.println("\n--- Delete Student Account ---");
-        System.out.print("Enter Student ID: ");
-        String userId = scanner.nextLine().trim();
-        
-        User user = authService.findUserById(userId);
-        if (user == null || !user.getRole().equals("STUDENT")) {
-            System.out.println("Error: Student not found.");
+        out.println("\n--- Delete Student Account ---");
+        User user = pickUser("STUDENT", "Student");
+        if (user == null) {
             return;
         }
+        String userId = user.getUserId();
         
-        System.out.print("Are you sure you want to delete this student? (yes/no): ");
+        out.print("Are you sure you want to delete this student? (yes/no): ");
         String confirm = scanner.nextLine().trim().toLowerCase();
         
         if (confirm.equals("yes")) {
-            if (authService.deleteUser(userId)) {
-                System.out.println("Student account deleted successfully!");
+            DeleteSummary summary = cascadeDeleteService.deleteUser(userId);
+            if (summary != null) {
+                sessionManager.invalidateUser(userId);
+                out.println("Student account deleted successfully!");
+                out.println("Also removed " + summary.getGradeCount() + " grade(s) and "
+                            + summary.getEnrollmentCount() + " enrollment(s).");
             } else {
-                System.out.println("Error: Failed to delete student account.");
+                out.println("Error: Failed to delete student account.");
             }
         } else {
-            System.out.println("Deletion cancelled.");
+            out.println("Deletion cancelled.");
         }
     }
     
     private void updateTeacher() {
-        System.out.println("\n--- Update Teacher Account ---");
-        System.out.print("Enter Teacher ID: ");
-        String userId = scanner.nextLine().trim();
-        
-        User user = authService.findUserById(userId);
-        if (user == null || !user.getRole().equals("TEACHER")) {
-            System.out.println("Error: Teacher not found.");
+        out.println("\n--- Update Teacher Account ---");
+        User user = pickUser("TEACHER", "Teacher");
+        if (user == null) {
             return;
         }
+        String userId = user.getUserId();
         
         Teacher teacher = (Teacher) user;
         
-        System.out.print("Enter New Password (or press Enter to keep current): ");
+        out.print("Enter New Password (or press Enter to keep current): ");
         String password = scanner.nextLine().trim();
-        if (!password.isEmpty()) {
-            if (!InputValidator.isValidPassword(password)) {
-                System.out.println("Error: Password must be at least 3 characters.");
-                return;
-            }
-            teacher.setPassword(password);
+        if (!password.isEmpty() && !InputValidator.isValidPassword(password)) {
+            out.println("Error: Password must be at least 3 characters.");
+            return;
         }
         
-        System.out.print("Enter New Name (or press Enter to keep current): ");
+        out.print("Enter New Name (or press Enter to keep current): ");
         String name = scanner.nextLine().trim();
-        if (!name.isEmpty()) {
-            teacher.setName(name);
-        }
         
-        System.out.print("Enter New Department (or press Enter to keep current): ");
+        out.print("Enter New Department (or press Enter to keep current): ");
         String department = scanner.nextLine().trim();
-        if (!department.isEmpty()) {
-            teacher.setDepartment(department);
-        }
         
-        if (authService.updateUser(teacher)) {
-            System.out.println("Teacher account updated successfully!");
+        // The stored teacher is left alone until the service has hashed the new password
+        Teacher updated = new Teacher(userId, password.isEmpty() ? teacher.getPassword() : password,
+                                      name.isEmpty() ? teacher.getName() : name,
+                                      department.isEmpty() ? teacher.getDepartment() : department);
+        if (authService.updateUser(updated)) {
+            if (!password.isEmpty()) {
+                sessionManager.invalidateUser(userId); // Old sessions must log in again
+            }
+            out.println("Teacher account updated successfully!");
         } else {
-            System.out.println("Error: Failed to update teacher account.");
+            out.println("Error: Failed to update teacher account.");
         }
     }
     
     private void deleteTeacher() {
-        System.out.println("\n--- Delete Teacher Account ---");
-        System.out.print("Enter Teacher ID: ");
-        String userId = scanner.nextLine().trim();
-        
-        User user = authService.findUserById(userId);
-        if (user == null || !user.getRole().equals("TEACHER")) {
-            System.out.println("Error: Teacher not found.");
+        out.println("\n--- Delete Teacher Account ---");
+        User user = pickUser("TEACHER", "Teacher");
+        if (user == null) {
             return;
         }
+        String userId = user.getUserId();
         
-        System.out.print("Are you sure you want to delete this teacher? (yes/no): ");
+        out.print("Are you sure you want to delete this teacher? (yes/no): ");
         String confirm = scanner.nextLine().trim().toLowerCase();
         
         if (confirm.equals("yes")) {
-            if (authService.deleteUser(userId)) {
-                System.out.println("Teacher account deleted successfully!");
+            DeleteSummary summary = cascadeDeleteService.deleteUser(userId);
+            if (summary != null) {
+                sessionManager.invalidateUser(userId);
+                out.println("Teacher account deleted successfully!");
+                if (summary.getUnassignedCourseCount() > 0) {
+                    out.println(summary.getUnassignedCourseCount() + " course(s) now have no teacher.");
+                }
             } else {
-                System.out.println("Error: Failed to delete teacher account.");
+                out.println("Error: Failed to delete teacher account.");
             }
         } else {
-            System.out.println("Deletion cancelled.");
+            out.println("Deletion cancelled.");
         }
     }
     
     private void deleteCourse() {
-        System.out.println("\n--- Delete Course ---");
-        System.out.print("Enter Course ID: ");
-        String courseId = scanner.nextLine().trim();
-        
-        Course course = courseService.findCourseById(courseId);
+        out.println("\n--- Delete Course ---");
+        Course course = pickCourse();
         if (course == null) {
-            System.out.println("Error: Course not found.");
             return;
         }
+        String courseId = course.getCourseId();
         
-        System.out.print("Are you sure you want to delete this course? (yes/no): ");
+        out.print("Are you sure you want to delete this course? (yes/no): ");
         String confirm = scanner.nextLine().trim().toLowerCase();
         
         if (confirm.equals("yes")) {
-            if (courseService.deleteCourse(courseId)) {
-                System.out.println("Course deleted successfully!");
+            DeleteSummary summary = cascadeDeleteService.deleteCourse(courseId);
+            if (summary != null) {
+                out.println("Course deleted successfully!");
+                out.println("Also removed " + summary.getAssignmentCount() + " assignment(s), "
+                            + summary.getGradeCount() + " grade(s) and "
+                            + summary.getEnrollmentCount() + " enrollment(s).");
             } else {
-                System.out.println("Error: Failed to delete course.");
+                out.println("Error: Failed to delete course.");
             }
         } else {
-            System.out.println("Deletion cancelled.");
+            out.println("Deletion cancelled.");
         }
     }
     
     private void viewAllCourses() {
-        System.out.println("\n--- All Courses ---");
-        ArrayList<Course> courses = courseService.getAllCourses();
+        out.println("\n--- All Courses ---");
+        String sortBy = readSortOrder();
+        String cursor = null;
+        
+        do {
+            Page<Course> page = courseService.getCoursesPage(sortBy, cursor, LIST_PAGE_SIZE);
+            if (page.getItems().isEmpty() && cursor == null) {
+                out.println("No courses found.");
+                return;
+            }
+            for (Course course : page.getItems()) {
+                out.println("ID: " + course.getCourseId() + 
+                                  ", Name: " + course.getCourseName() + 
+                                  ", Teacher: " + (course.getTeacherId() != null ? course.getTeacherId() : "none") + 
+                                  ", Capacity: " + course.getCapacity());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null && askForNextPage());
+    }
+    
+    // Shows call counts and latencies of the instrumented operations (also available over JMX)
+    private void viewSystemStats() {
+        out.println("\n--- System Stats (times in microseconds) ---");
+        out.println(String.format("%-30s %10s %10s %10s %10s %12s",
+                                         "Operation", "Calls", "Mean", "p50", "p99", "Max"));
+        
+        boolean any = false;
+        for (OperationStats stats : OperationMetrics.getAll()) {
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            out.println(String.format("%-30s %10d %10.1f %10.1f %10.1f %12.1f",
+                                             stats.getName(), stats.getCount(), stats.getMeanMicros(),
+                                             stats.getP50Micros(), stats.getP99Micros(), stats.getMaxMicros()));
+            any = true;
+        }
+        
+        if (!any) {
+            out.println("No operations recorded yet.");
+        }
+    }
+    
+    // Looks for records that point at nothing (grades for missing assignments and so on)
+    // and offers to repair them
+    private void checkDataIntegrity() {
+        out.println("\n--- Check Data Integrity ---");
+        IntegrityReport report = integrityChecker.check();
+        out.println("Checked " + report.getRowsChecked() + " records in " + report.getElapsedMillis() + " ms.");
+        if (report.isClean()) {
+            out.println("No problems found.");
+            return;
+        }
+        
+        for (Map.Entry<String, ArrayList<IntegrityViolation>> entry : report.getViolationsByKind().entrySet()) {
+            out.println(entry.getValue().size() + " x " + entry.getKey() + ", for example:");
+            for (int i = 0; i < Math.min(INTEGRITY_EXAMPLES_SHOWN, entry.getValue().size()); i++) {
+                IntegrityViolation violation = entry.getValue().get(i);
+                out.println("  " + violation.getRecordId() + " -> " + violation.getMissingId());
+            }
+        }
+        
+        out.print("Repair these problems? (yes/no): ");
+        String confirm = scanner.nextLine().trim().toLowerCase();
+        if (!confirm.equals("yes")) {
+            out.println("Nothing was changed.");
+            return;
+        }
+        DeleteSummary summary = integrityChecker.repair(report);
+        out.println("Removed " + summary.getAssignmentCount() + " assignment(s) and " + summary.getGradeCount()
+                    + " grade(s), left " + summary.getUnassignedCourseCount() + " course(s) without a teacher and dropped "
+                    + summary.getEnrollmentCount() + " enrollment row(s).");
+    }
+    
+    // Computes every student's course grades and GPA from a snapshot and writes them to a CSV file
+    private void runTermReport() {
+        out.println("\n--- Term GPA Report ---");
+        out.print("Report file [" + DEFAULT_REPORT_FILE + "]: ");
+        String reportFile = scanner.nextLine().trim();
+        if (reportFile.isEmpty()) {
+            reportFile = DEFAULT_REPORT_FILE;
+        }
+        
+        try {
+            TermReportSummary summary = new TermReportService(snapshotService).generateReport(reportFile);
+            out.println("Report written to " + summary.getReportFile());
+            out.println(String.format("%d students, %d course grades from %d assignment grades in %d ms (%.0f students/s)",
+                                      summary.getStudentCount(), summary.getCourseGradeCount(),
+                                      summary.getGradeCount(), summary.getElapsedMillis(),
+                                      summary.getStudentsPerSecond()));
+        } catch (IOException e) {
+            out.println("Error: Could not write the report: " + e.getMessage());
+        }
+    }
+    
+    // Asks how a listing should be sorted (ID by default)
+    private String readSortOrder() {
+        out.print("Sort by (1) ID or (2) Name [1]: ");
+        String choice = scanner.nextLine().trim();
+        return choice.equals("2") ? SortedIndex.SORT_BY_NAME : SortedIndex.SORT_BY_ID;
+    }
+    
+    // Asks whether to show the next page of a listing
+    private boolean askForNextPage() {
+        out.print("-- n = next page, q = quit: ");
+        String choice = scanner.nextLine().trim().toLowerCase();
+        return !choice.equals("q");
+    }
+    
+    private void searchCoursesAndAssignments() {
+        out.println("\n--- Search Courses and Assignments ---");
+        out.print("Enter keywords: ");
+        String query = scanner.nextLine().trim();
+        
+        if (!InputValidator.isNotEmpty(query)) {
+            out.println("Error: Keywords cannot be empty.");
+            return;
+        }
         
-        if (courses.isEmpty()) {
-            System.out.println("No courses found.");
+        ArrayList<SearchResult> results = searchService.search(query, SEARCH_RESULTS_SHOWN);
+        if (results.isEmpty()) {
+            out.println("No matches found.");
             return;
         }
         
-        for (Course course : courses) {
-            System.out.println("ID: " + course.getCourseId() + 
-                              ", Name: " + course.getCourseName() + 
-                              ", Teacher: " + course.getTeacherId() + 
-                              ", Capacity: " + course.getCapacity());
+        for (SearchResult result : results) {
+            String label = result.getType().equals(SearchResult.COURSE) ? "Course" : "Assignment";
+            out.println(label + " " + result.getId() + ": " + result.getTitle());
+        }
+    }
+    
+    // Asks for a user ID or the start of a name and lets the admin pick from the matches
+    // Returns null (after printing why) if nothing was picked
+    private User pickUser(String role, String label) {
+        out.print("Enter " + label + " ID or part of the name: ");
+        String input = scanner.nextLine().trim();
+        
+        User exact = authService.findUserById(input);
+        if (exact != null && exact.getRole().equals(role)) {
+            return exact;
+        }
+        
+        ArrayList<User> matches = input.isEmpty() ? new ArrayList<User>()
+                                                  : authService.findUsersByPrefix(input, role, PICK_LIST_SIZE);
+        if (matches.isEmpty()) {
+            out.println("Error: " + label + " not found.");
+            return null;
+        }
+        
+        for (int i = 0; i < matches.size(); i++) {
+            out.println((i + 1) + ". " + matches.get(i).getName() + " (" + matches.get(i).getUserId() + ")");
+        }
+        int picked = readPick(matches.size());
+        if (picked < 0) {
+            out.println("Error: " + label + " not found.");
+            return null;
+        }
+        return matches.get(picked);
+    }
+    
+    // Same as pickUser, for courses
+    private Course pickCourse() {
+        out.print("Enter Course ID or part of the name: ");
+        String input = scanner.nextLine().trim();
+        
+        Course exact = courseService.findCourseById(input);
+        if (exact != null) {
+            return exact;
+        }
+        
+        ArrayList<Course> matches = input.isEmpty() ? new ArrayList<Course>()
+                                                    : courseService.findCoursesByPrefix(input, PICK_LIST_SIZE);
+        if (matches.isEmpty()) {
+            out.println("Error: Course not found.");
+            return null;
+        }
+        
+        for (int i = 0; i < matches.size(); i++) {
+            out.println((i + 1) + ". " + matches.get(i).getCourseName() + " (" + matches.get(i).getCourseId() + ")");
+        }
+        int picked = readPick(matches.size());
+        if (picked < 0) {
+            out.println("Error: Course not found.");
+            return null;
         }
+        return matches.get(picked);
+    }
+    
+    // Reads a number from 1 to count; returns the zero-based index or -1 if the input is invalid
+    private int readPick(int count) {
+        out.print("Select a number (1-" + count + "): ");
+        String input = scanner.nextLine().trim();
+        if (!InputValidator.isValidInteger(input)) {
+            return -1;
+        }
+        int number = Integer.parseInt(input);
+        if (number < 1 || number > count) {
+            return -1;
+        }
+        return number - 1;
     }
 }
-
@@ -0,0 +1,7 @@
+package com.blackboard.views;
+
+// Told about every menu choice once it has been handled, e.g. by the session driver to time actions
+public interface MenuActionListener {
+    // menu is ADMIN, TEACHER or STUDENT; choice is the text that was entered
+    void actionCompleted(String menu, String choice, long elapsedNanos);
+}
@@ -1,41 +1,76 @@
 package com.blackboard.views;
 
 import com.blackboard.models.*;
+import com.blackboard.monitoring.MenuActionEvent;
 import com.blackboard.services.*;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 public class StudentMenu {
+    private static final int UPCOMING_DEADLINES_SHOWN = 10;
+    private static final int SEARCH_RESULTS_SHOWN = 10;
+    
     private Scanner scanner;
+    private PrintStream out;
     private Student student;
     private CourseService courseService;
     private AssignmentService assignmentService;
     private GradeService gradeService;
+    private TranscriptCache transcriptCache;
+    private ReminderOutbox reminderOutbox;
+    private SearchService searchService;
+    private CourseRankIndex rankIndex;
+    private MenuActionListener actionListener; // Optional
     
     public StudentMenu(Scanner scanner, Student student, CourseService courseService,
-                      AssignmentService assignmentService, GradeService gradeService) {
+                      AssignmentService assignmentService, GradeService gradeService,
+                      TranscriptCache transcriptCache, ReminderOutbox reminderOutbox,
+                      SearchService searchService, CourseRankIndex rankIndex) {
+        this(scanner, System.out, student, courseService, assignmentService, gradeService,
+             transcriptCache, reminderOutbox, searchService, rankIndex);
+    }
+    
+    // Reads from scanner and writes to out, so the menu can run without a console
+    public StudentMenu(Scanner scanner, PrintStream out, Student student, CourseService courseService,
+                      AssignmentService assignmentService, GradeService gradeService,
+                      TranscriptCache transcriptCache, ReminderOutbox reminderOutbox,
+                      SearchService searchService, CourseRankIndex rankIndex) {
         this.scanner = scanner;
+        this.out = out;
         this.student = student;
         this.courseService = courseService;
         this.assignmentService = assignmentService;
         this.gradeService = gradeService;
+        this.transcriptCache = transcriptCache;
+        this.reminderOutbox = reminderOutbox;
+        this.searchService = searchService;
+        this.rankIndex = rankIndex;
     }
     
     public void displayMenu() {
         boolean running = true;
         
         while (running) {
-            System.out.println("\n=== STUDENT MENU ===");
-            System.out.println("Welcome, " + student.getName() + "!");
-            System.out.println("1. View My Courses");
-            System.out.println("2. View Assignments for Course");
-            System.out.println("3. View My Grades");
-            System.out.println("4. View Final Grade for Course");
-            System.out.println("5. Logout");
-            System.out.print("Enter your choice: ");
+            out.println("\n=== STUDENT MENU ===");
+            out.println("Welcome, " + student.getName() + "!");
+            out.println("1. View My Courses");
+            out.println("2. View Assignments for Course");
+            out.println("3. View My Grades");
+            out.println("4. View Final Grade for Course");
+            out.println("5. View Upcoming Deadlines");
+            out.println("6. View Reminders");
+            out.println("7. Search Courses");
+            out.println("8. View My Class Rank");
+            out.println("9. Logout");
+            out.print("Enter your choice: ");
             
             String choice = scanner.nextLine().trim();
+            long start = System.nanoTime();
             
+            // Recorded by Java Flight Recorder when it is running (free otherwise)
+            MenuActionEvent action = new MenuActionEvent("STUDENT", choice, student.getUserId());
             switch (choice) {
                 case "1":
                     viewMyCourses();
@@ -50,114 +85,207 @@ public class StudentMenu {
                     viewFinalGradeForCourse();
                     break;
                 case "5":
+                    viewUpcomingDeadlines();
+                    break;
+                case "6":
+                    viewReminders();
+                    break;
+                case "7":
+                    searchCourses();
+                    break;
+                case "8":
+                    viewClassRank();
+                    break;
+                case "9":
                     running = false;
-                    System.out.println("Logging out...");
+                    out.println("Logging out...");
                     break;
                 default:
-                    System.out.println("Invalid choice. Please try again.");
+                    out.println("Invalid choice. Please try again.");
+            }
+            action.commit();
+            if (actionListener != null) {
+                actionListener.actionCompleted("STUDENT", choice, System.nanoTime() - start);
             }
         }
     }
     
+    public void setActionListener(MenuActionListener actionListener) {
+        this.actionListener = actionListener;
+    }
+    
     private void viewMyCourses() {
-        System.out.println("\n--- My Courses ---");
-        ArrayList<Course> courses = student.getEnrolledCourses();
+        out.println("\n--- My Courses ---");
+        List<Course> courses = student.getEnrolledCourses();
         
         if (courses.isEmpty()) {
-            System.out.println("You are not enrolled in any courses.");
+            out.println("You are not enrolled in any courses.");
             return;
         }
         
         for (Course course : courses) {
-            System.out.println("ID: " + course.getCourseId() + 
+            out.println("ID: " + course.getCourseId() + 
                               ", Name: " + course.getCourseName() + 
                               ", Description: " + course.getDescription());
         }
     }
     
     private void viewAssignmentsForCourse() {
-        System.out.println("\n--- View Assignments for Course ---");
-        System.out.print("Enter Course ID: ");
+        out.println("\n--- View Assignments for Course ---");
+        out.print("Enter Course ID: ");
         String courseId = scanner.nextLine().trim();
         
         Course course = courseService.findCourseById(courseId);
         if (course == null) {
-            System.out.println("Error: Course not found.");
+            out.println("Error: Course not found.");
             return;
         }
         
-        if (!student.getEnrolledCourses().contains(course)) {
-            System.out.println("Error: You are not enrolled in this course.");
+        if (!student.isEnrolledIn(course)) {
+            out.println("Error: You are not enrolled in this course.");
             return;
         }
         
-        ArrayList<Assignment> assignments = assignmentService.getAssignmentsForCourse(courseId);
+        ArrayList<TranscriptRow> rows = transcriptCache.getTranscript(student).getRowsForCourse(courseId);
         
-        if (assignments.isEmpty()) {
-            System.out.println("No assignments found for this course.");
+        if (rows.isEmpty()) {
+            out.println("No assignments found for this course.");
             return;
         }
         
-        System.out.println("\nAssignments and Grades for " + course.getCourseName() + ":");
-        for (Assignment assignment : assignments) {
-            Grade grade = gradeService.getGradeForStudentAndAssignment(student.getUserId(), assignment.getAssignmentId());
-            String gradeInfo = (grade != null) ? 
-                "Grade: " + grade.getPoints() + "/" + assignment.getMaxPoints() : 
+        out.println("\nAssignments and Grades for " + course.getCourseName() + ":");
+        for (TranscriptRow row : rows) {
+            String gradeInfo = row.isGraded() ? 
+                "Grade: " + row.getPoints() + "/" + row.getMaxPoints() : 
                 "Grade: Not yet graded";
             
-            System.out.println("ID: " + assignment.getAssignmentId() + 
-                              ", Title: " + assignment.getTitle() + 
-                              ", Max Points: " + assignment.getMaxPoints() + 
-                              ", Due Date: " + assignment.getDueDate() + 
+            out.println("ID: " + row.getAssignmentId() + 
+                              ", Title: " + row.getTitle() + 
+                              ", Max Points: " + row.getMaxPoints() + 
+                              ", Due Date: " + row.getDueDate() + 
                               ", " + gradeInfo);
         }
     }
     
     private void viewMyGrades() {
-        System.out.println("\n--- My Grades ---");
-        ArrayList<Grade> grades = gradeService.getGradesForStudent(student.getUserId());
+        out.println("\n--- My Grades ---");
+        ArrayList<TranscriptRow> gradedRows = transcriptCache.getTranscript(student).getGradedRows();
         
-        if (grades.isEmpty()) {
-            System.out.println("No grades found.");
+        if (gradedRows.isEmpty()) {
+            out.println("No grades found.");
             return;
         }
         
-        for (Grade grade : grades) {
-            Assignment assignment = assignmentService.findAssignmentById(grade.getAssignmentId());
-            if (assignment != null) {
-                System.out.println("Assignment: " + assignment.getTitle() + 
-                                  ", Points: " + grade.getPoints() + "/" + assignment.getMaxPoints());
-            }
+        for (TranscriptRow row : gradedRows) {
+            out.println("Assignment: " + row.getTitle() + 
+                              ", Points: " + row.getPoints() + "/" + row.getMaxPoints());
         }
     }
     
     private void viewFinalGradeForCourse() {
-        System.out.println("\n--- View Final Grade for Course ---");
-        System.out.print("Enter Course ID: ");
+        out.println("\n--- View Final Grade for Course ---");
+        out.print("Enter Course ID: ");
         String courseId = scanner.nextLine().trim();
         
         Course course = courseService.findCourseById(courseId);
         if (course == null) {
-            System.out.println("Error: Course not found.");
+            out.println("Error: Course not found.");
             return;
         }
         
-        if (!student.getEnrolledCourses().contains(course)) {
-            System.out.println("Error: You are not enrolled in this course.");
+        if (!student.isEnrolledIn(course)) {
+            out.println("Error: You are not enrolled in this course.");
             return;
         }
         
-        ArrayList<Assignment> assignments = assignmentService.getAssignmentsForCourse(courseId);
+        Double finalGrade = transcriptCache.getTranscript(student).getCoursePercentage(courseId);
         
-        if (assignments.isEmpty()) {
-            System.out.println("No assignments found for this course.");
+        if (finalGrade == null) {
+            out.println("No assignments found for this course.");
             return;
         }
         
-        double finalGrade = gradeService.calculateFinalGradeForCourse(student.getUserId(), courseId, assignments);
+        out.println("\nFinal Grade for " + course.getCourseName() + ":");
+        out.println(String.format("%.2f%%", finalGrade));
+    }
+    
+    private void viewClassRank() {
+        out.println("\n--- View My Class Rank ---");
+        out.print("Enter Course ID: ");
+        String courseId = scanner.nextLine().trim();
+        
+        Course course = courseService.findCourseById(courseId);
+        if (course == null) {
+            out.println("Error: Course not found.");
+            return;
+        }
+        
+        CourseStanding standing = student.isEnrolledIn(course) ? 
+            rankIndex.getStanding(student.getUserId(), courseId) : null;
+        if (standing == null) {
+            out.println("Error: You are not enrolled in this course.");
+            return;
+        }
         
-        System.out.println("\nFinal Grade for " + course.getCourseName() + ":");
-        System.out.println(String.format("%.2f%%", finalGrade));
+        out.println("\nYour standing in " + course.getCourseName() + ":");
+        out.println(String.format("Rank %d of %d (final grade %.1f%%, percentile %.1f)",
+                                  standing.getRank(), standing.getClassSize(), standing.getScore(),
+                                  standing.getPercentile()));
+    }
+    
+    private void viewUpcomingDeadlines() {
+        out.println("\n--- Upcoming Deadlines ---");
+        ArrayList<Assignment> deadlines = assignmentService.getUpcomingDeadlines(student, 
+                                                                                System.currentTimeMillis(), 
+                                                                                UPCOMING_DEADLINES_SHOWN);
+        
+        if (deadlines.isEmpty()) {
+            out.println("No upcoming deadlines.");
+            return;
+        }
+        
+        for (Assignment assignment : deadlines) {
+            out.println("Due: " + assignment.getDueDate() + 
+                              ", Course: " + assignment.getCourseId() + 
+                              ", Title: " + assignment.getTitle() + 
+                              ", Max Points: " + assignment.getMaxPoints());
+        }
+    }
+    
+    private void viewReminders() {
+        out.println("\n--- Reminders ---");
+        ArrayList<Reminder> reminders = reminderOutbox.takeRemindersFor(student.getUserId());
+        
+        if (reminders.isEmpty()) {
+            out.println("No new reminders.");
+            return;
+        }
+        
+        for (Reminder reminder : reminders) {
+            long hours = reminder.getLeadTimeMillis() / (60 * 60 * 1000L);
+            out.println("Due in " + hours + (hours == 1 ? " hour" : " hours") + ": " + 
+                              reminder.getTitle() + " (" + reminder.getCourseId() + "), due " + 
+                              reminder.getDueDate());
+        }
+    }
+    
+    private void searchCourses() {
+        out.println("\n--- Search Courses ---");
+        out.print("Enter keywords: ");
+        String query = scanner.nextLine().trim();
+        
+        ArrayList<SearchResult> results = searchService.searchCourses(query, SEARCH_RESULTS_SHOWN);
+        if (results.isEmpty()) {
+            out.println("No matching courses found.");
+            return;
+        }
+        
+        for (SearchResult result : results) {
+            Course course = courseService.findCourseById(result.getId());
+            if (course != null) {
+                out.println(course.getCourseId() + ": " + course.getCourseName() + 
+                                  " - " + course.getDescription());
+            }
+        }
     }
 }
-
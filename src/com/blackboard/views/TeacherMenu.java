@@ -1,46 +1,72 @@
 package com.blackboard.views;
 
 import com.blackboard.models.*;
+import com.blackboard.monitoring.MenuActionEvent;
 import com.blackboard.services.*;
+import com.blackboard.utils.DueDateParser;
 import com.blackboard.utils.InputValidator;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.Scanner;
 
 public class TeacherMenu {
+    private static final int[] STANDING_PERCENTILES = {10, 25, 50, 75, 90};
+    
     private Scanner scanner;
+    private PrintStream out;
     private Teacher teacher;
     private AuthenticationService authService;
     private CourseService courseService;
     private AssignmentService assignmentService;
     private GradeService gradeService;
+    private CourseRankIndex rankIndex;
+    private MenuActionListener actionListener; // Optional
     
     public TeacherMenu(Scanner scanner, Teacher teacher, AuthenticationService authService,
                       CourseService courseService, AssignmentService assignmentService, 
-                      GradeService gradeService) {
+                      GradeService gradeService, CourseRankIndex rankIndex) {
+        this(scanner, System.out, teacher, authService, courseService, assignmentService, gradeService,
+             rankIndex);
+    }
+    
+    // Reads from scanner and writes to out, so the menu can run without a console
+    public TeacherMenu(Scanner scanner, PrintStream out, Teacher teacher, AuthenticationService authService,
+                      CourseService courseService, AssignmentService assignmentService, 
+                      GradeService gradeService, CourseRankIndex rankIndex) {
         this.scanner = scanner;
+        this.out = out;
         this.teacher = teacher;
         this.authService = authService;
         this.courseService = courseService;
         this.assignmentService = assignmentService;
         this.gradeService = gradeService;
+        this.rankIndex = rankIndex;
     }
     
     public void displayMenu() {
         boolean running = true;
         
         while (running) {
-            System.out.println("\n=== TEACHER MENU ===");
-            System.out.println("Welcome, " + teacher.getName() + "!");
-            System.out.println("1. View My Courses");
-            System.out.println("2. View Students in Course");
-            System.out.println("3. Create Assignment");
-            System.out.println("4. Enter/Update Grade");
-            System.out.println("5. View Assignments for Course");
-            System.out.println("6. Logout");
-            System.out.print("Enter your choice: ");
+            out.println("\n=== TEACHER MENU ===");
+            out.println("Welcome, " + teacher.getName() + "!");
+            out.println("1. View My Courses");
+            out.println("2. View Students in Course");
+            out.println("3. Create Assignment");
+            out.println("4. Enter/Update Grade");
+            out.println("5. View Assignments for Course");
+            out.println("6. Batch Grade Assignment");
+            out.println("7. View Course Standings");
+            out.println("8. Set Grading Policy");
+            out.println("9. Set Assignment Category");
+            out.println("10. Logout");
+            out.print("Enter your choice: ");
             
             String choice = scanner.nextLine().trim();
+            long start = System.nanoTime();
             
+            // Recorded by Java Flight Recorder when it is running (free otherwise)
+            MenuActionEvent action = new MenuActionEvent("TEACHER", choice, teacher.getUserId());
             switch (choice) {
                 case "1":
                     viewMyCourses();
@@ -58,121 +84,139 @@ public class TeacherMenu {
                     viewAssignmentsForCourse();
                     break;
                 case "6":
+                    batchGradeAssignment();
+                    break;
+                case "7":
+                    viewCourseStandings();
+                    break;
+                case "8":
+                    setGradingPolicy();
+                    break;
+                case "9":
+                    setAssignmentCategory();
+                    break;
+                case "10":
                     running = false;
-                    System.out.println("Logging out...");
+                    out.println("Logging out...");
                     break;
                 default:
-                    System.out.println("Invalid choice. Please try again.");
+                    out.println("Invalid choice. Please try again.");
+            }
+            action.commit();
+            if (actionListener != null) {
+                actionListener.actionCompleted("TEACHER", choice, System.nanoTime() - start);
             }
         }
     }
     
+    public void setActionListener(MenuActionListener actionListener) {
+        this.actionListener = actionListener;
+    }
+    
     private void viewMyCourses() {
-        System.out.println("\n--- My Courses ---");
+        out.println("\n--- My Courses ---");
         ArrayList<Course> courses = courseService.getCoursesForTeacher(teacher.getUserId());
         
         if (courses.isEmpty()) {
-            System.out.println("No courses assigned.");
+            out.println("No courses assigned.");
             return;
         }
         
         for (Course course : courses) {
-            System.out.println("ID: " + course.getCourseId() + 
+            out.println("ID: " + course.getCourseId() + 
                               ", Name: " + course.getCourseName() + 
                               ", Capacity: " + course.getCapacity());
         }
     }
     
     private void viewStudentsInCourse() {
-        System.out.println("\n--- View Students in Course ---");
-        System.out.print("Enter Course ID: ");
+        out.println("\n--- View Students in Course ---");
+        out.print("Enter Course ID: ");
         String courseId = scanner.nextLine().trim();
         
         Course course = courseService.findCourseById(courseId);
         if (course == null) {
-            System.out.println("Error: Course not found.");
+            out.println("Error: Course not found.");
             return;
         }
         
-        if (!course.getTeacherId().equals(teacher.getUserId())) {
-            System.out.println("Error: You are not assigned to this course.");
+        if (!teacher.getUserId().equals(course.getTeacherId())) {
+            out.println("Error: You are not assigned to this course.");
             return;
         }
         
-        System.out.println("\nStudents enrolled in " + course.getCourseName() + ":");
-        ArrayList<User> users = authService.getAllUsers();
-        boolean found = false;
+        out.println("\nStudents enrolled in " + course.getCourseName() + ":");
+        ArrayList<Student> students = courseService.getStudentsInCourse(courseId);
         
-        for (User user : users) {
-            if (user instanceof Student) {
-                Student student = (Student) user;
-                if (student.getEnrolledCourses().contains(course)) {
-                    System.out.println("ID: " + student.getUserId() + 
-                                      ", Name: " + student.getName() + 
-                                      ", Major: " + student.getMajor());
-                    found = true;
-                }
-            }
+        for (Student student : students) {
+            out.println("ID: " + student.getUserId() + 
+                              ", Name: " + student.getName() + 
+                              ", Major: " + student.getMajor());
         }
         
-        if (!found) {
-            System.out.println("No students enrolled in this course.");
+        if (students.isEmpty()) {
+            out.println("No students enrolled in this course.");
         }
     }
     
     private void createAssignment() {
-        System.out.println("\n--- Create Assignment ---");
-        System.out.print("Enter Assignment ID: ");
+        out.println("\n--- Create Assignment ---");
+        out.print("Enter Assignment ID: ");
         String assignmentId = scanner.nextLine().trim();
         
         if (!InputValidator.isValidAssignmentId(assignmentId)) {
-            System.out.println("Error: Assignment ID cannot be empty.");
+            out.println("Error: Assignment ID cannot be empty.");
             return;
         }
         
         if (assignmentService.findAssignmentById(assignmentId) != null) {
-            System.out.println("Error: Assignment ID already exists.");
+            out.println("Error: Assignment ID already exists.");
             return;
         }
         
-        System.out.print("Enter Course ID: ");
+        out.print("Enter Course ID: ");
         String courseId = scanner.nextLine().trim();
         
         Course course = courseService.findCourseById(courseId);
         if (course == null) {
-            System.out.println("Error: Course not found.");
+            out.println("Error: Course not found.");
             return;
         }
         
-        if (!course.getTeacherId().equals(teacher.getUserId())) {
-            System.out.println("Error: You are not assigned to this course.");
+        if (!teacher.getUserId().equals(course.getTeacherId())) {
+            out.println("Error: You are not assigned to this course.");
             return;
         }
         
-        System.out.print("Enter Title: ");
+        out.print("Enter Title: ");
         String title = scanner.nextLine().trim();
         
         if (!InputValidator.isNotEmpty(title)) {
-            System.out.println("Error: Title cannot be empty.");
+            out.println("Error: Title cannot be empty.");
             return;
         }
         
-        System.out.print("Enter Description: ");
+        out.print("Enter Description: ");
         String description = scanner.nextLine().trim();
         
-        System.out.print("Enter Due Date (e.g., 2024-12-15): ");
+        out.print("Enter Due Date (e.g., 2024-12-15): ");
         String dueDate = scanner.nextLine().trim();
         
         if (!InputValidator.isNotEmpty(dueDate)) {
-            System.out.println("Error: Due date cannot be empty.");
+            out.println("Error: Due date cannot be empty.");
             return;
         }
         
-        System.out.print("Enter Max Points: ");
+        if (!DueDateParser.isValid(dueDate)) {
+            out.println("Error: Due date must look like 2024-12-15 or 2024-12-15 17:00.");
+            return;
+        }
+        
+        out.print("Enter Max Points: ");
         String maxPointsInput = scanner.nextLine().trim();
         
         if (!InputValidator.isValidDouble(maxPointsInput)) {
-            System.out.println("Error: Please enter a valid number.");
+            out.println("Error: Please enter a valid number.");
             return;
         }
         
@@ -181,99 +225,360 @@ public class TeacherMenu {
         Assignment assignment = assignmentService.createAssignment(assignmentId, courseId, title, 
                                                                    description, dueDate, maxPoints);
         if (assignment != null) {
-            System.out.println("Assignment created successfully!");
+            out.println("Assignment created successfully!");
         } else {
-            System.out.println("Error: Failed to create assignment.");
+            out.println("Error: Failed to create assignment.");
         }
     }
     
     private void enterGrade() {
-        System.out.println("\n--- Enter/Update Grade ---");
-        System.out.print("Enter Assignment ID: ");
+        out.println("\n--- Enter/Update Grade ---");
+        out.print("Enter Assignment ID: ");
         String assignmentId = scanner.nextLine().trim();
         
         Assignment assignment = assignmentService.findAssignmentById(assignmentId);
         if (assignment == null) {
-            System.out.println("Error: Assignment not found.");
+            out.println("Error: Assignment not found.");
             return;
         }
         
         Course course = courseService.findCourseById(assignment.getCourseId());
-        if (course == null || !course.getTeacherId().equals(teacher.getUserId())) {
-            System.out.println("Error: You are not assigned to this course.");
+        if (course == null || !teacher.getUserId().equals(course.getTeacherId())) {
+            out.println("Error: You are not assigned to this course.");
             return;
         }
         
-        System.out.print("Enter Student ID: ");
+        out.print("Enter Student ID: ");
         String studentId = scanner.nextLine().trim();
         
         User user = authService.findUserById(studentId);
         if (user == null || !user.getRole().equals("STUDENT")) {
-            System.out.println("Error: Student not found.");
+            out.println("Error: Student not found.");
             return;
         }
         
-        System.out.print("Enter Points Earned: ");
+        out.print("Enter Points Earned: ");
         String pointsInput = scanner.nextLine().trim();
         
         if (!InputValidator.isValidDouble(pointsInput)) {
-            System.out.println("Error: Please enter a valid number.");
+            out.println("Error: Please enter a valid number.");
             return;
         }
         
         double points = Double.parseDouble(pointsInput);
         
+        if (Double.isNaN(points) || Double.isInfinite(points)) {
+            out.println("Error: Please enter a valid number.");
+            return;
+        }
         if (points < 0 || points > assignment.getMaxPoints()) {
-            System.out.println("Error: Points must be between 0 and " + assignment.getMaxPoints() + ".");
+            out.println("Error: Points must be between 0 and " + assignment.getMaxPoints() + ".");
             return;
         }
         
         Grade existingGrade = gradeService.getGradeForStudentAndAssignment(studentId, assignmentId);
         
         if (existingGrade != null) {
-            existingGrade.setPoints(points);
-            gradeService.updateGrade(existingGrade);
-            System.out.println("Grade updated successfully!");
+            // Pass a new object so the service still sees the old points when it publishes the change
+            Grade updatedGrade = new Grade(existingGrade.getGradeId(), studentId, assignmentId, points);
+            if (gradeService.updateGrade(updatedGrade)) {
+                out.println("Grade updated successfully!");
+            } else {
+                out.println("Error: Failed to update grade.");
+            }
         } else {
-            String gradeId = "G" + System.currentTimeMillis();
+            String gradeId = gradeService.generateGradeId();
             Grade grade = gradeService.createGrade(gradeId, studentId, assignmentId, points);
             if (grade != null) {
-                System.out.println("Grade entered successfully!");
+                out.println("Grade entered successfully!");
             } else {
-                System.out.println("Error: Failed to create grade.");
+                out.println("Error: Failed to create grade.");
+            }
+        }
+    }
+    
+    // Grades every student in the course for one assignment and saves them in one operation
+    private void batchGradeAssignment() {
+        out.println("\n--- Batch Grade Assignment ---");
+        out.print("Enter Assignment ID: ");
+        String assignmentId = scanner.nextLine().trim();
+        
+        Assignment assignment = assignmentService.findAssignmentById(assignmentId);
+        if (assignment == null) {
+            out.println("Error: Assignment not found.");
+            return;
+        }
+        
+        Course course = courseService.findCourseById(assignment.getCourseId());
+        if (course == null || !teacher.getUserId().equals(course.getTeacherId())) {
+            out.println("Error: You are not assigned to this course.");
+            return;
+        }
+        
+        ArrayList<Student> roster = courseService.getStudentsInCourse(course.getCourseId());
+        if (roster.isEmpty()) {
+            out.println("No students enrolled in this course.");
+            return;
+        }
+        
+        out.println("Enter points out of " + assignment.getMaxPoints() + 
+                          " for each student (press Enter to skip, 'q' to stop entering).");
+        
+        LinkedHashMap<String, Double> pointsByStudent = new LinkedHashMap<>();
+        for (Student student : roster) {
+            Grade existingGrade = gradeService.getGradeForStudentAndAssignment(student.getUserId(), assignmentId);
+            String current = (existingGrade != null) ? " [current: " + existingGrade.getPoints() + "]" : "";
+            out.print(student.getUserId() + " (" + student.getName() + ")" + current + ": ");
+            String pointsInput = scanner.nextLine().trim();
+            
+            if (pointsInput.equalsIgnoreCase("q")) {
+                break;
+            }
+            if (pointsInput.isEmpty()) {
+                continue;
+            }
+            if (!InputValidator.isValidDouble(pointsInput)) {
+                out.println("Error: Please enter a valid number. Skipping " + student.getUserId() + ".");
+                continue;
+            }
+            pointsByStudent.put(student.getUserId(), Double.parseDouble(pointsInput));
+        }
+        
+        if (pointsByStudent.isEmpty()) {
+            out.println("No grades entered.");
+            return;
+        }
+        
+        ArrayList<String> rosterIds = new ArrayList<>();
+        for (Student student : roster) {
+            rosterIds.add(student.getUserId());
+        }
+        
+        GradeBatchResult result = gradeService.upsertGrades(assignment, rosterIds, pointsByStudent);
+        if (result.isApplied()) {
+            out.println("Grades saved: " + result.getCreatedCount() + " entered, " + 
+                              result.getUpdatedCount() + " updated, " + 
+                              result.getUnchangedCount() + " unchanged.");
+        } else {
+            out.println("Error: No grades were saved.");
+            for (String error : result.getErrors()) {
+                out.println("  " + error);
+            }
+        }
+    }
+    
+    // Grade distribution of a course, and optionally one student's rank in it
+    private void viewCourseStandings() {
+        out.println("\n--- View Course Standings ---");
+        out.print("Enter Course ID: ");
+        String courseId = scanner.nextLine().trim();
+        
+        Course course = courseService.findCourseById(courseId);
+        if (course == null) {
+            out.println("Error: Course not found.");
+            return;
+        }
+        
+        if (!teacher.getUserId().equals(course.getTeacherId())) {
+            out.println("Error: You are not assigned to this course.");
+            return;
+        }
+        
+        int classSize = rankIndex.getClassSize(courseId);
+        if (classSize == 0) {
+            out.println("No students enrolled in this course.");
+            return;
+        }
+        
+        out.println("\nFinal grades in " + course.getCourseName() + " (" + classSize + " students):");
+        for (int percentile : STANDING_PERCENTILES) {
+            out.println(String.format("  %2dth percentile: %.1f%%", percentile,
+                                      rankIndex.getScoreAtPercentile(courseId, percentile)));
+        }
+        
+        out.print("Enter Student ID to see their rank (or press Enter to skip): ");
+        String studentId = scanner.nextLine().trim();
+        if (studentId.isEmpty()) {
+            return;
+        }
+        
+        CourseStanding standing = rankIndex.getStanding(studentId, courseId);
+        if (standing == null) {
+            out.println("Error: Student is not enrolled in this course.");
+            return;
+        }
+        out.println(String.format("%s: rank %d of %d, final grade %.1f%%, percentile %.1f",
+                                  studentId, standing.getRank(), standing.getClassSize(),
+                                  standing.getScore(), standing.getPercentile()));
+    }
+    
+    private void setGradingPolicy() {
+        out.println("\n--- Set Grading Policy ---");
+        out.print("Enter Course ID: ");
+        String courseId = scanner.nextLine().trim();
+        
+        Course course = courseService.findCourseById(courseId);
+        if (course == null) {
+            out.println("Error: Course not found.");
+            return;
+        }
+        
+        if (!teacher.getUserId().equals(course.getTeacherId())) {
+            out.println("Error: You are not assigned to this course.");
+            return;
+        }
+        
+        out.println("Current policy: " + describePolicy(course.getGradingPolicy()));
+        out.println("Enter one category per line as: name weight [number of lowest scores to drop] [cap %]");
+        out.println("e.g. \"homework 30 1\" or \"exams 70 0 110\" (extra credit up to 110%).");
+        out.println("The cap is 100% if left out. Press Enter on an empty line to finish,");
+        out.println("or enter \"none\" on the first line to use total points again.");
+        
+        ArrayList<GradingCategory> categories = new ArrayList<>();
+        while (true) {
+            out.print("Category: ");
+            String line = scanner.nextLine().trim();
+            if (line.isEmpty()) {
+                break;
+            }
+            if (categories.isEmpty() && line.equalsIgnoreCase("none")) {
+                courseService.setGradingPolicy(courseId, null);
+                out.println("Final grades now use total points earned / total points possible.");
+                return;
+            }
+            
+            String[] fields = line.split("\\s+");
+            if (fields.length < 2 || fields.length > 4 || !InputValidator.isValidDouble(fields[1])
+                    || (fields.length >= 3 && !InputValidator.isValidInteger(fields[2]))
+                    || (fields.length == 4 && !InputValidator.isValidDouble(fields[3]))) {
+                out.println("Error: Enter a name, a weight and optionally how many scores to drop and a cap.");
+                return;
+            }
+            GradingCategory category = GradingPolicy.createCategory(fields[0], Double.parseDouble(fields[1]),
+                    fields.length >= 3 ? Integer.parseInt(fields[2]) : 0,
+                    fields.length == 4 ? Double.parseDouble(fields[3]) : GradingCategory.DEFAULT_CAP);
+            if (category == null) {
+                out.println("Error: Names may use letters, digits, '-' and '_'; weights and caps must be above 0.");
+                return;
+            }
+            if (new GradingPolicy(categories).findCategory(category.getName()) != null) {
+                out.println("Error: Category " + category.getName() + " was already entered.");
+                return;
+            }
+            categories.add(category);
+        }
+        
+        if (categories.isEmpty()) {
+            out.println("No categories entered; policy unchanged.");
+            return;
+        }
+        
+        GradingPolicy policy = new GradingPolicy(categories);
+        courseService.setGradingPolicy(courseId, policy);
+        out.println("Grading policy set: " + describePolicy(policy));
+        
+        ArrayList<String> notCounted = new ArrayList<>();
+        for (Assignment assignment : assignmentService.getAssignmentsForCourse(courseId)) {
+            if (policy.findCategory(assignment.getCategory()) == null) {
+                notCounted.add(assignment.getAssignmentId());
+            }
+        }
+        if (!notCounted.isEmpty()) {
+            out.println("Warning: these assignments are not in any of the categories and won't count "
+                        + "until you set their category (option 9): " + String.join(", ", notCounted));
+        }
+    }
+    
+    private void setAssignmentCategory() {
+        out.println("\n--- Set Assignment Category ---");
+        out.print("Enter Assignment ID: ");
+        String assignmentId = scanner.nextLine().trim();
+        
+        Assignment assignment = assignmentService.findAssignmentById(assignmentId);
+        if (assignment == null) {
+            out.println("Error: Assignment not found.");
+            return;
+        }
+        
+        Course course = courseService.findCourseById(assignment.getCourseId());
+        if (course == null || !teacher.getUserId().equals(course.getTeacherId())) {
+            out.println("Error: You are not assigned to this course.");
+            return;
+        }
+        
+        out.println("Course policy: " + describePolicy(course.getGradingPolicy()));
+        out.println("Current category: " + (assignment.getCategory() != null ? assignment.getCategory() : "none"));
+        out.print("Enter Category (or press Enter for none): ");
+        String input = scanner.nextLine().trim();
+        
+        String category = null;
+        if (!input.isEmpty()) {
+            category = GradingPolicy.normalizeName(input);
+            if (category == null) {
+                out.println("Error: Category names may use letters, digits, '-' and '_'.");
+                return;
+            }
+        }
+        
+        assignmentService.setAssignmentCategory(assignmentId, category);
+        out.println("Category updated.");
+        if (course.getGradingPolicy() != null && course.getGradingPolicy().findCategory(category) == null) {
+            out.println("Warning: the course's grading policy has no such category, "
+                        + "so this assignment won't count toward final grades.");
+        }
+    }
+    
+    // e.g. "homework 30 (drop lowest 1), exams 70"
+    private static String describePolicy(GradingPolicy policy) {
+        if (policy == null) {
+            return "total points earned / total points possible";
+        }
+        StringBuilder text = new StringBuilder();
+        for (GradingCategory category : policy.getCategories()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(category.getName()).append(' ').append(GradingPolicy.formatWeight(category.getWeight()));
+            if (category.getDropLowest() > 0) {
+                text.append(" (drop lowest ").append(category.getDropLowest()).append(')');
+            }
+            if (category.getCap() != GradingCategory.DEFAULT_CAP) {
+                text.append(" (capped at ").append(GradingPolicy.formatWeight(category.getCap())).append("%)");
             }
         }
+        return text.toString();
     }
     
     private void viewAssignmentsForCourse() {
-        System.out.println("\n--- View Assignments for Course ---");
-        System.out.print("Enter Course ID: ");
+        out.println("\n--- View Assignments for Course ---");
+        out.print("Enter Course ID: ");
         String courseId = scanner.nextLine().trim();
         
         Course course = courseService.findCourseById(courseId);
         if (course == null) {
-            System.out.println("Error: Course not found.");
+            out.println("Error: Course not found.");
             return;
         }
         
-        if (!course.getTeacherId().equals(teacher.getUserId())) {
-            System.out.println("Error: You are not assigned to this course.");
+        if (!teacher.getUserId().equals(course.getTeacherId())) {
+            out.println("Error: You are not assigned to this course.");
             return;
         }
         
         ArrayList<Assignment> assignments = assignmentService.getAssignmentsForCourse(courseId);
         
         if (assignments.isEmpty()) {
-            System.out.println("No assignments found for this course.");
+            out.println("No assignments found for this course.");
             return;
         }
         
-        System.out.println("\nAssignments for " + course.getCourseName() + ":");
+        out.println("\nAssignments for " + course.getCourseName() + ":");
         for (Assignment assignment : assignments) {
-            System.out.println("ID: " + assignment.getAssignmentId() + 
+            out.println("ID: " + assignment.getAssignmentId() + 
                               ", Title: " + assignment.getTitle() + 
                               ", Max Points: " + assignment.getMaxPoints() + 
-                              ", Due Date: " + assignment.getDueDate());
+                              ", Due Date: " + assignment.getDueDate() +
+                              (assignment.getCategory() != null ? ", Category: " + assignment.getCategory() : ""));
         }
     }
 }